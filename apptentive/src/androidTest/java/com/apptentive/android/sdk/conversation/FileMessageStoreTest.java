@@ -13,6 +13,7 @@ import com.apptentive.android.sdk.TestCaseBase;
 import com.apptentive.android.sdk.encryption.EncryptionFactory;
 import com.apptentive.android.sdk.model.ApptentiveMessage;
 import com.apptentive.android.sdk.model.CompoundMessage;
+import com.apptentive.android.sdk.storage.MessageStore;
 import com.apptentive.android.sdk.util.StringUtils;
 
 import org.json.JSONException;
@@ -25,12 +26,17 @@ import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
 
 import static com.apptentive.android.sdk.model.ApptentiveMessage.State;
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
 
 public class FileMessageStoreTest extends TestCaseBase {
 	private static final String CIPHER_TRANSFORMATION = "AES/CBC/PKCS7Padding";
@@ -255,6 +261,211 @@ public class FileMessageStoreTest extends TestCaseBase {
 		assertResult("{'nonce':'3','client_created_at':'30','state':'saved','read':'true'}");
 	}
 
+	@Test
+	public void updateMessageAndCountersAfterReload() throws Exception {
+		File file = getTempFile();
+
+		FileMessageStore store = new FileMessageStore(file, encryption);
+		store.addOrUpdateMessages(createMessage("1", State.saved, UNREAD, 10.0, "111"));
+		store.addOrUpdateMessages(createMessage("2", State.saved, UNREAD, 20.0, "222"));
+		store.addOrUpdateMessages(createMessage("3", State.saved, UNREAD, 30.0, "333"));
+
+		// mark a message as read and delete the last received one
+		store.updateMessage(createMessage("1", State.saved, READ, 10.0, "111"));
+		store.deleteMessage("3");
+
+		assertEquals(1, store.getUnreadMessageCount());
+		assertEquals("222", store.getLastReceivedMessageId());
+
+		// reload the store: the log should be replayed with the same result
+		store = new FileMessageStore(file, encryption);
+		assertEquals(1, store.getUnreadMessageCount());
+		assertEquals("222", store.getLastReceivedMessageId());
+		addResult(store.getAllMessages());
+
+		assertResult(
+			"{'nonce':'1','client_created_at':'10','state':'saved','read':'true'}",
+			"{'nonce':'2','client_created_at':'20','state':'saved','read':'false'}");
+	}
+
+	@Test
+	public void getMessagesPages() throws Exception {
+		File file = getTempFile();
+
+		FileMessageStore store = new FileMessageStore(file, encryption);
+		store.addOrUpdateMessages(createMessage("1", State.sending, READ, 10.0));
+		store.addOrUpdateMessages(createMessage("2", State.sent, UNREAD, 20.0));
+		store.addOrUpdateMessages(createMessage("3", State.saved, READ, 30.0));
+		store.addOrUpdateMessages(createMessage("4", State.saved, READ, 40.0));
+		store.addOrUpdateMessages(createMessage("5", State.saved, READ, 50.0));
+
+		// the newest page goes first
+		MessageStore.MessagePage page = store.getMessages(null, 2);
+		addResult(page.getMessages());
+		assertResult(
+			"{'nonce':'4','client_created_at':'40','state':'saved','read':'true'}",
+			"{'nonce':'5','client_created_at':'50','state':'saved','read':'true'}");
+
+		page = store.getMessages(page.getNextBeforeNonce(), 2);
+		addResult(page.getMessages());
+		assertResult(
+			"{'nonce':'2','client_created_at':'20','state':'sent','read':'false'}",
+			"{'nonce':'3','client_created_at':'30','state':'saved','read':'true'}");
+
+		// the last page is not full and has no cursor
+		page = store.getMessages(page.getNextBeforeNonce(), 2);
+		addResult(page.getMessages());
+		assertResult("{'nonce':'1','client_created_at':'10','state':'sending','read':'true'}");
+		assertNull(page.getNextBeforeNonce());
+	}
+
+	@Test
+	public void returnedMessagesAreNotShared() throws Exception {
+		File file = getTempFile();
+
+		FileMessageStore store = new FileMessageStore(file, encryption);
+		store.addOrUpdateMessages(createMessage("1", State.saved, UNREAD, 10.0));
+
+		// a caller-side change should not leak into the store until the message is updated
+		ApptentiveMessage message = store.getMessages(null, 1).getMessages().get(0);
+		message.setRead(true);
+
+		ApptentiveMessage other = store.getMessages(null, 1).getMessages().get(0);
+		assertNotSame(message, other);
+		assertFalse(other.isRead());
+		assertEquals(1, store.getUnreadMessageCount());
+	}
+
+	@Test
+	public void corruptedRecord() throws Exception {
+		File file = getTempFile();
+
+		FileMessageStore store = new FileMessageStore(file, encryption);
+		store.addOrUpdateMessages(createMessage("1", State.sending, READ, 10.0));
+		store.addOrUpdateMessages(createMessage("2", State.sent, UNREAD, 20.0));
+		store.addOrUpdateMessages(createMessage("3", State.saved, READ, 30.0));
+
+		// corrupt the second record: [MAGIC (4 bytes)][VERSION] ([record length][record type][encrypted record])*
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.seek(5);
+			int firstLength = raf.readInt();
+			raf.seek(raf.getFilePointer() + firstLength);
+			int length = raf.readInt();
+			long position = raf.getFilePointer() + length - 17; // the last byte of the block before the last one
+			raf.seek(position);
+			byte value = raf.readByte();
+			raf.seek(position);
+			raf.writeByte(value ^ 1);
+		} finally {
+			raf.close();
+		}
+
+		// reload the store: only the corrupted message is missing
+		store = new FileMessageStore(file, encryption);
+		addResult(store.getAllMessages());
+
+		assertResult(
+			"{'nonce':'1','client_created_at':'10','state':'sending','read':'true'}",
+			"{'nonce':'3','client_created_at':'30','state':'saved','read':'true'}");
+
+		// new messages are appended without losing the rest
+		store.addOrUpdateMessages(createMessage("4", State.sent, UNREAD, 40.0));
+
+		store = new FileMessageStore(file, encryption);
+		addResult(store.getAllMessages());
+
+		assertResult(
+			"{'nonce':'1','client_created_at':'10','state':'sending','read':'true'}",
+			"{'nonce':'3','client_created_at':'30','state':'saved','read':'true'}",
+			"{'nonce':'4','client_created_at':'40','state':'sent','read':'false'}");
+	}
+
+	@Test
+	public void deletedMessageWithUnreadableRecords() throws Exception {
+		File file = getTempFile();
+
+		FileMessageStore store = new FileMessageStore(file, encryption);
+		store.addOrUpdateMessages(createMessage("1", State.sending, READ, 10.0));
+		store.addOrUpdateMessages(createMessage("2", State.sent, UNREAD, 20.0));
+		store.deleteMessage("1");
+
+		// the tombstone is applied even if the store can't decrypt the records
+		store = new FileMessageStore(file, EncryptionFactory.createEncryption(UUID.randomUUID().toString().replace("-", ""), CIPHER_TRANSFORMATION));
+		addResult(store.getAllMessages());
+		assertResult();
+
+		// the deleted message does not come back
+		store = new FileMessageStore(file, encryption);
+		addResult(store.getAllMessages());
+		assertResult("{'nonce':'2','client_created_at':'20','state':'sent','read':'false'}");
+	}
+
+	@Test
+	public void incompleteTrailingRecord() throws Exception {
+		File file = getTempFile();
+
+		FileMessageStore store = new FileMessageStore(file, encryption);
+		store.addOrUpdateMessages(createMessage("1", State.sending, READ, 10.0));
+		store.addOrUpdateMessages(createMessage("2", State.sent, UNREAD, 20.0));
+
+		// the process was killed in the middle of an append
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(raf.length() - 3);
+		} finally {
+			raf.close();
+		}
+
+		// reload the store: the incomplete record is moved to the quarantine file
+		store = new FileMessageStore(file, encryption);
+		addResult(store.getAllMessages());
+
+		assertResult("{'nonce':'1','client_created_at':'10','state':'sending','read':'true'}");
+		assertTrue(new File(file.getPath() + ".quarantine").exists());
+
+		store.addOrUpdateMessages(createMessage("3", State.saved, READ, 30.0));
+
+		store = new FileMessageStore(file, encryption);
+		addResult(store.getAllMessages());
+
+		assertResult(
+			"{'nonce':'1','client_created_at':'10','state':'sending','read':'true'}",
+			"{'nonce':'3','client_created_at':'30','state':'saved','read':'true'}");
+	}
+
+	@Test
+	public void corruptedRecordLength() throws Exception {
+		File file = getTempFile();
+
+		FileMessageStore store = new FileMessageStore(file, encryption);
+		store.addOrUpdateMessages(createMessage("1", State.sending, READ, 10.0));
+		store.addOrUpdateMessages(createMessage("2", State.sent, UNREAD, 20.0));
+		store.addOrUpdateMessages(createMessage("3", State.saved, READ, 30.0));
+
+		// corrupt the length of the second record
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.seek(5);
+			int firstLength = raf.readInt();
+			raf.seek(raf.getFilePointer() + firstLength);
+			raf.writeInt(0);
+		} finally {
+			raf.close();
+		}
+		long fileSize = file.length();
+
+		// reload the store: the records after the corrupted one can't be found
+		store = new FileMessageStore(file, encryption);
+		addResult(store.getAllMessages());
+
+		assertResult("{'nonce':'1','client_created_at':'10','state':'sending','read':'true'}");
+
+		// the file is left as is: the rest of the records are not lost
+		store.addOrUpdateMessages(createMessage("4", State.sent, UNREAD, 40.0));
+		assertEquals(fileSize, file.length());
+	}
+
 	private ApptentiveMessage createMessage(String nonce, State state, boolean read, double clientCreatedAt) throws JSONException {
 		return createMessage(nonce, state, read, clientCreatedAt, UUID.randomUUID().toString());
 	}
@@ -0,0 +1,123 @@
+package com.apptentive.android.sdk.encryption;
+
+import com.apptentive.android.sdk.Encryption;
+
+import org.junit.Test;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+
+import static com.apptentive.android.sdk.util.ObjectUtils.isNullOrEmpty;
+import static org.junit.Assert.*;
+
+public class AesGcmEncryptionTest {
+
+	private static final String CIPHER_TRANSFORMATION = "AES/GCM/NoPadding";
+	private static final String LEGACY_CIPHER_TRANSFORMATION = "AES/CBC/PKCS7Padding";
+	private static final int HEADER_LENGTH = 17; // magic (4 bytes), version (1 byte), IV (12 bytes)
+
+	@Test
+	public void testEncryptDecryptNullData() throws Exception {
+		testData(null);
+	}
+
+	@Test
+	public void testEncryptDecryptEmptyData() throws Exception {
+		testData(0);
+	}
+
+	@Test
+	public void testEncryptDecryptSmallData() throws Exception {
+		testData(10);
+	}
+
+	@Test
+	public void testEncryptDecryptLargeData() throws Exception {
+		testData(512 * 16 + 100);
+	}
+
+	@Test
+	public void testEncryptDecryptExtraExtraLargeData() throws Exception {
+		testData(512 * 160 + 100);
+	}
+
+	@Test
+	public void testDecryptLegacyData() throws Exception {
+		SecretKey key = generateEncryptionKey();
+		Encryption legacyEncryption = new AesCBCEncryption(key, LEGACY_CIPHER_TRANSFORMATION);
+		Encryption encryption = new AesGcmEncryption(key, CIPHER_TRANSFORMATION, legacyEncryption);
+
+		for (int i = 0; i < 100; ++i) { // legacy IVs are random: some of them would look like a GCM header
+			byte[] testData = randomBytes(100 + i);
+			assertArrayEquals(testData, encryption.decrypt(legacyEncryption.encrypt(testData)));
+		}
+	}
+
+	@Test(expected = EncryptionException.class)
+	public void testDecryptTamperedData() throws Exception {
+		Encryption encryption = new AesGcmEncryption(generateEncryptionKey(), CIPHER_TRANSFORMATION, null);
+
+		byte[] encrypted = encryption.encrypt(randomBytes(100));
+		encrypted[encrypted.length - 1] ^= 1;
+		encryption.decrypt(encrypted);
+	}
+
+	@Test
+	public void testDecryptTamperedDataWithLegacyEncryption() throws Exception {
+		SecretKey key = generateEncryptionKey();
+		Encryption encryption = new AesGcmEncryption(key, CIPHER_TRANSFORMATION, new AesCBCEncryption(key, LEGACY_CIPHER_TRANSFORMATION));
+
+		for (int i = 0; i < 100; ++i) { // tampered data must never be decrypted as legacy data
+			byte[] encrypted = encryption.encrypt(randomBytes(100 + i));
+			encrypted[encrypted.length - 1 - i] ^= 1;
+			assertDecryptFails(encryption, encrypted);
+		}
+
+		for (int offset = 0; offset < HEADER_LENGTH; ++offset) { // format marker and IV
+			for (int bit = 0; bit < 8; ++bit) {
+				byte[] encrypted = encryption.encrypt(randomBytes(100 + offset));
+				encrypted[offset] ^= 1 << bit;
+				assertDecryptFails(encryption, encrypted);
+			}
+		}
+	}
+
+	private static void assertDecryptFails(Encryption encryption, byte[] encrypted) {
+		try {
+			encryption.decrypt(encrypted);
+			fail("Tampered data was decrypted");
+		} catch (EncryptionException e) {
+			// expected
+		}
+	}
+
+	private void testData(int dataSize) throws Exception {
+		testData(randomBytes(dataSize));
+	}
+
+	private void testData(byte[] testData) throws Exception {
+		Encryption encryption = new AesGcmEncryption(generateEncryptionKey(), CIPHER_TRANSFORMATION, null);
+
+		byte[] encrypted = encryption.encrypt(testData);
+		if (!isNullOrEmpty(testData)) {
+			assertFalse(Arrays.equals(testData, encrypted));
+		}
+
+		byte[] decrypted = encryption.decrypt(encrypted);
+		assertArrayEquals(testData, decrypted);
+	}
+
+	private static byte[] randomBytes(int size) {
+		byte[] data = new byte[size];
+		new Random().nextBytes(data);
+		return data;
+	}
+
+	private static SecretKey generateEncryptionKey() throws NoSuchAlgorithmException {
+		return KeyGenerator.getInstance("AES").generateKey();
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2018, Apptentive, Inc. All Rights Reserved.
+ * Please refer to the LICENSE file for the terms and conditions
+ * under which redistribution and use of this file is permitted.
+ */
+
+package com.apptentive.android.sdk.model;
+
+import androidx.annotation.NonNull;
+
+import com.apptentive.android.sdk.Encryption;
+import com.apptentive.android.sdk.encryption.EncryptionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Collections;
+
+import static junit.framework.Assert.assertEquals;
+
+/**
+ * Checks that the streamed multipart body matches the layout of the in-memory one it replaced
+ */
+public class CompoundMessageTest {
+	private File attachment;
+	private StoredFile storedFile;
+
+	@Before
+	public void setUp() throws Exception {
+		attachment = File.createTempFile("attachment", ".txt");
+		FileOutputStream stream = new FileOutputStream(attachment);
+		try {
+			stream.write("abc".getBytes("UTF-8"));
+		} finally {
+			stream.close();
+		}
+
+		storedFile = new StoredFile();
+		storedFile.setMimeType("text/plain");
+		storedFile.setSourceUriOrPath(attachment.getAbsolutePath());
+	}
+
+	@After
+	public void tearDown() {
+		attachment.delete();
+	}
+
+	@Test
+	public void testRenderData() throws Exception {
+		CompoundMessage message = createMessage();
+
+		String boundary = getBoundary(message);
+		String expected = "--" + boundary + "\r\n" +
+				"Content-Disposition: form-data; name=\"message\"\r\n" +
+				"Content-Type: application/json;charset=UTF-8\r\n" +
+				"\r\n" +
+				message.marshallForSending().toString() + "\r\n" +
+				"--" + boundary + "\r\n" +
+				"Content-Disposition: form-data; name=\"file[]\"; filename=\"" + storedFile.getFileName() + "\"\r\n" +
+				"Content-Type: text/plain\r\n" +
+				"\r\n" +
+				"abc\r\n" +
+				"--" + boundary + "--";
+		assertEquals(expected, new String(message.renderData(), "UTF-8"));
+	}
+
+	@Test
+	public void testRenderEncryptedData() throws Exception {
+		CompoundMessage message = createMessage();
+		message.setToken("auth_token");
+		message.setEncryption(new MarkerEncryption());
+		message.setAuthenticated(true);
+
+		// each part is encrypted with its own headers and wrapped in a plain text set of headers:
+		// the encrypted message part ends with a line break while the encrypted attachment doesn't
+		String boundary = getBoundary(message);
+		String expected = "--" + boundary + "\r\n" +
+				"Content-Disposition: form-data; name=\"message\"\r\n" +
+				"Content-Type: application/octet-stream\r\n" +
+				"\r\n" +
+				"<encrypted>" +
+				"Content-Disposition: form-data; name=\"message\"\r\n" +
+				"Content-Type: application/json;charset=UTF-8\r\n" +
+				"\r\n" +
+				message.marshallForSending().toString() + "\r\n" +
+				"</encrypted>\r\n" +
+				"--" + boundary + "\r\n" +
+				"Content-Disposition: form-data; name=\"file[]\"\r\n" +
+				"Content-Type: application/octet-stream\r\n" +
+				"\r\n" +
+				"<encrypted>" +
+				"Content-Disposition: form-data; name=\"file[]\"; filename=\"" + storedFile.getFileName() + "\"\r\n" +
+				"Content-Type: text/plain\r\n" +
+				"\r\n" +
+				"abc" +
+				"</encrypted>\r\n" +
+				"--" + boundary + "--";
+		assertEquals(expected, new String(message.renderData(), "UTF-8"));
+	}
+
+	private CompoundMessage createMessage() {
+		CompoundMessage message = new CompoundMessage();
+		message.setBody("Test message");
+		message.setAssociatedFiles(Collections.singletonList(storedFile));
+		return message;
+	}
+
+	private static String getBoundary(CompoundMessage message) {
+		String contentType = message.getHttpRequestContentType();
+		return contentType.substring(contentType.indexOf("boundary=") + "boundary=".length());
+	}
+
+	/**
+	 * Deterministic "encryption" which makes the encrypted parts visible in the rendered data
+	 */
+	private static class MarkerEncryption implements Encryption {
+		@Override
+		public @NonNull byte[] encrypt(@NonNull byte[] data) throws EncryptionException {
+			try {
+				return ("<encrypted>" + new String(data, "UTF-8") + "</encrypted>").getBytes("UTF-8");
+			} catch (Exception e) {
+				throw new EncryptionException(e);
+			}
+		}
+
+		@Override
+		public @NonNull byte[] decrypt(@NonNull byte[] data) throws EncryptionException {
+			throw new EncryptionException("Not supported");
+		}
+	}
+}
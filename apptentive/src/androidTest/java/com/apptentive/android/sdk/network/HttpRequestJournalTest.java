@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2018, Apptentive, Inc. All Rights Reserved.
+ * Please refer to the LICENSE file for the terms and conditions
+ * under which redistribution and use of this file is permitted.
+ */
+
+package com.apptentive.android.sdk.network;
+
+import com.apptentive.android.sdk.TestCaseBase;
+import com.apptentive.android.sdk.util.Util;
+import com.apptentive.android.sdk.util.threading.MockDispatchQueue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class HttpRequestJournalTest extends TestCaseBase {
+	private File file;
+	private HttpRequestManager requestManager;
+
+	@Before
+	public void setUp() throws Exception {
+		super.setUp();
+		file = File.createTempFile("request-journal", ".json");
+		file.delete();
+
+		requestManager = new HttpRequestManager(new MockDispatchQueue(true));
+		requestManager.setJournal(createJournal());
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+		super.tearDown();
+	}
+
+	@Test
+	public void testFinishedRequestsAreRemoved() {
+		startRequest("fetch_config", "config", true);
+		startRequest("fetch_interactions", "interactions", false);
+		assertResult("finished: fetch_config", "failed: fetch_interactions");
+
+		assertEquals(0, requestManager.getJournal().size());
+
+		// active requests are never written to the file
+		assertFalse(file.exists());
+	}
+
+	@Test
+	public void testOfflineRequestsAreKept() {
+		startOfflineRequest("fetch_config", "config");
+		assertResult("failed: fetch_config");
+
+		// the entry survives a restart
+		HttpRequestJournal journal = createJournal();
+		assertTrue(journal.contains("fetch_config"));
+	}
+
+	@Test
+	public void testReplay() {
+		startOfflineRequest("fetch_config", "config");
+		startOfflineRequest("fetch_messages:1", "messages");
+		startOfflineRequest("fetch_messages:2", "messages");
+		startOfflineRequest("fetch_unknown", "unknown");
+		assertResult("failed: fetch_config", "failed: fetch_messages:1", "failed: fetch_messages:2", "failed: fetch_unknown");
+
+		// simulate a cold start
+		HttpRequestJournal journal = createJournal();
+		requestManager.setJournal(journal);
+		journal.registerReplayer("config", new HttpRequestJournal.Replayer() {
+			@Override
+			public boolean replay() {
+				addResult("replay: config");
+				return true;
+			}
+		});
+		journal.registerReplayer("messages", new HttpRequestJournal.Replayer() {
+			@Override
+			public boolean replay() {
+				addResult("replay: messages");
+				return true;
+			}
+		});
+
+		// each kind is replayed once
+		assertEquals(2, requestManager.replayJournal());
+		assertResult("replay: config", "replay: messages");
+
+		// entries without a replayer are kept
+		assertEquals(1, journal.size());
+		assertTrue(journal.contains("fetch_unknown"));
+		assertFalse(journal.contains("fetch_config"));
+
+		// nothing left to replay
+		assertEquals(0, requestManager.replayJournal());
+		assertResult();
+	}
+
+	@Test
+	public void testDeferredReplay() {
+		startOfflineRequest("fetch_interactions", "interactions");
+		assertResult("failed: fetch_interactions");
+
+		final boolean[] canReplay = { false };
+		requestManager.getJournal().registerReplayer("interactions", new HttpRequestJournal.Replayer() {
+			@Override
+			public boolean replay() {
+				addResult("replay: " + canReplay[0]);
+				return canReplay[0];
+			}
+		});
+
+		// the replayer could not issue the request: the entry is kept
+		assertEquals(0, requestManager.replayJournal());
+		assertResult("replay: false");
+		assertTrue(createJournal().contains("fetch_interactions"));
+
+		canReplay[0] = true;
+		assertEquals(1, requestManager.replayJournal());
+		assertResult("replay: true");
+		assertFalse(createJournal().contains("fetch_interactions"));
+	}
+
+	@Test
+	public void testCorruptedJournal() throws IOException {
+		Util.writeText(file, "not a json");
+
+		HttpRequestJournal journal = createJournal();
+		assertEquals(0, journal.size());
+
+		journal.add("fetch_config", "config");
+		journal.retain("fetch_config");
+		assertTrue(createJournal().contains("fetch_config"));
+	}
+
+	@Test
+	public void testRemoveBeforeLoad() {
+		startOfflineRequest("fetch_config", "config");
+		startOfflineRequest("fetch_interactions", "interactions");
+		assertResult("failed: fetch_config", "failed: fetch_interactions");
+
+		// the file is loaded in the background
+		MockDispatchQueue ioQueue = new MockDispatchQueue(false);
+		HttpRequestJournal journal = new HttpRequestJournal(file, ioQueue);
+		journal.add("fetch_config", "config");
+		journal.remove("fetch_config"); // finished before the file was loaded
+		ioQueue.dispatchTasks();
+
+		assertFalse(journal.contains("fetch_config"));
+		assertTrue(journal.contains("fetch_interactions"));
+
+		// the stale entry is removed from the file as well
+		assertFalse(createJournal().contains("fetch_config"));
+		assertTrue(createJournal().contains("fetch_interactions"));
+	}
+
+	//region Helpers
+
+	private HttpRequestJournal createJournal() {
+		return new HttpRequestJournal(file, new MockDispatchQueue(true));
+	}
+
+	private void startRequest(String tag, String kind, boolean successful) {
+		startRequest(tag, kind, successful ? 200 : 500, true);
+	}
+
+	private void startOfflineRequest(String tag, String kind) {
+		startRequest(tag, kind, 200, false);
+	}
+
+	private void startRequest(final String tag, String kind, int responseCode, final boolean networkPresent) {
+		MockHttpRequest request = new MockHttpRequest(tag) {
+			@Override
+			protected boolean isNetworkConnectionPresent() {
+				return networkPresent;
+			}
+		};
+		request.setMockResponseCode(responseCode);
+		request.setTag(tag);
+		request.setJournalKind(kind);
+		request.setRequestManager(requestManager);
+		request.setRetryPolicy(new HttpRequestRetryPolicyDefault() {
+			@Override
+			public boolean shouldRetryRequest(int responseCode, int retryAttempt) {
+				return false;
+			}
+		});
+		request.addListener(new HttpRequest.Adapter<HttpRequest>() {
+			@Override
+			public void onFinish(HttpRequest request) {
+				addResult("finished: " + tag);
+			}
+
+			@Override
+			public void onFail(HttpRequest request, String reason) {
+				addResult("failed: " + tag);
+			}
+		});
+		requestManager.startRequest(request);
+	}
+
+	//endregion
+}
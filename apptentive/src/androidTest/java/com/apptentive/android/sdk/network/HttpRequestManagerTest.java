@@ -12,6 +12,9 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class HttpRequestManagerTest extends TestCaseBase {
@@ -47,10 +50,31 @@ public class HttpRequestManagerTest extends TestCaseBase {
 			"finished: 2",
 			"failed: 3 Unexpected response code: 500 (Internal Server Error)",
 			"failed: 4 Connection error",
-			"failed: 5 Disconnection error"
+			"finished: 5" // successful connections are kept alive (not disconnected)
 		);
 	}
 
+	@Test
+	public void testMockConnectionsAreNotReleasedToTransport() {
+		HttpTransportMetrics metrics = HttpRequest.getDefaultTransport().getMetrics();
+		int activeConnections = metrics.getActiveConnections();
+		long keptAliveConnections = metrics.getKeptAliveConnections();
+		long disconnectedConnections = metrics.getDisconnectedConnections();
+
+		// mock requests open their own connections
+		startRequest(new MockHttpRequest("1"));
+		startRequest(new MockHttpRequest("2").setMockResponseCode(500));
+		dispatchRequests();
+
+		assertResult(
+			"finished: 1",
+			"failed: 2 Unexpected response code: 500 (Internal Server Error)"
+		);
+		Assert.assertEquals(activeConnections, metrics.getActiveConnections());
+		Assert.assertEquals(keptAliveConnections, metrics.getKeptAliveConnections());
+		Assert.assertEquals(disconnectedConnections, metrics.getDisconnectedConnections());
+	}
+
 	@Test
 	public void testRequestData() {
 		final String expected = "Some test data with Unicode chars 文字";
@@ -71,6 +95,38 @@ public class HttpRequestManagerTest extends TestCaseBase {
 		Assert.assertTrue(finished.get());
 	}
 
+	@Test
+	public void testResponseHandler() {
+		final String expected = "Some streamed data with Unicode chars 文字";
+
+		final AtomicBoolean finished = new AtomicBoolean(false);
+
+		HttpRequest request = new MockHttpRequest("request").setResponseData(expected);
+		request.setResponseHandler(new HttpResponseHandler() {
+			@Override
+			public void handleResponse(HttpRequest request, InputStream stream, int contentLength) throws IOException {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				int b;
+				while ((b = stream.read()) != -1) {
+					out.write(b);
+				}
+				addResult(out.toString("UTF-8"));
+			}
+		});
+		request.addListener(new HttpRequest.Adapter<HttpRequest>() {
+			@Override
+			public void onFinish(HttpRequest request) {
+				Assert.assertNull(request.getResponseData());
+				finished.set(true);
+			}
+		});
+		requestManager.startRequest(request);
+		dispatchRequests();
+
+		Assert.assertTrue(finished.get());
+		assertResult(expected);
+	}
+
 	@Test
 	public void testJsonRequestData() throws JSONException {
 		final JSONObject requestObject = new JSONObject();
@@ -109,6 +165,31 @@ public class HttpRequestManagerTest extends TestCaseBase {
 		Assert.assertTrue(finished.get());
 	}
 
+	@Test
+	public void testJsonRequestNotModified() throws JSONException {
+		final AtomicBoolean finished = new AtomicBoolean(false);
+
+		HttpJsonRequest request = new MockHttpJsonRequest("request", new JSONObject()).setMockResponseCode(304);
+		request.setCacheValidators("\"etag\"", null);
+		request.addListener(new HttpRequest.Adapter<HttpJsonRequest>() {
+			@Override
+			public void onFinish(HttpJsonRequest request) {
+				Assert.assertTrue(request.isNotModified());
+				Assert.assertNull(request.getResponseObject());
+				finished.set(true);
+			}
+
+			@Override
+			public void onFail(HttpJsonRequest request, String reason) {
+				Assert.fail(reason);
+			}
+		});
+		requestManager.startRequest(request);
+		dispatchRequests();
+
+		Assert.assertTrue(finished.get());
+	}
+
 	@Test
 	public void testJsonRequestCorruptedData() throws JSONException {
 		final JSONObject requestObject = new JSONObject();
@@ -229,7 +310,7 @@ public class HttpRequestManagerTest extends TestCaseBase {
 			"failed: 2 Unexpected response code: 400 (Bad Request)",
 			"finished: 3",
 			"failed: 4 Connection error",
-			"failed: 5 Disconnection error",
+			"finished: 5",
 			"retried: 1",
 			"retried: 1",
 			"failed: 1 Unexpected response code: 500 (Internal Server Error)"
@@ -267,13 +348,86 @@ public class HttpRequestManagerTest extends TestCaseBase {
 			"failed: 2 Unexpected response code: 400 (Bad Request)",
 			"finished: 3",
 			"failed: 4 Connection error",
-			"failed: 5 Disconnection error",
+			"finished: 5",
 			"retried: 1",
 			"retried: 1",
 			"finished: 1"
 		);
 	}
 
+	@Test
+	public void testSingleFlight() {
+		DefaultResponseHandler responseHandler = new DefaultResponseHandler() {
+			@Override
+			public int getResponseCode() {
+				addResult("network call");
+				return super.getResponseCode();
+			}
+		};
+
+		MockHttpRequest request1 = new MockHttpRequest("1").setMockResponseHandler(responseHandler);
+		request1.setTag("tag");
+		request1.setSingleFlight(true);
+
+		MockHttpRequest request2 = new MockHttpRequest("2");
+		request2.setTag("tag");
+		request2.setSingleFlight(true);
+
+		MockHttpRequest request3 = new MockHttpRequest("3").setMockResponseHandler(responseHandler);
+		request3.setTag("tag"); // not single-flight
+
+		startRequest(request1);
+		startRequest(request2);
+		startRequest(request3);
+		Assert.assertSame(request1, requestManager.findRequest("tag"));
+		dispatchRequests();
+
+		assertResult(
+			"network call",
+			"finished: 2",
+			"finished: 1",
+			"network call",
+			"finished: 3"
+		);
+		Assert.assertNull(requestManager.findRequest("tag"));
+	}
+
+	@Test
+	public void testRequestMetrics() {
+		HttpRequestRetryPolicyDefault retryPolicy = new HttpRequestRetryPolicyDefault();
+		retryPolicy.setMaxRetryCount(3);
+		retryPolicy.setRetryTimeoutMillis(0);
+
+		// fail the request once and then finish successfully
+		MockHttpRequest request = new MockHttpRequest("1").setMockResponseHandler(new DefaultResponseHandler(200, "response", "") {
+			int requestAttempts = 0;
+
+			@Override
+			public int getResponseCode() {
+				return requestAttempts++ < 1 ? 500 : 200;
+			}
+		});
+		request.setRetryPolicy(retryPolicy);
+		request.setEndpointTemplate("/test/%s");
+		startRequest(request);
+		dispatchRequests();
+
+		assertResult("retried: 1", "finished: 1");
+
+		HttpRequestMetrics metrics = request.getMetrics();
+		Assert.assertEquals(200, metrics.getResponseCode());
+		Assert.assertEquals(2, metrics.getAttempts());
+		Assert.assertEquals(1, metrics.getRetryCount());
+		Assert.assertEquals(8, metrics.getResponseBytes());
+		Assert.assertEquals(8, metrics.getDecodedResponseBytes());
+		Assert.assertTrue(metrics.getConnectMillis() >= 0);
+		Assert.assertTrue(metrics.getTimeToFirstByteMillis() >= 0);
+		Assert.assertTrue(metrics.getTransferMillis() >= 0);
+		Assert.assertTrue(metrics.getTotalMillis() >= 0);
+
+		Assert.assertEquals(1, requestManager.getEndpointStats().getRequestCount("/test/%s"));
+	}
+
 	//region Helpers
 
 	private void startRequest(HttpRequest request) {
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2018, Apptentive, Inc. All Rights Reserved.
+ * Please refer to the LICENSE file for the terms and conditions
+ * under which redistribution and use of this file is permitted.
+ */
+
+package com.apptentive.android.sdk.network;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+
+import static junit.framework.Assert.assertEquals;
+
+public class MultipartWriterTest {
+	@Test
+	public void testWriteParts() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		MultipartWriter writer = new MultipartWriter(out, "xyz");
+		writer.writePart("form-data; name=\"message\"", "application/json;charset=UTF-8", "{}".getBytes("UTF-8"));
+
+		OutputStream part = writer.startPart("form-data; name=\"file[]\"; filename=\"a.txt\"", "text/plain");
+		part.write("abc".getBytes("UTF-8"));
+		part.close(); // should not close the underlying stream
+		writer.endPart();
+		writer.finish();
+
+		String expected = "--xyz\r\n" +
+				"Content-Disposition: form-data; name=\"message\"\r\n" +
+				"Content-Type: application/json;charset=UTF-8\r\n" +
+				"\r\n" +
+				"{}\r\n" +
+				"--xyz\r\n" +
+				"Content-Disposition: form-data; name=\"file[]\"; filename=\"a.txt\"\r\n" +
+				"Content-Type: text/plain\r\n" +
+				"\r\n" +
+				"abc\r\n" +
+				"--xyz--";
+		assertEquals(expected, out.toString("UTF-8"));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testUnfinishedPart() throws Exception {
+		MultipartWriter writer = new MultipartWriter(new ByteArrayOutputStream(), "xyz");
+		writer.startPart("form-data; name=\"message\"", "text/plain");
+		writer.finish();
+	}
+}
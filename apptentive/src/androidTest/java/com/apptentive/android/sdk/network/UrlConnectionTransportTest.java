@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2018, Apptentive, Inc. All Rights Reserved.
+ * Please refer to the LICENSE file for the terms and conditions
+ * under which redistribution and use of this file is permitted.
+ */
+
+package com.apptentive.android.sdk.network;
+
+import com.apptentive.android.sdk.TestCaseBase;
+import com.apptentive.android.sdk.util.threading.MockDispatchQueue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static junit.framework.Assert.assertEquals;
+
+public class UrlConnectionTransportTest extends TestCaseBase {
+	private LocalServer server;
+	private HttpRequestManager requestManager;
+	private UrlConnectionTransport transport;
+
+	@Before
+	public void setUp() throws Exception {
+		super.setUp();
+		server = new LocalServer();
+		requestManager = new HttpRequestManager(new MockDispatchQueue(true));
+		transport = new UrlConnectionTransport();
+	}
+
+	@After
+	public void tearDown() {
+		server.stop();
+		super.tearDown();
+	}
+
+	@Test
+	public void testKeepAlive() {
+		startRequest("request-1");
+		startRequest("request-2");
+		startRequest("request-3");
+		assertResult("finished: request-1", "finished: request-2", "finished: request-3");
+
+		// all the requests went through a single socket
+		assertEquals(1, server.getAcceptedConnections());
+		assertEquals(3, transport.getMetrics().getOpenedConnections());
+		assertEquals(3, transport.getMetrics().getKeptAliveConnections());
+		assertEquals(0, transport.getMetrics().getDisconnectedConnections());
+		assertEquals(0, transport.getMetrics().getActiveConnections());
+	}
+
+	@Test
+	public void testDisconnectAfterFailure() {
+		HttpRequest request = createRequest("request-1");
+		request.setResponseHandler(new HttpResponseHandler() {
+			@Override
+			public void handleResponse(HttpRequest request, InputStream stream, int contentLength) throws IOException {
+				throw new IOException("Handler error");
+			}
+		});
+		requestManager.startRequest(request);
+		startRequest("request-2");
+		assertResult("failed: request-1", "finished: request-2");
+
+		// the failed request's connection is torn down
+		assertEquals(1, transport.getMetrics().getKeptAliveConnections());
+		assertEquals(1, transport.getMetrics().getDisconnectedConnections());
+	}
+
+	//region Helpers
+
+	private void startRequest(String name) {
+		requestManager.startRequest(createRequest(name));
+	}
+
+	private HttpRequest createRequest(final String name) {
+		HttpRequest request = new RawHttpRequest("http://127.0.0.1:" + server.getPort() + "/" + name, new byte[0]) {
+			@Override
+			protected boolean isNetworkConnectionPresent() {
+				return true;
+			}
+		};
+		request.setRequestManager(requestManager);
+		request.setTransport(transport);
+		request.setRetryPolicy(new HttpRequestRetryPolicyDefault() {
+			@Override
+			public boolean shouldRetryRequest(int responseCode, int retryAttempt) {
+				return false;
+			}
+		});
+		request.addListener(new HttpRequest.Adapter<HttpRequest>() {
+			@Override
+			public void onFinish(HttpRequest request) {
+				addResult("finished: " + name);
+			}
+
+			@Override
+			public void onFail(HttpRequest request, String reason) {
+				addResult("failed: " + name);
+			}
+		});
+		return request;
+	}
+
+	/**
+	 * Minimal HTTP/1.1 server which keeps connections alive and responds to every request with a
+	 * small body
+	 */
+	private static class LocalServer implements Runnable {
+		private final ServerSocket serverSocket;
+		private final AtomicInteger acceptedConnections = new AtomicInteger();
+
+		LocalServer() throws IOException {
+			serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+			Thread thread = new Thread(this, "Local HTTP Server");
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (true) {
+					final Socket socket = serverSocket.accept();
+					acceptedConnections.incrementAndGet();
+					Thread thread = new Thread(new Runnable() {
+						@Override
+						public void run() {
+							serve(socket);
+						}
+					});
+					thread.setDaemon(true);
+					thread.start();
+				}
+			} catch (IOException e) {
+				// server stopped
+			}
+		}
+
+		private void serve(Socket socket) {
+			try {
+				BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+				OutputStream out = socket.getOutputStream();
+				String line;
+				while ((line = reader.readLine()) != null) {
+					// skip request headers (requests have no body)
+					while (line != null && line.length() > 0) {
+						line = reader.readLine();
+					}
+
+					byte[] body = "{}".getBytes("UTF-8");
+					String headers = "HTTP/1.1 200 OK\r\n" +
+						                 "Content-Type: application/json\r\n" +
+						                 "Content-Length: " + body.length + "\r\n" +
+						                 "Connection: keep-alive\r\n\r\n";
+					out.write(headers.getBytes("UTF-8"));
+					out.write(body);
+					out.flush();
+				}
+			} catch (IOException e) {
+				// connection closed
+			} finally {
+				try {
+					socket.close();
+				} catch (IOException ignored) {
+				}
+			}
+		}
+
+		int getPort() {
+			return serverSocket.getLocalPort();
+		}
+
+		int getAcceptedConnections() {
+			return acceptedConnections.get();
+		}
+
+		void stop() {
+			try {
+				serverSocket.close();
+			} catch (IOException ignored) {
+			}
+		}
+	}
+
+	//endregion
+}
@@ -14,6 +14,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import static org.junit.Assert.assertFalse;
+
 @RunWith(AndroidJUnit4.class)
 public class ConcurrentDispatchQueueTest extends TestCaseBase {
 	private DispatchQueue dispatchQueue;
@@ -56,6 +58,19 @@ public class ConcurrentDispatchQueueTest extends TestCaseBase {
 		assertResult("task-3", "task-2", "task-1"); // task should be executed concurrently
 	}
 
+	@Test
+	public void testIsCurrent() {
+		dispatchQueue.dispatchAsync(new DispatchTask() {
+			@Override
+			protected void execute() {
+				addResult("current=" + dispatchQueue.isCurrent());
+			}
+		});
+		sleep(100); // give task a chance to finish
+		assertResult("current=true");
+		assertFalse(dispatchQueue.isCurrent());
+	}
+
 	@Test
 	public void testStoppingDispatchDelayed() {
 		dispatchQueue.dispatchAsync(new DispatchTask() {
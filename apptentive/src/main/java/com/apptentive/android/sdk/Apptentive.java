@@ -37,6 +37,7 @@ import com.apptentive.android.sdk.util.Constants;
 import com.apptentive.android.sdk.util.ObjectUtils;
 import com.apptentive.android.sdk.util.StringUtils;
 import com.apptentive.android.sdk.util.Util;
+import com.apptentive.android.sdk.util.threading.DispatchPriority;
 import com.apptentive.android.sdk.util.threading.DispatchQueue;
 import com.apptentive.android.sdk.util.threading.DispatchTask;
 
@@ -960,7 +961,7 @@ public class Apptentive {
 			protected boolean execute(Conversation conversation) {
 				return ApptentiveInternal.getInstance().showMessageCenterInternal(context, customData);
 			}
-		}, "show message center");
+		}, "show message center", DispatchPriority.Interactive);
 	}
 
 	/**
@@ -977,7 +978,7 @@ public class Apptentive {
 			protected boolean execute(Conversation conversation) {
 				return ApptentiveInternal.canShowMessageCenterInternal(conversation);
 			}
-		}, "check message center availability");
+		}, "check message center availability", DispatchPriority.Interactive);
 	}
 
 	/**
@@ -1357,7 +1358,7 @@ public class Apptentive {
 
 					return engageLocalAppEvent(context, conversation, event, customData, extendedData); // actually engage event
 				}
-			}, StringUtils.format("engage '%s' event", event));
+			}, StringUtils.format("engage '%s' event", event), DispatchPriority.Interactive);
 			return;
 		}
 
@@ -1366,7 +1367,7 @@ public class Apptentive {
 			protected boolean execute(Conversation conversation) {
 				return engageLocalAppEvent(context, conversation, event, customData, extendedData);
 			}
-		}, StringUtils.format("engage '%s' event", event));
+		}, StringUtils.format("engage '%s' event", event), DispatchPriority.Interactive);
 	}
 
 	/**
@@ -1385,7 +1386,7 @@ public class Apptentive {
 			protected boolean execute(Conversation conversation) {
 				return canShowLocalAppInteraction(conversation, event);
 			}
-		}, "check if interaction can be shown");
+		}, "check if interaction can be shown", DispatchPriority.Interactive);
 	}
 
 	/**
@@ -1661,7 +1662,7 @@ public class Apptentive {
 
 				return false;
 			}
-		}, "update Apptimize experiment data");
+		}, "update Apptimize experiment data", DispatchPriority.Background);
 	}
 
 	/**
@@ -1679,7 +1680,7 @@ public class Apptentive {
 
 				return false;
 			}
-		}, "update Apptimize experiments data");
+		}, "update Apptimize experiments data", DispatchPriority.Background);
 	}
 
 	//endregion
@@ -10,6 +10,7 @@ import com.apptentive.android.sdk.module.engagement.EngagementModule;
 import com.apptentive.android.sdk.notifications.ApptentiveNotification;
 import com.apptentive.android.sdk.notifications.ApptentiveNotificationCenter;
 import com.apptentive.android.sdk.notifications.ApptentiveNotificationObserver;
+import com.apptentive.android.sdk.util.threading.DispatchPriority;
 import com.apptentive.android.sdk.util.threading.DispatchQueue;
 import com.apptentive.android.sdk.util.threading.DispatchTask;
 
@@ -70,7 +71,7 @@ public abstract class ApptentiveBaseActivity extends AppCompatActivity implement
 			protected boolean execute(Conversation conversation) {
 				return EngagementModule.engageInternal(ApptentiveBaseActivity.this, conversation, eventName);
 			}
-		}, "engage");
+		}, "engage", DispatchPriority.Interactive);
 	}
 
 	protected void dispatchOnMainQueue(DispatchTask task) {
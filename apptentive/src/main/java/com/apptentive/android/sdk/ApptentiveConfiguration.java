@@ -9,7 +9,9 @@ package com.apptentive.android.sdk;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.apptentive.android.sdk.network.HttpTransport;
 import com.apptentive.android.sdk.util.StringUtils;
+import com.apptentive.android.sdk.util.threading.DispatchQueueFactory;
 
 public class ApptentiveConfiguration {
 	private final String apptentiveKey;
@@ -21,6 +23,8 @@ public class ApptentiveConfiguration {
 	private boolean troubleshootingModeEnabled;
 	private Encryption encryption;
 	private boolean shouldCollectAndroidIdOnPreOreoTargets;
+	private DispatchQueueFactory dispatchQueueFactory;
+	private HttpTransport httpTransport;
 
 	public ApptentiveConfiguration(@NonNull String apptentiveKey, @NonNull String apptentiveSignature) {
 		if (StringUtils.isNullOrEmpty(apptentiveKey)) {
@@ -139,4 +143,36 @@ public class ApptentiveConfiguration {
 	public boolean shouldCollectAndroidIdOnPreOreoTargets() {
 		return shouldCollectAndroidIdOnPreOreoTargets;
 	}
+
+	/**
+	 * Overrides the factory used for creating SDK background queues (for example, to run the SDK on
+	 * a custom executor in JVM tests).
+	 */
+	public ApptentiveConfiguration setDispatchQueueFactory(@Nullable DispatchQueueFactory dispatchQueueFactory) {
+		this.dispatchQueueFactory = dispatchQueueFactory;
+		return this;
+	}
+
+	/**
+	 * Returns custom dispatch queue factory (if any)
+	 */
+	@Nullable DispatchQueueFactory getDispatchQueueFactory() {
+		return dispatchQueueFactory;
+	}
+
+	/**
+	 * Overrides the transport used for SDK network requests (for example, to plug in an HTTP/2
+	 * capable client).
+	 */
+	public ApptentiveConfiguration setHttpTransport(@Nullable HttpTransport httpTransport) {
+		this.httpTransport = httpTransport;
+		return this;
+	}
+
+	/**
+	 * Returns custom HTTP transport (if any)
+	 */
+	@Nullable HttpTransport getHttpTransport() {
+		return httpTransport;
+	}
 }
@@ -8,9 +8,11 @@ package com.apptentive.android.sdk;
 
 import com.apptentive.android.sdk.conversation.ConversationDispatchTask;
 import com.apptentive.android.sdk.debug.Assert;
+import com.apptentive.android.sdk.util.threading.DispatchPriority;
 import com.apptentive.android.sdk.util.threading.DispatchQueue;
 import com.apptentive.android.sdk.util.threading.DispatchQueueType;
 import com.apptentive.android.sdk.util.threading.DispatchTask;
+import com.apptentive.android.sdk.util.threading.PrioritySerialDispatchQueue;
 
 /**
  * Helper class for dispatching SDK-related operations. Properly handles missing SDK initialization
@@ -21,6 +23,10 @@ public final class ApptentiveHelper {
 		dispatchOnConversationQueue(task.setDescription(description));
 	}
 
+	public static void dispatchConversationTask(ConversationDispatchTask task, String description, DispatchPriority priority) {
+		dispatchOnConversationQueue(task.setDescription(description).setPriority(priority));
+	}
+
 	public static void dispatchOnConversationQueue(DispatchTask task) {
 		conversationQueue().dispatchAsync(task);
 	}
@@ -33,6 +39,14 @@ public final class ApptentiveHelper {
 		return Holder.CONVERSATION_QUEUE;
 	}
 
+	/**
+	 * Returns a view of the conversation queue which dispatches tasks with specified priority.
+	 */
+	public static DispatchQueue conversationQueue(DispatchPriority priority) {
+		DispatchQueue queue = conversationQueue();
+		return queue instanceof PrioritySerialDispatchQueue ? ((PrioritySerialDispatchQueue) queue).withPriority(priority) : queue;
+	}
+
 	public static DispatchQueue conversationDataQueue() {
 		return Holder.CONVERSATION_DATA_QUEUE;
 	}
@@ -52,7 +66,8 @@ public final class ApptentiveHelper {
 
 		private static DispatchQueue createConversationQueue() {
 			try {
-				return DispatchQueue.createBackgroundQueue("Apptentive Queue", DispatchQueueType.Serial);
+				// user-visible calls (engage, etc) should not wait behind background work
+				return new PrioritySerialDispatchQueue(DispatchQueue.createBackgroundQueue("Apptentive Queue", DispatchQueueType.Serial));
 			} catch (Exception e) {
 				return null; // let unit test handle this
 			}
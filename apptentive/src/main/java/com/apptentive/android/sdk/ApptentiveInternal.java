@@ -10,8 +10,10 @@ import android.annotation.SuppressLint;
 import android.app.Activity;
 import android.app.Application;
 import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.SharedPreferences;
 import android.content.pm.ActivityInfo;
 import android.content.pm.ApplicationInfo;
@@ -19,6 +21,7 @@ import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
+import android.net.ConnectivityManager;
 import android.os.Build;
 import android.os.Bundle;
 import androidx.annotation.NonNull;
@@ -45,6 +48,8 @@ import com.apptentive.android.sdk.module.messagecenter.MessageManager;
 import com.apptentive.android.sdk.module.rating.IRatingProvider;
 import com.apptentive.android.sdk.module.rating.impl.GooglePlayRatingProvider;
 import com.apptentive.android.sdk.module.survey.OnSurveyFinishedListener;
+import com.apptentive.android.sdk.network.HttpRequestJournal;
+import com.apptentive.android.sdk.network.HttpRequestManager;
 import com.apptentive.android.sdk.notifications.ApptentiveNotification;
 import com.apptentive.android.sdk.notifications.ApptentiveNotificationCenter;
 import com.apptentive.android.sdk.notifications.ApptentiveNotificationObserver;
@@ -53,6 +58,7 @@ import com.apptentive.android.sdk.partners.apptimize.ApptentiveApptimizeTestInfo
 import com.apptentive.android.sdk.storage.*;
 import com.apptentive.android.sdk.util.*;
 import com.apptentive.android.sdk.util.AdvertiserManager.AdvertisingIdClientInfo;
+import com.apptentive.android.sdk.util.threading.DispatchPriority;
 import com.apptentive.android.sdk.util.threading.DispatchQueue;
 import com.apptentive.android.sdk.util.threading.DispatchTask;
 
@@ -73,6 +79,8 @@ import static com.apptentive.android.sdk.ApptentiveNotifications.*;
 import static com.apptentive.android.sdk.debug.Assert.assertNotNull;
 import static com.apptentive.android.sdk.debug.Assert.assertTrue;
 import static com.apptentive.android.sdk.util.Constants.CONVERSATIONS_DIR;
+import static com.apptentive.android.sdk.util.Constants.NETWORK_DIR;
+import static com.apptentive.android.sdk.util.Constants.REQUEST_JOURNAL_FILE;
 
 /**
  * This class contains only internal methods. These methods should not be access directly by the host app.
@@ -172,6 +180,11 @@ public class ApptentiveInternal implements ApptentiveInstance, ApptentiveNotific
 
 		globalSharedPrefs = application.getSharedPreferences(Constants.PREF_NAME, Context.MODE_PRIVATE);
 		apptentiveHttpClient = new ApptentiveHttpClient(apptentiveKey, apptentiveSignature, getEndpointBase(globalSharedPrefs));
+		if (configuration.getHttpTransport() != null) {
+			apptentiveHttpClient.setTransport(configuration.getHttpTransport());
+		}
+		HttpRequestManager.sharedManager().setJournal(new HttpRequestJournal(new File(Util.getInternalDir(appContext, NETWORK_DIR, true), REQUEST_JOURNAL_FILE)));
+		registerConnectivityReceiver(appContext);
 
 		DeviceManager deviceManager = new DeviceManager(androidID);
 		conversationManager = new ConversationManager(appContext, Util.getInternalDir(appContext, CONVERSATIONS_DIR, true), encryption, deviceManager);
@@ -189,6 +202,32 @@ public class ApptentiveInternal implements ApptentiveInstance, ApptentiveNotific
 			.addObserver(NOTIFICATION_CONFIGURATION_FETCH_DID_FINISH, this);
 	}
 
+	/**
+	 * Replays the request journal every time the network connection comes back
+	 */
+	@SuppressWarnings("deprecation")
+	private void registerConnectivityReceiver(Context context) {
+		try {
+			context.registerReceiver(new BroadcastReceiver() {
+				@Override
+				public void onReceive(Context context, Intent intent) {
+					dispatchOnConversationQueue(new DispatchTask() {
+						@Override
+						protected void execute() {
+							if (Util.isNetworkConnectionPresent()) {
+								ApptentiveLog.v(NETWORK, "Network connection is available: replaying request journal");
+								apptentiveHttpClient.replayRequestJournal();
+							}
+						}
+					});
+				}
+			}, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+		} catch (Exception e) {
+			ApptentiveLog.e(NETWORK, e, "Unable to register connectivity receiver");
+			logException(e);
+		}
+	}
+
 	public static boolean isApptentiveRegistered() {
 		return sApptentiveInternal != null;
 	}
@@ -213,6 +252,11 @@ public class ApptentiveInternal implements ApptentiveInstance, ApptentiveNotific
 		final String apptentiveKey = configuration.getApptentiveKey();
 		final String apptentiveSignature = configuration.getApptentiveSignature();
 
+		// custom queue factory should be installed before any SDK queue is created
+		if (configuration.getDispatchQueueFactory() != null) {
+			DispatchQueue.setQueueFactory(configuration.getDispatchQueueFactory());
+		}
+
 		// set log message sanitizing
 		ApptentiveLog.setShouldSanitizeLogMessages(configuration.shouldSanitizeLogMessages());
 
@@ -243,6 +287,11 @@ public class ApptentiveInternal implements ApptentiveInstance, ApptentiveNotific
 					protected void execute() {
 						sApptentiveInternal.start();
 					}
+
+					@Override
+					public DispatchPriority getPriority() {
+						return DispatchPriority.Interactive; // should run before any engage call
+					}
 				});
 
 				ApptentiveActivityLifecycleCallbacks.register(application);
@@ -618,8 +667,12 @@ public class ApptentiveInternal implements ApptentiveInstance, ApptentiveNotific
 		checkConversationQueue();
 
 		conversation.setInteractionExpiration(0L);
+		conversation.setInteractionsETag(null);
+		conversation.setInteractionsLastModified(null);
 		Configuration config = Configuration.load();
 		config.setConfigurationCacheExpirationMillis(System.currentTimeMillis());
+		config.setConfigurationETag(null);
+		config.setConfigurationLastModified(null);
 		config.save();
 	}
 
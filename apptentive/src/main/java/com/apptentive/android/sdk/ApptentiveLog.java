@@ -20,7 +20,8 @@ import java.io.File;
 
 public class ApptentiveLog {
 	private static final String TAG = "Apptentive";
-	private static Level logLevel = Level.INFO;
+	private static Level logLevel = Level.INFO; // logcat threshold
+	private static Level fileLogLevel = Level.DEBUG; // log writer threshold (troubleshooting logs)
 	private static boolean shouldSanitizeLogMessages = true;
 	private static LogListener logListener;
 
@@ -44,6 +45,17 @@ public class ApptentiveLog {
 		ApptentiveLog.logLevel = level;
 	}
 
+	public static Level getFileLogLevel() {
+		return fileLogLevel;
+	}
+
+	/**
+	 * Overrides the threshold for messages written to the log files (troubleshooting mode)
+	 */
+	public static void overrideFileLogLevel(Level level) {
+		ApptentiveLog.fileLogLevel = level;
+	}
+
 	public static boolean shouldSanitizeLogMessages() {
 		return shouldSanitizeLogMessages;
 	}
@@ -57,6 +69,11 @@ public class ApptentiveLog {
 	}
 
 	private static void log(Level level, @Nullable ApptentiveLogTag tag, Throwable throwable, String message, Object... args) {
+		// nobody would see the message: skip formatting
+		if (!canLog(level)) {
+			return;
+		}
+
 		try {
 			logGuarded(level, tag, throwable, message, args);
 		} catch (Exception e) {
@@ -110,14 +127,15 @@ public class ApptentiveLog {
 
 	private static void log0(Level level, String message) {
 		try {
-			if (canLog(level)) {
+			if (logLevel.canLog(level)) {
 				android.util.Log.println(level.getAndroidLevel(), TAG, message);
 			}
 		} catch (Exception e) {
 			System.out.println(message); // fallback for unit-test
 		}
 
-		if (logListener != null) {
+		final LogListener logListener = ApptentiveLog.logListener;
+		if (logListener != null && fileLogLevel.canLog(level)) {
 			logListener.onLogMessage(level, message);
 		}
 	}
@@ -129,10 +147,105 @@ public class ApptentiveLog {
 		return new File(context.getCacheDir(), "com.apptentive.logs");
 	}
 
+	/**
+	 * Returns <code>true</code> if a message with the given level would be printed to the logcat or
+	 * written to the log file. Use it to guard expensive log arguments.
+	 */
 	public static boolean canLog(Level level) {
-		return logLevel.canLog(level);
+		return logLevel.canLog(level) || logListener != null && fileLogLevel.canLog(level);
+	}
+
+	//region Verbose/debug fixed arity overloads
+
+	// Verbose and debug messages are disabled in production and called on hot paths: these
+	// overloads avoid allocating a varargs array unless the message would actually be logged.
+
+	public static void v(ApptentiveLogTag tag, String message) {
+		if (canLog(Level.VERBOSE)) {
+			log(Level.VERBOSE, tag, null, message);
+		}
+	}
+
+	public static void v(ApptentiveLogTag tag, String message, Object arg1) {
+		if (canLog(Level.VERBOSE)) {
+			log(Level.VERBOSE, tag, null, message, arg1);
+		}
+	}
+
+	public static void v(ApptentiveLogTag tag, String message, Object arg1, Object arg2) {
+		if (canLog(Level.VERBOSE)) {
+			log(Level.VERBOSE, tag, null, message, arg1, arg2);
+		}
+	}
+
+	public static void v(ApptentiveLogTag tag, String message, Object arg1, Object arg2, Object arg3) {
+		if (canLog(Level.VERBOSE)) {
+			log(Level.VERBOSE, tag, null, message, arg1, arg2, arg3);
+		}
+	}
+
+	public static void v(String message) {
+		if (canLog(Level.VERBOSE)) {
+			log(Level.VERBOSE, null, null, message);
+		}
+	}
+
+	public static void v(String message, Object arg1) {
+		if (canLog(Level.VERBOSE)) {
+			log(Level.VERBOSE, null, null, message, arg1);
+		}
 	}
 
+	public static void v(String message, Object arg1, Object arg2) {
+		if (canLog(Level.VERBOSE)) {
+			log(Level.VERBOSE, null, null, message, arg1, arg2);
+		}
+	}
+
+	public static void d(ApptentiveLogTag tag, String message) {
+		if (canLog(Level.DEBUG)) {
+			log(Level.DEBUG, tag, null, message);
+		}
+	}
+
+	public static void d(ApptentiveLogTag tag, String message, Object arg1) {
+		if (canLog(Level.DEBUG)) {
+			log(Level.DEBUG, tag, null, message, arg1);
+		}
+	}
+
+	public static void d(ApptentiveLogTag tag, String message, Object arg1, Object arg2) {
+		if (canLog(Level.DEBUG)) {
+			log(Level.DEBUG, tag, null, message, arg1, arg2);
+		}
+	}
+
+	public static void d(ApptentiveLogTag tag, String message, Object arg1, Object arg2, Object arg3) {
+		if (canLog(Level.DEBUG)) {
+			log(Level.DEBUG, tag, null, message, arg1, arg2, arg3);
+		}
+	}
+
+	public static void d(String message) {
+		if (canLog(Level.DEBUG)) {
+			log(Level.DEBUG, null, null, message);
+		}
+	}
+
+	public static void d(String message, Object arg1) {
+		if (canLog(Level.DEBUG)) {
+			log(Level.DEBUG, null, null, message, arg1);
+		}
+	}
+
+	public static void d(String message, Object arg1, Object arg2) {
+		if (canLog(Level.DEBUG)) {
+			log(Level.DEBUG, null, null, message, arg1, arg2);
+		}
+	}
+
+	//endregion
+
 	public static void v(ApptentiveLogTag tag, String message, Object... args) {
 		log(Level.VERBOSE, tag, null, message, args);
 	}
@@ -10,8 +10,10 @@ import com.apptentive.android.sdk.model.ConversationTokenRequest;
 import com.apptentive.android.sdk.model.PayloadData;
 import com.apptentive.android.sdk.network.HttpJsonRequest;
 import com.apptentive.android.sdk.network.HttpRequest;
+import com.apptentive.android.sdk.network.HttpRequestJournal;
 import com.apptentive.android.sdk.network.HttpRequestManager;
 import com.apptentive.android.sdk.network.HttpRequestMethod;
+import com.apptentive.android.sdk.network.HttpTransport;
 import com.apptentive.android.sdk.network.RawHttpRequest;
 import com.apptentive.android.sdk.storage.AppRelease;
 import com.apptentive.android.sdk.storage.AppReleaseManager;
@@ -51,6 +53,7 @@ public class ApptentiveHttpClient implements PayloadRequestSender {
 	private final String apptentiveSignature;
 	private final String serverURL;
 	private final String userAgentString;
+	private HttpTransport transport = HttpRequest.getDefaultTransport();
 
 	public ApptentiveHttpClient(String apptentiveKey, String apptentiveSignature, String serverURL) {
 		if (StringUtils.isNullOrEmpty(apptentiveKey)) {
@@ -75,6 +78,7 @@ public class ApptentiveHttpClient implements PayloadRequestSender {
 
 	public HttpJsonRequest createConversationTokenRequest(ConversationTokenRequest conversationTokenRequest, HttpRequest.Listener<HttpJsonRequest> listener) {
 		HttpJsonRequest request = createJsonRequest(ENDPOINT_CONVERSATION, conversationTokenRequest, HttpRequestMethod.POST);
+		request.setEndpointTemplate(ENDPOINT_CONVERSATION);
 		request.addListener(listener);
 		return request;
 	}
@@ -85,6 +89,7 @@ public class ApptentiveHttpClient implements PayloadRequestSender {
 		}
 
 		HttpJsonRequest request = createJsonRequest(ENDPOINT_LEGACY_CONVERSATION, new JSONObject(), HttpRequestMethod.GET);
+		request.setEndpointTemplate(ENDPOINT_LEGACY_CONVERSATION);
 		request.setRequestProperty("Authorization", "OAuth " + conversationToken);
 		request.addListener(listener);
 		return request;
@@ -101,6 +106,7 @@ public class ApptentiveHttpClient implements PayloadRequestSender {
 
 		final String endPoint = StringUtils.format(ENDPOINT_INTERACTIONS, conversationId);
 		HttpJsonRequest request = createJsonRequest(endPoint, new JSONObject(), HttpRequestMethod.GET);
+		request.setEndpointTemplate(ENDPOINT_INTERACTIONS);
 		request.setRequestProperty("Authorization", "Bearer " + conversationToken);
 		request.addListener(listener);
 		return request;
@@ -117,6 +123,7 @@ public class ApptentiveHttpClient implements PayloadRequestSender {
 
 		final String endPoint = String.format(ENDPOINT_MESSAGES, conversationId, count == null ? "" : count.toString(), afterId == null ? "" : afterId, beforeId == null ? "" : beforeId);
 		HttpJsonRequest request = createJsonRequest(endPoint, new JSONObject(), HttpRequestMethod.GET);
+		request.setEndpointTemplate(ENDPOINT_MESSAGES);
 		request.setRequestProperty("Authorization", "Bearer " + conversationToken);
 		request.addListener(listener);
 		return request;
@@ -134,13 +141,16 @@ public class ApptentiveHttpClient implements PayloadRequestSender {
 			// Can't happen
 		}
 		String endPoint;
+		String endPointTemplate;
 		if (conversationId == null) {
-			endPoint = ENDPOINT_LOG_IN_TO_NEW_CONVERSATION;
+			endPoint = endPointTemplate = ENDPOINT_LOG_IN_TO_NEW_CONVERSATION;
 
 		} else {
+			endPointTemplate = ENDPOINT_LOG_IN_TO_EXISTING_CONVERSATION;
 			endPoint = StringUtils.format(ENDPOINT_LOG_IN_TO_EXISTING_CONVERSATION, conversationId);
 		}
 		HttpJsonRequest request = createJsonRequest(endPoint, json, HttpRequestMethod.POST);
+		request.setEndpointTemplate(endPointTemplate);
 		request.addListener(listener);
 		return request;
 	}
@@ -156,6 +166,7 @@ public class ApptentiveHttpClient implements PayloadRequestSender {
 
 		String endPoint = StringUtils.format(ENDPOINT_CONFIGURATION, conversationId);
 		HttpJsonRequest request = createJsonRequest(endPoint, new JSONObject(), HttpRequestMethod.GET);
+		request.setEndpointTemplate(ENDPOINT_CONFIGURATION);
 		request.setRequestProperty("Authorization", "Bearer " + token);
 		request.addListener(listener);
 		return request;
@@ -177,6 +188,7 @@ public class ApptentiveHttpClient implements PayloadRequestSender {
 		}
 
 		HttpJsonRequest request = createJsonRequest(ENDPOINT_LOG_IN_TO_NEW_CONVERSATION, conversationTokenRequest, HttpRequestMethod.POST);
+		request.setEndpointTemplate(ENDPOINT_LOG_IN_TO_NEW_CONVERSATION);
 		request.addListener(listener);
 		return request;
 	}
@@ -188,6 +200,30 @@ public class ApptentiveHttpClient implements PayloadRequestSender {
 		return HttpRequestManager.sharedManager().findRequest(tag);
 	}
 
+	/**
+	 * Registers a replayer for journaled requests of the specified kind (see {@link HttpRequest#setJournalKind(String)})
+	 */
+	public void registerRequestReplayer(String kind, HttpRequestJournal.Replayer replayer) {
+		HttpRequestJournal journal = HttpRequestManager.sharedManager().getJournal();
+		if (journal != null) {
+			journal.registerReplayer(kind, replayer);
+		}
+	}
+
+	public void unregisterRequestReplayer(String kind, HttpRequestJournal.Replayer replayer) {
+		HttpRequestJournal journal = HttpRequestManager.sharedManager().getJournal();
+		if (journal != null) {
+			journal.unregisterReplayer(kind, replayer);
+		}
+	}
+
+	/**
+	 * Re-issues journaled requests which didn't finish in a previous session or while the network was not available
+	 */
+	public void replayRequestJournal() {
+		HttpRequestManager.sharedManager().replayJournal();
+	}
+
 	//endregion
 
 	//region PayloadRequestSender
@@ -210,6 +246,7 @@ public class ApptentiveHttpClient implements PayloadRequestSender {
 		final String contentType = notNull(payload.getContentType());
 
 		HttpRequest request = createRawRequest(httpPath, payload.getData(), requestMethod, contentType);
+		request.setEndpointTemplate(StringUtils.format("payload (%s)", payload.getType()));
 
 		// Encrypted requests don't use an Auth token on the request. It's stored in the encrypted body.
 		if (!StringUtils.isNullOrEmpty(authToken)) {
@@ -270,6 +307,7 @@ public class ApptentiveHttpClient implements PayloadRequestSender {
 
 	private void setupRequestDefaults(HttpRequest request) {
 		request.setRequestManager(HttpRequestManager.sharedManager());
+		request.setTransport(transport);
 		request.setRequestProperty("User-Agent", userAgentString);
 		request.setRequestProperty("Connection", "Keep-Alive");
 		request.setRequestProperty("Accept-Encoding", "gzip");
@@ -286,4 +324,25 @@ public class ApptentiveHttpClient implements PayloadRequestSender {
 	}
 
 	//endregion
+
+	//region Getters/Setters
+
+	/**
+	 * Sets a transport for all requests created by this client
+	 */
+	public void setTransport(HttpTransport transport) {
+		if (transport == null) {
+			throw new IllegalArgumentException("Transport is null");
+		}
+		this.transport = transport;
+	}
+
+	/**
+	 * Returns the transport of this client (see {@link HttpTransport#getMetrics()} for connection stats)
+	 */
+	public HttpTransport getTransport() {
+		return transport;
+	}
+
+	//endregion
 }
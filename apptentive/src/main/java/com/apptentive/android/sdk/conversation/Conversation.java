@@ -17,6 +17,7 @@ import com.apptentive.android.sdk.ApptentiveLog;
 import com.apptentive.android.sdk.Encryption;
 import com.apptentive.android.sdk.comm.ApptentiveHttpClient;
 import com.apptentive.android.sdk.debug.ErrorMetrics;
+import com.apptentive.android.sdk.debug.Tracing;
 import com.apptentive.android.sdk.model.DevicePayload;
 import com.apptentive.android.sdk.model.EventPayload;
 import com.apptentive.android.sdk.model.Payload;
@@ -53,6 +54,7 @@ import com.apptentive.android.sdk.util.Util;
 import com.apptentive.android.sdk.util.threading.DispatchTask;
 
 import org.json.JSONException;
+import org.json.JSONObject;
 
 import java.io.File;
 import java.util.UUID;
@@ -70,7 +72,7 @@ import static com.apptentive.android.sdk.conversation.ConversationState.*;
 
 public class Conversation implements DataChangedListener, Destroyable, DeviceDataChangedListener, PersonDataChangedListener {
 
-	private static final String TAG_FETCH_INTERACTIONS_REQUEST = "fetch_interactions";
+	static final String TAG_FETCH_INTERACTIONS_REQUEST = "fetch_interactions";
 
 	/**
 	 * Conversation data for this class to manage
@@ -124,6 +126,15 @@ public class Conversation implements DataChangedListener, Destroyable, DeviceDat
 	 */
 	private ConversationState prevState = ConversationState.UNDEFINED;
 
+	/**
+	 * Parsed targets and interactions (kept along with the strings they were created from so we
+	 * don't parse the same data on every engagement)
+	 */
+	private Targets parsedTargets;
+	private String parsedTargetsSource;
+	private Interactions parsedInteractions;
+	private String parsedInteractionsSource;
+
 	private final MessageManager messageManager;
 
 	// we keep a reference to the message store in order to update encryption key (not the best solution but works for now)
@@ -167,7 +178,6 @@ public class Conversation implements DataChangedListener, Destroyable, DeviceDat
 		conversationData = new ConversationData();
 
 		messageStore = new FileMessageStore(conversationMessagesFile, encryption);
-		messageStore.migrateLegacyStorage();
 		messageManager = new MessageManager(this, messageStore); // it's important to initialize message manager in a constructor since other SDK parts depend on it via Apptentive singleton
 	}
 
@@ -180,20 +190,25 @@ public class Conversation implements DataChangedListener, Destroyable, DeviceDat
 	//region Payloads
 
 	public void addPayload(Payload payload) {
-		// TODO: figure out a better way of detecting new events
-		if (payload instanceof EventPayload) {
-			notifyEventGenerated((EventPayload) payload);
-		}
-
-		payload.setLocalConversationIdentifier(notNull(getLocalIdentifier()));
-		payload.setConversationId(getConversationId());
-		payload.setToken(getConversationToken());
-		payload.setEncryption(getEncryption());
-		payload.setAuthenticated(isAuthenticated());
-		payload.setSessionId(getSessionId());
+		Tracing.Span span = Tracing.startSpan("conversation.addPayload", payload.getNonce());
+		try {
+			// TODO: figure out a better way of detecting new events
+			if (payload instanceof EventPayload) {
+				notifyEventGenerated((EventPayload) payload);
+			}
 
-		// TODO: don't use singleton here
-		ApptentiveInternal.getInstance().getApptentiveTaskManager().addPayload(payload);
+			payload.setLocalConversationIdentifier(notNull(getLocalIdentifier()));
+			payload.setConversationId(getConversationId());
+			payload.setToken(getConversationToken());
+			payload.setEncryption(getEncryption());
+			payload.setAuthenticated(isAuthenticated());
+			payload.setSessionId(getSessionId());
+
+			// TODO: don't use singleton here
+			ApptentiveInternal.getInstance().getApptentiveTaskManager().addPayload(payload);
+		} finally {
+			span.end();
+		}
 	}
 
 	private void notifyEventGenerated(EventPayload payload) {
@@ -212,13 +227,20 @@ public class Conversation implements DataChangedListener, Destroyable, DeviceDat
 		String targetsString = getTargets();
 		if (targetsString != null) {
 			try {
-				Targets targets = new Targets(getTargets());
-				String interactionId = targets.getApplicableInteraction(eventLabel, verbose);
+				// strings are compared by reference: any update to the stored data replaces the instance
+				if (parsedTargets == null || parsedTargetsSource != targetsString) {
+					parsedTargets = new Targets(targetsString);
+					parsedTargetsSource = targetsString;
+				}
+				String interactionId = parsedTargets.getApplicableInteraction(eventLabel, verbose);
 				if (interactionId != null) {
 					String interactionsString = getInteractions();
 					if (interactionsString != null) {
-						Interactions interactions = new Interactions(interactionsString);
-						return interactions.getInteraction(interactionId);
+						if (parsedInteractions == null || parsedInteractionsSource != interactionsString) {
+							parsedInteractions = new Interactions(interactionsString);
+							parsedInteractionsSource = interactionsString;
+						}
+						return parsedInteractions.getInteraction(interactionId);
 					}
 				}
 			} catch (JSONException e) {
@@ -242,10 +264,6 @@ public class Conversation implements DataChangedListener, Destroyable, DeviceDat
 				HttpJsonRequest request = httpClient.createFetchInteractionsRequest(getConversationToken(), getConversationId(), new HttpRequest.Listener<HttpJsonRequest>() {
 					@Override
 					public void onFinish(HttpJsonRequest request) {
-						// Send a notification so other parts of the SDK can use this data for troubleshooting
-						ApptentiveNotificationCenter.defaultCenter()
-							.postNotification(NOTIFICATION_INTERACTION_MANIFEST_FETCHED, NOTIFICATION_KEY_MANIFEST, request.getResponseData());
-
 						// Store new integration cache expiration.
 						String cacheControl = request.getResponseHeader("Cache-Control");
 						Integer cacheSeconds = Util.parseCacheControlHeader(cacheControl);
@@ -253,13 +271,27 @@ public class Conversation implements DataChangedListener, Destroyable, DeviceDat
 							cacheSeconds = Constants.CONFIG_DEFAULT_INTERACTION_CACHE_EXPIRATION_DURATION_SECONDS;
 						}
 						setInteractionExpiration(Util.currentTimeSeconds() + cacheSeconds);
+
+						// The cached manifest is still valid: nothing to parse or save
+						if (request.isNotModified()) {
+							ApptentiveLog.v(CONVERSATION, "Interactions not modified");
+							notifyFinish(true);
+							return;
+						}
+
+						// Send a notification so other parts of the SDK can use this data for troubleshooting
+						ApptentiveNotificationCenter.defaultCenter()
+							.postNotification(NOTIFICATION_INTERACTION_MANIFEST_FETCHED, NOTIFICATION_KEY_MANIFEST, request.getResponseData());
+
 						try {
-							InteractionManifest payload = new InteractionManifest(request.getResponseData());
-							Interactions interactions = payload.getInteractions();
-							Targets targets = payload.getTargets();
-							if (interactions != null && targets != null) {
-								setTargets(targets.toString());
-								setInteractions(interactions.toString());
+							// build the manifest from the parsed response object instead of parsing the same data again
+							JSONObject responseObject = request.getResponseObject();
+							if (responseObject == null) {
+								throw new JSONException("Empty response");
+							}
+							if (storeInteractionManifest(new InteractionManifest(responseObject))) {
+								setInteractionsETag(request.getResponseHeaderValue("ETag"));
+								setInteractionsLastModified(request.getResponseHeaderValue("Last-Modified"));
 							} else {
 								ApptentiveLog.e(CONVERSATION, "Unable to save interactionManifest.");
 							}
@@ -303,7 +335,12 @@ public class Conversation implements DataChangedListener, Destroyable, DeviceDat
 					}
 
 				});
+				// only ask for the changes if we have the manifest the validators belong to
+				if (getInteractions() != null && getTargets() != null) {
+					request.setCacheValidators(getInteractionsETag(), getInteractionsLastModified());
+				}
 				request.setTag(TAG_FETCH_INTERACTIONS_REQUEST);
+				request.setJournalKind(TAG_FETCH_INTERACTIONS_REQUEST);
 				request.setCallbackQueue(conversationQueue());
 				request.start();
 			}
@@ -331,12 +368,10 @@ public class Conversation implements DataChangedListener, Destroyable, DeviceDat
 	 */
 	public void storeInteractionManifest(String interactionManifest) {
 		try {
-			InteractionManifest payload = new InteractionManifest(interactionManifest);
-			Interactions interactions = payload.getInteractions();
-			Targets targets = payload.getTargets();
-			if (interactions != null && targets != null) {
-				setTargets(targets.toString());
-				setInteractions(interactions.toString());
+			if (storeInteractionManifest(new InteractionManifest(interactionManifest))) {
+				// the manifest didn't come from the server: cache validators don't match it anymore
+				setInteractionsETag(null);
+				setInteractionsLastModified(null);
 			} else {
 				ApptentiveLog.e(CONVERSATION, "Unable to save InteractionManifest.");
 			}
@@ -346,6 +381,29 @@ public class Conversation implements DataChangedListener, Destroyable, DeviceDat
 		}
 	}
 
+	/**
+	 * Stores targets and interactions of the manifest and keeps the parsed objects for the
+	 * following engagements.
+	 *
+	 * @return <code>false</code> if the manifest has no targets or interactions
+	 */
+	private boolean storeInteractionManifest(InteractionManifest manifest) {
+		Interactions interactions = manifest.getInteractions();
+		Targets targets = manifest.getTargets();
+		if (interactions == null || targets == null) {
+			return false;
+		}
+
+		setTargets(targets.toString());
+		setInteractions(interactions.toString());
+
+		parsedTargets = targets;
+		parsedTargetsSource = getTargets();
+		parsedInteractions = interactions;
+		parsedInteractionsSource = getInteractions();
+		return true;
+	}
+
 	//endregion
 
 	//region Session
@@ -430,6 +488,15 @@ public class Conversation implements DataChangedListener, Destroyable, DeviceDat
 		return false;
 	}
 
+	/**
+	 * Migrates legacy messages and reads the message storage (safe to call from any thread).
+	 */
+	void preloadMessages() {
+		long start = System.currentTimeMillis();
+		messageStore.preload();
+		ApptentiveLog.d(CONVERSATION, "Messages loaded (took %d ms)", System.currentTimeMillis() - start);
+	}
+
 	void loadConversationData() throws SerializerException {
 		long start = System.currentTimeMillis();
 
@@ -730,6 +797,22 @@ public class Conversation implements DataChangedListener, Destroyable, DeviceDat
 		getConversationData().setInteractionExpiration(interactionExpiration);
 	}
 
+	public String getInteractionsETag() {
+		return getConversationData().getInteractionsETag();
+	}
+
+	public void setInteractionsETag(String interactionsETag) {
+		getConversationData().setInteractionsETag(interactionsETag);
+	}
+
+	public String getInteractionsLastModified() {
+		return getConversationData().getInteractionsLastModified();
+	}
+
+	public void setInteractionsLastModified(String interactionsLastModified) {
+		getConversationData().setInteractionsLastModified(interactionsLastModified);
+	}
+
 	public @Nullable String getMParticleId() {
 		return getConversationData().getMParticleId();
 	}
@@ -46,6 +46,8 @@ public class ConversationData implements Saveable, DataChangedListener, DeviceDa
 	private String targets;
 	private String interactions;
 	private double interactionExpiration;
+	private String interactionsETag;
+	private String interactionsLastModified;
 
 	public ConversationData() {
 		this.localIdentifier = UUID.randomUUID().toString();
@@ -310,6 +312,28 @@ public class ConversationData implements Saveable, DataChangedListener, DeviceDa
 		}
 	}
 
+	public String getInteractionsETag() {
+		return interactionsETag;
+	}
+
+	public void setInteractionsETag(String interactionsETag) {
+		if (!StringUtils.equal(this.interactionsETag, interactionsETag)) {
+			this.interactionsETag = interactionsETag;
+			notifyDataChanged();
+		}
+	}
+
+	public String getInteractionsLastModified() {
+		return interactionsLastModified;
+	}
+
+	public void setInteractionsLastModified(String interactionsLastModified) {
+		if (!StringUtils.equal(this.interactionsLastModified, interactionsLastModified)) {
+			this.interactionsLastModified = interactionsLastModified;
+			notifyDataChanged();
+		}
+	}
+
 	public @Nullable String getMParticleId() {
 		return getPerson().getMParticleId();
 	}
@@ -14,6 +14,7 @@ import com.apptentive.android.sdk.ApptentiveInternal;
 import com.apptentive.android.sdk.ApptentiveLog;
 import com.apptentive.android.sdk.debug.ErrorMetrics;
 import com.apptentive.android.sdk.module.metric.MetricModule;
+import com.apptentive.android.sdk.util.threading.DispatchPriority;
 import com.apptentive.android.sdk.util.threading.DispatchQueue;
 import com.apptentive.android.sdk.util.threading.DispatchTask;
 
@@ -24,6 +25,7 @@ public abstract class ConversationDispatchTask extends DispatchTask {
 	private final Apptentive.BooleanCallback callback;
 	private final DispatchQueue callbackQueue;
 	private String description = "dispatch task";
+	private DispatchPriority priority = DispatchPriority.Normal;
 
 	public ConversationDispatchTask() {
 		this(null, null);
@@ -121,6 +123,24 @@ public abstract class ConversationDispatchTask extends DispatchTask {
 		return this;
 	}
 
+	@Override
+	public String getDescription() {
+		return description;
+	}
+
+	public ConversationDispatchTask setPriority(DispatchPriority priority) {
+		if (priority == null) {
+			throw new IllegalArgumentException("Priority is null");
+		}
+		this.priority = priority;
+		return this;
+	}
+
+	@Override
+	public DispatchPriority getPriority() {
+		return priority;
+	}
+
 	private void logException(Exception e) {
 		ErrorMetrics.logException(e); // TODO: add more context info
 	}
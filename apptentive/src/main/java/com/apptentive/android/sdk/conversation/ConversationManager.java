@@ -25,12 +25,14 @@ import com.apptentive.android.sdk.model.ConversationTokenRequest;
 import com.apptentive.android.sdk.module.engagement.EngagementModule;
 import com.apptentive.android.sdk.network.HttpJsonRequest;
 import com.apptentive.android.sdk.network.HttpRequest;
+import com.apptentive.android.sdk.network.HttpRequestJournal;
 import com.apptentive.android.sdk.notifications.ApptentiveNotification;
 import com.apptentive.android.sdk.notifications.ApptentiveNotificationCenter;
 import com.apptentive.android.sdk.notifications.ApptentiveNotificationObserver;
 import com.apptentive.android.sdk.serialization.ObjectSerialization;
 import com.apptentive.android.sdk.storage.AppRelease;
 import com.apptentive.android.sdk.storage.AppReleaseManager;
+import com.apptentive.android.sdk.storage.ApptentiveTaskManager;
 import com.apptentive.android.sdk.storage.Device;
 import com.apptentive.android.sdk.storage.DeviceManager;
 import com.apptentive.android.sdk.storage.DevicePayloadDiff;
@@ -43,12 +45,16 @@ import com.apptentive.android.sdk.util.ObjectUtils;
 import com.apptentive.android.sdk.util.RuntimeUtils;
 import com.apptentive.android.sdk.util.StringUtils;
 import com.apptentive.android.sdk.util.Util;
+import com.apptentive.android.sdk.util.threading.DispatchQueue;
+import com.apptentive.android.sdk.util.threading.DispatchTask;
 
 import org.json.JSONObject;
 
 import java.io.File;
 import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static com.apptentive.android.sdk.ApptentiveHelper.checkConversationQueue;
 import static com.apptentive.android.sdk.ApptentiveHelper.conversationQueue;
@@ -76,6 +82,13 @@ public class ConversationManager {
 	private static final String TAG_FETCH_CONVERSATION_TOKEN_REQUEST = "fetch_conversation_token";
 	private static final String TAG_FETCH_APP_CONFIGURATION_REQUEST = "fetch_app_configuration";
 
+	// cold start stages (see getStartupStageTimings())
+	public static final String STARTUP_STAGE_METADATA = "metadata";
+	public static final String STARTUP_STAGE_CONVERSATION = "conversation";
+	public static final String STARTUP_STAGE_MESSAGES = "messages";
+	public static final String STARTUP_STAGE_PAYLOADS = "payloads";
+	public static final String STARTUP_STAGE_TOTAL = "total";
+
 	private final WeakReference<Context> contextRef;
 
 	private boolean appIsInForeground;
@@ -109,6 +122,12 @@ public class ConversationManager {
 	 */
 	private boolean activeConversationFailedToResolve; // TODO: this is a temporary solution until we restore conversation state
 
+	/**
+	 * Durations (in milliseconds) of the cold start stages. Background stages are recorded from
+	 * their own threads so all access is synchronized on the map.
+	 */
+	private final Map<String, Long> startupStageTimings = new LinkedHashMap<>();
+
 	public ConversationManager(@NonNull Context context, @NonNull File conversationsStorageDir, @NonNull Encryption encryption, @NonNull DeviceManager deviceManager) {
 		if (context == null) {
 			throw new IllegalArgumentException("Context is null");
@@ -164,7 +183,15 @@ public class ConversationManager {
 
 	/**
 	 * Attempts to load an active conversation. Returns <code>false</code> if active conversation is
-	 * missing or cannot be loaded
+	 * missing or cannot be loaded.
+	 * <pre>
+	 * The load is staged to keep the conversation queue critical path short:
+	 *   - payload database is opened on the background queue right away;
+	 *   - metadata and conversation data are loaded on the conversation queue;
+	 *   - messages are read on the background queue as soon as the conversation is known.
+	 * </pre>
+	 * Tasks dispatched on the conversation queue in the meantime (like engage calls) wait in the
+	 * queue and run as soon as the conversation data is ready.
 	 */
 	public boolean loadActiveConversation(Context context) {
 		checkConversationQueue();
@@ -173,17 +200,30 @@ public class ConversationManager {
 			throw new IllegalArgumentException("Context is null");
 		}
 
+		synchronized (startupStageTimings) {
+			startupStageTimings.clear();
+		}
+
+		final long loadStartTime = System.currentTimeMillis();
+
+		// payload database does not depend on the conversation: open it while metadata is resolved
+		warmUpPayloadStorage();
+
 		try {
 			// resolving metadata
 			ApptentiveLog.v(CONVERSATION, "Resolving metadata...");
+			long stageStartTime = System.currentTimeMillis();
 			conversationMetadata = resolveMetadata();
+			recordStartupStage(STARTUP_STAGE_METADATA, stageStartTime);
 			if (ApptentiveLog.canLog(VERBOSE)) {
 				printMetadata(conversationMetadata, "Loaded Metadata");
 			}
 
 			// attempt to load existing conversation
 			ApptentiveLog.v(CONVERSATION, "Loading active conversation...");
+			stageStartTime = System.currentTimeMillis();
 			setActiveConversation(loadActiveConversationGuarded());
+			recordStartupStage(STARTUP_STAGE_CONVERSATION, stageStartTime);
 
 			if (activeConversation != null) {
 				ApptentiveNotificationCenter.defaultCenter()
@@ -195,6 +235,7 @@ public class ConversationManager {
 				activeConversation.scheduleSaveConversationData();
 
 				handleConversationStateChange(activeConversation);
+				recordStartupStage(STARTUP_STAGE_TOTAL, loadStartTime);
 				return true;
 			}
 
@@ -435,11 +476,68 @@ public class ConversationManager {
 		// check inconsistency
 		conversation.checkInternalConsistency();
 
+		// messages are not needed to answer engage calls: read them in the background
+		preloadMessages(conversation);
+
 		return conversation;
 	}
 
 	//endregion
 
+	//region Cold Start Stages
+
+	private void warmUpPayloadStorage() {
+		final ApptentiveTaskManager taskManager = ApptentiveInternal.getInstance().getApptentiveTaskManager();
+		if (taskManager == null) {
+			return;
+		}
+
+		DispatchQueue.backgroundQueue().dispatchAsync(new DispatchTask() {
+			@Override
+			protected void execute() {
+				long startTime = System.currentTimeMillis();
+				taskManager.warmUp();
+				recordStartupStage(STARTUP_STAGE_PAYLOADS, startTime);
+			}
+		});
+	}
+
+	private void preloadMessages(final Conversation conversation) {
+		DispatchQueue.backgroundQueue().dispatchAsync(new DispatchTask() {
+			@Override
+			protected void execute() {
+				long startTime = System.currentTimeMillis();
+				conversation.preloadMessages();
+				recordStartupStage(STARTUP_STAGE_MESSAGES, startTime);
+			}
+		});
+	}
+
+	private void recordStartupStage(String stage, long startTime) {
+		long duration = System.currentTimeMillis() - startTime;
+		synchronized (startupStageTimings) {
+			startupStageTimings.put(stage, duration);
+		}
+		ApptentiveLog.v(CONVERSATION, "Startup stage '%s' finished (took %d ms)", stage, duration);
+
+		if (STARTUP_STAGE_TOTAL.equals(stage) && DispatchQueue.isMetricsEnabled()) {
+			ApptentiveLog.v(CONVERSATION, "Conversation queue: %s", conversationQueue().getMetrics());
+		}
+	}
+
+	/**
+	 * Returns durations (in milliseconds) of the last cold start stages keyed by the stage name
+	 * (<code>STARTUP_STAGE_*</code> constants). Background stages might still be missing if they
+	 * have not finished yet.
+	 */
+	public Map<String, Long> getStartupStageTimings() {
+		synchronized (startupStageTimings) {
+			return new LinkedHashMap<>(startupStageTimings);
+		}
+	}
+
+	//endregion
+
 	//region Conversation Token Fetching
 
 	/**
@@ -597,6 +695,10 @@ public class ConversationManager {
 				if (pushProvider != -1 && pushToken != null) {
 					conversation.setPushIntegration(pushProvider, pushToken);
 				}
+
+				// re-issue the fetches which didn't finish in the previous session (the ones started above are skipped)
+				registerRequestReplayers();
+				getHttpClient().replayRequestJournal();
 			}
 
 			updateMetadataItems(conversation);
@@ -606,6 +708,35 @@ public class ConversationManager {
 		}
 	}
 
+	private void registerRequestReplayers() {
+		getHttpClient().registerRequestReplayer(TAG_FETCH_APP_CONFIGURATION_REQUEST, appConfigurationReplayer);
+		getHttpClient().registerRequestReplayer(Conversation.TAG_FETCH_INTERACTIONS_REQUEST, interactionsReplayer);
+	}
+
+	private final HttpRequestJournal.Replayer appConfigurationReplayer = new HttpRequestJournal.Replayer() {
+		@Override
+		public boolean replay() {
+			checkConversationQueue();
+			if (activeConversation != null && activeConversation.hasActiveState()) {
+				fetchAppConfiguration(activeConversation);
+				return true;
+			}
+			return false;
+		}
+	};
+
+	private final HttpRequestJournal.Replayer interactionsReplayer = new HttpRequestJournal.Replayer() {
+		@Override
+		public boolean replay() {
+			checkConversationQueue();
+			if (activeConversation != null && activeConversation.hasActiveState() && appIsInForeground) {
+				activeConversation.fetchInteractions(getContext());
+				return true;
+			}
+			return false; // keep the entries until the app comes back to the foreground
+		}
+	};
+
 	private void fetchAppConfiguration(Conversation conversation) {
 		checkConversationQueue();
 		try {
@@ -646,7 +777,17 @@ public class ConversationManager {
 								                          cacheSeconds = Constants.CONFIG_DEFAULT_APP_CONFIG_EXPIRATION_DURATION_SECONDS;
 							                          }
 							                          ApptentiveLog.d(APP_CONFIGURATION, "Caching configuration for %d seconds.", cacheSeconds);
-							                          Configuration config = new Configuration(request.getResponseObject().toString());
+
+							                          // the cached configuration is still valid: only extend its expiration
+							                          Configuration config;
+							                          if (request.isNotModified()) {
+								                          ApptentiveLog.d(APP_CONFIGURATION, "App configuration not modified");
+								                          config = Configuration.load();
+							                          } else {
+								                          config = new Configuration(request.getResponseObject().toString());
+								                          config.setConfigurationETag(request.getResponseHeaderValue("ETag"));
+								                          config.setConfigurationLastModified(request.getResponseHeaderValue("Last-Modified"));
+							                          }
 							                          config.setConfigurationCacheExpirationMillis(System.currentTimeMillis() + cacheSeconds * 1000);
 							                          config.save();
 
@@ -673,7 +814,10 @@ public class ConversationManager {
 						                          ApptentiveLog.e(APP_CONFIGURATION, "App configuration request failed: %s", reason);
 					                          }
 				                          });
+		Configuration cachedConfig = Configuration.load();
+		request.setCacheValidators(cachedConfig.getConfigurationETag(), cachedConfig.getConfigurationLastModified());
 		request.setTag(TAG_FETCH_APP_CONFIGURATION_REQUEST);
+		request.setJournalKind(TAG_FETCH_APP_CONFIGURATION_REQUEST);
 		request.setCallbackQueue(conversationQueue());
 		request.start();
 	}
@@ -7,6 +7,7 @@
 package com.apptentive.android.sdk.conversation;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.apptentive.android.sdk.ApptentiveLog;
 import com.apptentive.android.sdk.Encryption;
@@ -21,26 +22,28 @@ import com.apptentive.android.sdk.serialization.SerializableObject;
 import com.apptentive.android.sdk.storage.MessageStore;
 import com.apptentive.android.sdk.util.StringUtils;
 import com.apptentive.android.sdk.util.Util;
+import com.apptentive.android.sdk.util.threading.DispatchQueue;
+import com.apptentive.android.sdk.util.threading.DispatchTask;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.DataOutput;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.security.InvalidAlgorithmParameterException;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import java.io.RandomAccessFile;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 
-import javax.crypto.BadPaddingException;
-import javax.crypto.IllegalBlockSizeException;
-import javax.crypto.NoSuchPaddingException;
-
 import static com.apptentive.android.sdk.ApptentiveLogTag.CONVERSATION;
 import static com.apptentive.android.sdk.ApptentiveLogTag.MESSAGES;
 import static com.apptentive.android.sdk.util.Util.readNullableBoolean;
@@ -50,17 +53,126 @@ import static com.apptentive.android.sdk.util.Util.writeNullableBoolean;
 import static com.apptentive.android.sdk.util.Util.writeNullableDouble;
 import static com.apptentive.android.sdk.util.Util.writeNullableUTF;
 
+/**
+ * Message store backed by an append-only log of records:
+ * <pre>
+ * [MAGIC][VERSION] ([record length][record type][record body])*
+ * </pre>
+ * Each record either puts a message entry (insert or update) or deletes one (tombstone). Entries
+ * are encrypted individually. A tombstone only holds the message nonce and is stored as plain text:
+ * it is applied even if the records around it can't be decrypted (a deleted message never comes
+ * back). A single message update appends one record instead of re-writing (and re-encrypting) the
+ * whole file. The log is compacted in the background once superseded records take more space than the
+ * live ones. Files written by older SDK versions (a single encrypted blob or a log of fully
+ * encrypted records) are migrated on load.
+ * <p/>
+ * Entries are kept as raw JSON and only parsed into message objects when requested. Parsed
+ * objects are never cached: each caller gets its own copy which it can safely mutate.
+ */
 class FileMessageStore implements MessageStore {
 	/**
-	 * Binary format version
+	 * Legacy binary format version (whole file encrypted at once)
 	 */
 	private static final byte VERSION = 1;
 
+	/**
+	 * Legacy log binary format version (record type is encrypted along with the record)
+	 */
+	private static final byte LOG_VERSION_ENCRYPTED_RECORDS = 2;
+
+	/**
+	 * Log binary format version
+	 */
+	private static final byte LOG_VERSION = 3;
+
+	/**
+	 * Plain text marker of the log file format
+	 */
+	private static final byte[] LOG_MAGIC = { 'A', 'M', 'S', 'G' };
+
+	private static final int LOG_HEADER_SIZE = LOG_MAGIC.length + 1;
+
+	/**
+	 * Size of a record length prefix
+	 */
+	private static final int RECORD_LENGTH_SIZE = 4;
+
+	/**
+	 * Size of a record type (counted in the record length)
+	 */
+	private static final int RECORD_TYPE_SIZE = 1;
+
+	private static final byte RECORD_PUT = 1;
+	private static final byte RECORD_DELETE = 2;
+
+	/**
+	 * Minimum amount of superseded records (in bytes) before we consider compacting the log
+	 */
+	private static final long COMPACTION_MIN_GARBAGE_SIZE = 32 * 1024;
+
 	private final File file;
-	private final List<MessageEntry> messageEntries;
+
+	/**
+	 * Message entries indexed by nonce (in the insertion order)
+	 */
+	private final LinkedHashMap<String, MessageEntry> messageEntries;
+
+	/**
+	 * Random access snapshot of message entries in the insertion order (used for paging). Appended
+	 * on insert and lazily rebuilt after a delete.
+	 */
+	private final List<MessageEntry> orderedEntries;
+	private boolean orderedEntriesDirty;
+
 	private Encryption encryption;
+
+	/**
+	 * True if the entries should be loaded from the file before the next access
+	 */
 	private boolean shouldFetchFromFile;
 
+	/**
+	 * Total size of the log file (in bytes)
+	 */
+	private long logSize;
+
+	/**
+	 * Size of the records which hold the current state of message entries (in bytes)
+	 */
+	private long liveRecordsSize;
+
+	/**
+	 * Number of unread messages (maintained on every change)
+	 */
+	private int unreadMessageCount;
+
+	private String lastReceivedMessageId;
+	private boolean lastReceivedMessageIdDirty;
+
+	/**
+	 * Set if the file could not be loaded: the store keeps working in memory but never writes the
+	 * file so the data we failed to read is not overwritten
+	 */
+	private boolean loadFailed;
+
+	/**
+	 * Offsets of the log records which could not be read (corrupted or encrypted with a different
+	 * key). Such records are kept in place and only moved to the quarantine file when the log needs
+	 * to be re-written.
+	 */
+	private final List<Long> unreadableRecordOffsets = new ArrayList<>();
+
+	private final DispatchTask compactionTask = new DispatchTask() {
+		@Override
+		protected void execute() {
+			synchronized (FileMessageStore.this) {
+				if (shouldCompact()) {
+					writeToFile();
+				}
+			}
+		}
+	};
+
 	FileMessageStore(File file, Encryption encryption) {
 		if (file == null) {
 			throw new IllegalArgumentException("File is null");
@@ -72,7 +184,8 @@ class FileMessageStore implements MessageStore {
 
 		this.file = file;
 		this.encryption = encryption;
-		this.messageEntries = new ArrayList<>(); // we need a random access
+		this.messageEntries = new LinkedHashMap<>();
+		this.orderedEntries = new ArrayList<>(); // we need a random access
 		this.shouldFetchFromFile = true; // we would lazily read it from a file later
 	}
 
@@ -82,16 +195,21 @@ class FileMessageStore implements MessageStore {
 	public synchronized void addOrUpdateMessages(ApptentiveMessage... apptentiveMessages) {
 		fetchEntries();
 
+		List<MessageEntry> changedEntries = new ArrayList<>(apptentiveMessages.length);
 		for (ApptentiveMessage apptentiveMessage : apptentiveMessages) {
 			MessageEntry existing = findMessageEntry(apptentiveMessage);
 			if (existing != null) {
 				// Update
+				final String receivedId = getReceivedId(existing);
+				willUpdateEntry(existing);
 				existing.id = apptentiveMessage.getId();
 				existing.state = apptentiveMessage.getState().name();
 				if (apptentiveMessage.isRead()) { // A message can't be unread after being read.
 					existing.isRead = true;
 				}
 				existing.json = apptentiveMessage.getJsonObject().toString();
+				didUpdateEntry(existing, receivedId);
+				changedEntries.add(existing);
 			} else {
 				// Insert
 				MessageEntry entry = new MessageEntry();
@@ -101,11 +219,14 @@ class FileMessageStore implements MessageStore {
 				entry.state = apptentiveMessage.getState().name();
 				entry.isRead = apptentiveMessage.isRead();
 				entry.json = apptentiveMessage.getJsonObject().toString();
-				messageEntries.add(entry);
+				messageEntries.put(entry.nonce, entry);
+				didInsertEntry(entry);
+				appendOrderedEntry(entry);
+				changedEntries.add(entry);
 			}
 		}
 
-		writeToFile();
+		appendToFile(changedEntries, null);
 	}
 
 	@Override
@@ -114,15 +235,17 @@ class FileMessageStore implements MessageStore {
 
 		MessageEntry entry = findMessageEntry(apptentiveMessage);
 		if (entry != null) {
+			final String receivedId = getReceivedId(entry);
+			willUpdateEntry(entry);
 			entry.id = apptentiveMessage.getId();
 			entry.clientCreatedAt = apptentiveMessage.getClientCreatedAt();
-			entry.nonce = apptentiveMessage.getNonce();
 			entry.state = apptentiveMessage.getState().name();
 			if (apptentiveMessage.isRead()) { // A apptentiveMessage can't be unread after being read.
 				entry.isRead = true;
 			}
 			entry.json = apptentiveMessage.getJsonObject().toString();
-			writeToFile();
+			didUpdateEntry(entry, receivedId);
+			appendToFile(Collections.singletonList(entry), null);
 		}
 	}
 
@@ -130,50 +253,77 @@ class FileMessageStore implements MessageStore {
 	public synchronized List<ApptentiveMessage> getAllMessages() throws Exception {
 		fetchEntries();
 
-		List<ApptentiveMessage> apptentiveMessages = new ArrayList<>();
-		for (MessageEntry entry : messageEntries) {
-			ApptentiveMessage apptentiveMessage = MessageFactory.fromJson(entry.json);
-			if (apptentiveMessage == null) {
-				ApptentiveLog.e(MESSAGES, "Error parsing Record json from database: %s", entry.json);
-				continue;
+		List<ApptentiveMessage> apptentiveMessages = new ArrayList<>(messageEntries.size());
+		for (MessageEntry entry : messageEntries.values()) {
+			ApptentiveMessage apptentiveMessage = hydrateMessage(entry);
+			if (apptentiveMessage != null) {
+				apptentiveMessages.add(apptentiveMessage);
 			}
-			apptentiveMessage.setState(ApptentiveMessage.State.parse(entry.state));
-			apptentiveMessage.setRead(entry.isRead);
-			apptentiveMessages.add(apptentiveMessage);
 		}
 		return apptentiveMessages;
 	}
 
 	@Override
-	public synchronized String getLastReceivedMessageId() throws Exception {
+	public synchronized MessagePage getMessages(@Nullable String beforeNonce, int count) throws Exception {
+		if (count < 1) {
+			throw new IllegalArgumentException("Invalid count: " + count);
+		}
+
 		fetchEntries();
 
-		final String savedState = ApptentiveMessage.State.saved.name();
-		for (int i = messageEntries.size() - 1; i >= 0; --i) {
-			final MessageEntry entry = messageEntries.get(i);
-			if (StringUtils.equal(entry.state, savedState) && entry.id != null) {
-				return entry.id;
+		final List<MessageEntry> entries = getOrderedEntries();
+		int end = entries.size();
+		if (beforeNonce != null) {
+			MessageEntry beforeEntry = findMessageEntry(beforeNonce);
+			if (beforeEntry == null) {
+				return new MessagePage(new ArrayList<ApptentiveMessage>(), null); // the message was deleted: nothing to page from
 			}
+			end = beforeEntry.position;
 		}
-		return null;
+
+		int start = Math.max(0, end - count);
+		List<ApptentiveMessage> apptentiveMessages = new ArrayList<>(end - start);
+		for (int i = start; i < end; ++i) {
+			ApptentiveMessage apptentiveMessage = hydrateMessage(entries.get(i));
+			if (apptentiveMessage != null) {
+				apptentiveMessages.add(apptentiveMessage);
+			}
+		}
+		// the cursor is based on the entries (not on the parsed messages) so a broken entry doesn't stop the paging
+		return new MessagePage(apptentiveMessages, start > 0 ? entries.get(start).nonce : null);
 	}
 
 	@Override
-	public synchronized int getUnreadMessageCount() {
+	public synchronized String getLastReceivedMessageId() throws Exception {
 		fetchEntries();
 
-		int count = 0;
-		for (MessageEntry entry : messageEntries) {
-			if (!entry.isRead && entry.id != null) {
-				++count;
+		if (lastReceivedMessageIdDirty) {
+			lastReceivedMessageId = null;
+			for (MessageEntry entry : messageEntries.values()) {
+				final String receivedId = getReceivedId(entry);
+				if (receivedId != null) {
+					lastReceivedMessageId = receivedId;
+				}
 			}
+			lastReceivedMessageIdDirty = false;
 		}
-		return count;
+		return lastReceivedMessageId;
+	}
+
+	@Override
+	public synchronized int getUnreadMessageCount() {
+		fetchEntries();
+		return unreadMessageCount;
 	}
 
 	@Override
 	public synchronized void deleteAllMessages() {
+		loadFailed = false; // the data is no longer needed
+		unreadableRecordOffsets.clear();
 		messageEntries.clear();
+		orderedEntriesDirty = true;
+		shouldFetchFromFile = false;
+		resetCounters();
 		writeToFile();
 	}
 
@@ -181,27 +331,129 @@ class FileMessageStore implements MessageStore {
 	public synchronized void deleteMessage(String nonce) {
 		fetchEntries();
 
-		for (int i = 0; i < messageEntries.size(); ++i) {
-			if (StringUtils.equal(nonce, messageEntries.get(i).nonce)) {
-				messageEntries.remove(i);
-				writeToFile();
-				break;
-			}
+		MessageEntry entry = messageEntries.remove(nonce);
+		if (entry != null) {
+			didDeleteEntry(entry);
+			orderedEntriesDirty = true;
+			appendToFile(Collections.<MessageEntry>emptyList(), nonce);
 		}
 	}
 
 	@Override
-	public ApptentiveMessage findMessage(String nonce) {
+	public synchronized ApptentiveMessage findMessage(String nonce) {
 		fetchEntries();
 
-		for (int i = 0; i < messageEntries.size(); ++i) {
-			final MessageEntry messageEntry = messageEntries.get(i);
-			if (StringUtils.equal(nonce, messageEntry.nonce)) {
-				return MessageFactory.fromJson(messageEntry.json);
+		final MessageEntry messageEntry = findMessageEntry(nonce);
+		return messageEntry != null ? MessageFactory.fromJson(messageEntry.json) : null;
+	}
+
+	//endregion
+
+	//region Index
+
+	/**
+	 * Removes entry's contribution from the maintained counters before it gets updated or deleted
+	 */
+	private void willUpdateEntry(MessageEntry entry) {
+		if (isUnread(entry)) {
+			--unreadMessageCount;
+		}
+	}
+
+	/**
+	 * Adds entry's contribution to the maintained counters after it was updated
+	 *
+	 * @param previousReceivedId - received message id of the entry before the update (if any)
+	 */
+	private void didUpdateEntry(MessageEntry entry, @Nullable String previousReceivedId) {
+		if (isUnread(entry)) {
+			++unreadMessageCount;
+		}
+		if (!StringUtils.equal(previousReceivedId, getReceivedId(entry))) {
+			lastReceivedMessageIdDirty = true;
+		}
+	}
+
+	/**
+	 * Adds entry's contribution to the maintained counters after it was inserted
+	 */
+	private void didInsertEntry(MessageEntry entry) {
+		if (isUnread(entry)) {
+			++unreadMessageCount;
+		}
+		final String receivedId = getReceivedId(entry);
+		if (receivedId != null && !lastReceivedMessageIdDirty) {
+			lastReceivedMessageId = receivedId; // the newest entry always wins
+		}
+	}
+
+	private void didDeleteEntry(MessageEntry entry) {
+		if (isUnread(entry)) {
+			--unreadMessageCount;
+		}
+		final String receivedId = getReceivedId(entry);
+		if (receivedId != null && StringUtils.equal(receivedId, lastReceivedMessageId)) {
+			lastReceivedMessageIdDirty = true;
+		}
+		liveRecordsSize -= entry.recordSize;
+	}
+
+	private void appendOrderedEntry(MessageEntry entry) {
+		if (!orderedEntriesDirty) {
+			entry.position = orderedEntries.size();
+			orderedEntries.add(entry);
+		}
+	}
+
+	private List<MessageEntry> getOrderedEntries() {
+		if (orderedEntriesDirty) {
+			orderedEntries.clear();
+			for (MessageEntry entry : messageEntries.values()) {
+				entry.position = orderedEntries.size();
+				orderedEntries.add(entry);
 			}
+			orderedEntriesDirty = false;
 		}
+		return orderedEntries;
+	}
 
-		return null;
+	/**
+	 * Parses entry's JSON into a new message object
+	 */
+	private @Nullable ApptentiveMessage hydrateMessage(MessageEntry entry) {
+		ApptentiveMessage apptentiveMessage = MessageFactory.fromJson(entry.json);
+		if (apptentiveMessage == null) {
+			ApptentiveLog.e(MESSAGES, "Error parsing Record json from database: %s", entry.json);
+			return null;
+		}
+		apptentiveMessage.setState(ApptentiveMessage.State.parse(entry.state));
+		apptentiveMessage.setRead(entry.isRead);
+		return apptentiveMessage;
+	}
+
+	private void resetCounters() {
+		unreadMessageCount = 0;
+		liveRecordsSize = 0;
+		lastReceivedMessageId = null;
+		lastReceivedMessageIdDirty = true;
+	}
+
+	private void rebuildCounters() {
+		resetCounters();
+		for (MessageEntry entry : messageEntries.values()) {
+			if (isUnread(entry)) {
+				++unreadMessageCount;
+			}
+			liveRecordsSize += entry.recordSize;
+		}
+	}
+
+	private static boolean isUnread(MessageEntry entry) {
+		return entry.id != null && !Boolean.TRUE.equals(entry.isRead);
+	}
+
+	private static @Nullable String getReceivedId(MessageEntry entry) {
+		return StringUtils.equal(entry.state, ApptentiveMessage.State.saved.name()) ? entry.id : null;
 	}
 
 	//endregion
@@ -217,15 +469,34 @@ class FileMessageStore implements MessageStore {
 
 	private synchronized void readFromFile() {
 		messageEntries.clear();
+		orderedEntriesDirty = true;
+		logSize = 0;
+		loadFailed = false;
+		unreadableRecordOffsets.clear();
 		try {
 			if (file.exists()) {
-				List<MessageEntry> entries = readFromFileGuarded();
-				messageEntries.addAll(entries);
+				if (isLogFile(file)) {
+					byte version = readFromLogGuarded();
+					if (version != LOG_VERSION && !loadFailed) {
+						writeToFileGuarded();
+						ApptentiveLog.d(MESSAGES, "Migrated %d message(s) to the log version %d", messageEntries.size(), LOG_VERSION);
+					}
+				} else {
+					// migrate from the legacy format
+					List<MessageEntry> entries = readFromFileGuarded();
+					for (MessageEntry entry : entries) {
+						messageEntries.put(entry.nonce, entry);
+					}
+					writeToFileGuarded();
+					ApptentiveLog.d(MESSAGES, "Migrated %d message(s) to the log storage", entries.size());
+				}
 			}
 		} catch (Exception e) {
 			ApptentiveLog.e(MESSAGES, e, "Exception while reading entries");
 			logException(e);
+			loadFailed = true;
 		}
+		rebuildCounters();
 	}
 
 	private List<MessageEntry> readFromFileGuarded() throws IOException, EncryptionException {
@@ -245,7 +516,237 @@ class FileMessageStore implements MessageStore {
 		return entries;
 	}
 
+	/**
+	 * Replays the log and builds the index. A partially written trailing record (the process was
+	 * killed mid-append) is moved to the quarantine file and cut off. A record which can't be
+	 * decrypted or parsed is skipped so it does not cost the rest of the log. A corrupted record
+	 * length can't be skipped: the records which were read are kept in memory and the file is left
+	 * as is (see {@link #loadFailed}).
+	 *
+	 * @return version of the log
+	 */
+	private byte readFromLogGuarded() throws IOException, EncryptionException {
+		long start = System.currentTimeMillis();
+		final long fileSize = file.length();
+
+		DataInputStream dis = null;
+		long offset = LOG_HEADER_SIZE;
+		byte version;
+		try {
+			dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			dis.skipBytes(LOG_MAGIC.length);
+			version = dis.readByte();
+			if (version != LOG_VERSION && version != LOG_VERSION_ENCRYPTED_RECORDS) {
+				throw new IOException("Unsupported log version: " + version);
+			}
+
+			while (offset + RECORD_LENGTH_SIZE <= fileSize) {
+				int length = dis.readInt();
+				if (length <= 0) {
+					// we can't find where the next record starts: don't lose the records after this one
+					ApptentiveLog.e(MESSAGES, "Corrupted message record length at offset %d: %d", offset, length);
+					loadFailed = true;
+					logSize = fileSize;
+					return version;
+				}
+				if (offset + RECORD_LENGTH_SIZE + length > fileSize) {
+					ApptentiveLog.w(MESSAGES, "Incomplete message record at offset %d", offset);
+					break;
+				}
+
+				byte[] record = new byte[length];
+				dis.readFully(record);
+				try {
+					if (version == LOG_VERSION) {
+						applyRecord(record, RECORD_LENGTH_SIZE + length);
+					} else {
+						applyEncryptedRecord(encryption.decrypt(record), RECORD_LENGTH_SIZE + length);
+					}
+				} catch (Exception e) {
+					ApptentiveLog.e(MESSAGES, e, "Unable to read message record at offset %d", offset);
+					logException(e);
+					unreadableRecordOffsets.add(offset);
+				}
+				offset += RECORD_LENGTH_SIZE + length;
+			}
+		} finally {
+			Util.ensureClosed(dis);
+		}
+
+		if (offset < fileSize) {
+			quarantineTail(offset);
+			truncateFile(offset);
+		}
+		logSize = offset;
+
+		ApptentiveLog.v(MESSAGES, "Messages loaded. Took %d ms", System.currentTimeMillis() - start);
+		return version;
+	}
+
+	/**
+	 * Copies unreadable records (in the same framing as the log) to the quarantine file for a
+	 * possible recovery before the log gets re-written without them
+	 */
+	private void quarantineUnreadableRecords() throws IOException {
+		if (unreadableRecordOffsets.isEmpty()) {
+			return;
+		}
+
+		RandomAccessFile input = null;
+		FileOutputStream stream = null;
+		try {
+			input = new RandomAccessFile(file, "r");
+			stream = new FileOutputStream(getQuarantineFile(), true);
+			DataOutputStream dos = new DataOutputStream(stream);
+			for (long offset : unreadableRecordOffsets) {
+				input.seek(offset);
+				byte[] encrypted = new byte[input.readInt()];
+				input.readFully(encrypted);
+				dos.writeInt(encrypted.length);
+				dos.write(encrypted);
+			}
+			dos.flush();
+			stream.getFD().sync();
+		} finally {
+			Util.ensureClosed(input);
+			Util.ensureClosed(stream);
+		}
+
+		ApptentiveLog.w(MESSAGES, "Moved %d unreadable message record(s) to: %s", unreadableRecordOffsets.size(), getQuarantineFile());
+		unreadableRecordOffsets.clear();
+	}
+
+	/**
+	 * Copies the bytes of the log starting at <code>offset</code> to the quarantine file (as a single
+	 * record) before they are cut off
+	 */
+	private void quarantineTail(long offset) throws IOException {
+		RandomAccessFile input = null;
+		FileOutputStream stream = null;
+		try {
+			input = new RandomAccessFile(file, "r");
+			byte[] tail = new byte[(int) (input.length() - offset)];
+			input.seek(offset);
+			input.readFully(tail);
+
+			stream = new FileOutputStream(getQuarantineFile(), true);
+			DataOutputStream dos = new DataOutputStream(stream);
+			dos.writeInt(tail.length);
+			dos.write(tail);
+			dos.flush();
+			stream.getFD().sync();
+
+			ApptentiveLog.w(MESSAGES, "Moved %d trailing byte(s) of the message log to: %s", tail.length, getQuarantineFile());
+		} finally {
+			Util.ensureClosed(input);
+			Util.ensureClosed(stream);
+		}
+	}
+
+	private File getQuarantineFile() {
+		return new File(file.getPath() + ".quarantine");
+	}
+
+	private void applyRecord(byte[] record, int recordSize) throws IOException, EncryptionException {
+		byte type = record[0];
+		byte[] body = Arrays.copyOfRange(record, RECORD_TYPE_SIZE, record.length);
+		switch (type) {
+			case RECORD_PUT:
+				putEntry(new DataInputStream(new ByteArrayInputStream(encryption.decrypt(body))), recordSize);
+				break;
+			case RECORD_DELETE:
+				messageEntries.remove(readNullableUTF(new DataInputStream(new ByteArrayInputStream(body))));
+				break;
+			default:
+				throw new IOException("Unexpected record type: " + type);
+		}
+	}
+
+	/**
+	 * Applies a record of the legacy log (the record type is encrypted along with the record)
+	 */
+	private void applyEncryptedRecord(byte[] record, int recordSize) throws IOException {
+		DataInputStream dis = new DataInputStream(new ByteArrayInputStream(record));
+		byte type = dis.readByte();
+		switch (type) {
+			case RECORD_PUT:
+				putEntry(dis, recordSize);
+				break;
+			case RECORD_DELETE:
+				messageEntries.remove(readNullableUTF(dis));
+				break;
+			default:
+				throw new IOException("Unexpected record type: " + type);
+		}
+	}
+
+	private void putEntry(DataInput in, int recordSize) throws IOException {
+		MessageEntry entry = new MessageEntry(in);
+		entry.recordSize = recordSize;
+		messageEntries.put(entry.nonce, entry);
+	}
+
+	/**
+	 * Appends records for the changed entries (and an optional tombstone) in a single write
+	 */
+	private synchronized void appendToFile(List<MessageEntry> entries, String deletedNonce) {
+		if (loadFailed) {
+			ApptentiveLog.w(MESSAGES, "Messages were not loaded: changes are kept in memory only");
+			return;
+		}
+
+		try {
+			appendToFileGuarded(entries, deletedNonce);
+		} catch (Exception e) {
+			ApptentiveLog.e(MESSAGES, e, "Exception while appending messages");
+			logException(e);
+		}
+
+		if (shouldCompact()) {
+			DispatchQueue.backgroundQueue().dispatchAsyncOnce(compactionTask);
+		}
+	}
+
+	private void appendToFileGuarded(List<MessageEntry> entries, String deletedNonce) throws IOException, EncryptionException {
+		if (logSize == 0) {
+			// no log yet: write a fresh one with every entry
+			writeToFileGuarded();
+			return;
+		}
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(bos);
+		for (MessageEntry entry : entries) {
+			int recordSize = writePutRecord(dos, entry);
+			liveRecordsSize += recordSize - entry.recordSize; // the previous record becomes garbage
+			entry.recordSize = recordSize;
+		}
+		if (deletedNonce != null) {
+			writeDeleteRecord(dos, deletedNonce);
+		}
+
+		// no fsync: this runs on the conversation queue and a torn trailing record is discarded on load
+		long start = System.currentTimeMillis();
+		FileOutputStream stream = null;
+		try {
+			stream = new FileOutputStream(file, true);
+			bos.writeTo(stream);
+		} finally {
+			Util.ensureClosed(stream);
+		}
+		logSize += bos.size();
+		ApptentiveLog.v(MESSAGES, "Messages appended (%d bytes). Took %d ms", bos.size(), System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Re-writes the whole log leaving only the current state of entries (compaction)
+	 */
 	private synchronized void writeToFile() {
+		if (loadFailed) {
+			ApptentiveLog.w(MESSAGES, "Messages were not loaded: changes are kept in memory only");
+			return;
+		}
+
 		try {
 			writeToFileGuarded();
 		} catch (Exception e) {
@@ -256,18 +757,76 @@ class FileMessageStore implements MessageStore {
 	}
 
 	private void writeToFileGuarded() throws IOException, EncryptionException {
+		quarantineUnreadableRecords();
+
 		ByteArrayOutputStream bos = new ByteArrayOutputStream();
 		DataOutputStream dos = new DataOutputStream(bos);
-		dos.writeByte(VERSION);
-		dos.writeInt(messageEntries.size());
-		for (MessageEntry entry : messageEntries) {
-			entry.writeExternal(dos);
+		dos.write(LOG_MAGIC);
+		dos.writeByte(LOG_VERSION);
+
+		long recordsSize = 0;
+		for (MessageEntry entry : messageEntries.values()) {
+			entry.recordSize = writePutRecord(dos, entry);
+			recordsSize += entry.recordSize;
 		}
 		long start = System.currentTimeMillis();
-		EncryptionHelper.writeToEncryptedFile(encryption, file, bos.toByteArray());
+		Util.writeAtomically(file, bos.toByteArray());
+		logSize = bos.size();
+		liveRecordsSize = recordsSize;
 		ApptentiveLog.v(MESSAGES, "Messages saved. Took %d ms", System.currentTimeMillis() - start);
 	}
 
+	private int writePutRecord(DataOutputStream dos, MessageEntry entry) throws IOException, EncryptionException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		entry.writeExternal(new DataOutputStream(bos));
+		return writeRecord(dos, RECORD_PUT, encryption.encrypt(bos.toByteArray()));
+	}
+
+	private static int writeDeleteRecord(DataOutputStream dos, String nonce) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		writeNullableUTF(new DataOutputStream(bos), nonce);
+		return writeRecord(dos, RECORD_DELETE, bos.toByteArray());
+	}
+
+	private static int writeRecord(DataOutputStream dos, byte type, byte[] body) throws IOException {
+		dos.writeInt(RECORD_TYPE_SIZE + body.length);
+		dos.writeByte(type);
+		dos.write(body);
+		return RECORD_LENGTH_SIZE + RECORD_TYPE_SIZE + body.length;
+	}
+
+	private boolean shouldCompact() {
+		if (!unreadableRecordOffsets.isEmpty()) {
+			return false; // don't move records to the quarantine unless we have to (they might become readable later)
+		}
+		long garbageSize = logSize - LOG_HEADER_SIZE - liveRecordsSize;
+		return garbageSize > COMPACTION_MIN_GARBAGE_SIZE && garbageSize > liveRecordsSize;
+	}
+
+	private void truncateFile(long size) throws IOException {
+		RandomAccessFile raf = null;
+		try {
+			raf = new RandomAccessFile(file, "rw");
+			raf.setLength(size);
+		} finally {
+			Util.ensureClosed(raf);
+		}
+	}
+
+	private static boolean isLogFile(File file) throws IOException {
+		DataInputStream dis = null;
+		try {
+			dis = new DataInputStream(new FileInputStream(file));
+			byte[] magic = new byte[LOG_MAGIC.length];
+			dis.readFully(magic);
+			return Arrays.equals(magic, LOG_MAGIC);
+		} catch (EOFException e) {
+			return false;
+		} finally {
+			Util.ensureClosed(dis);
+		}
+	}
+
 	//endregion
 
 	//region Filtering
@@ -278,18 +837,15 @@ class FileMessageStore implements MessageStore {
 	}
 
 	private MessageEntry findMessageEntry(String nonce) {
-		for (MessageEntry entry : messageEntries) {
-			if (StringUtils.equal(entry.nonce, nonce)) {
-				return entry;
-			}
-		}
-		return null;
+		return messageEntries.get(nonce);
 	}
 
-	void updateEncryption(@NonNull Encryption encryption) {
+	synchronized void updateEncryption(@NonNull Encryption encryption) {
 		if (encryption == null) {
 			throw new IllegalArgumentException("Encryption is null");
 		}
+
+		fetchEntries(); // entries should be read with the old encryption
 		this.encryption = encryption;
 
 		// update storage
@@ -308,6 +864,16 @@ class FileMessageStore implements MessageStore {
 		Boolean isRead;
 		String json;
 
+		/**
+		 * Size of the log record holding this entry's current state (not serialized)
+		 */
+		transient int recordSize;
+
+		/**
+		 * Index of the entry in the ordered entries snapshot (not serialized)
+		 */
+		transient int position;
+
 		MessageEntry() {
 		}
 
@@ -347,14 +913,28 @@ class FileMessageStore implements MessageStore {
 
 	//region Migration
 
-	public void migrateLegacyStorage() {
+	/**
+	 * Migrates the legacy storage (if any) and reads the messages index. Called from a background
+	 * thread while the conversation is loading so the conversation queue does not block on the disk.
+	 */
+	synchronized void preload() {
+		migrateLegacyStorage();
+		fetchEntries();
+	}
+
+	public synchronized void migrateLegacyStorage() {
 		try {
 			File unencryptedFile = Util.getUnencryptedFilename(file);
 			if (unencryptedFile.exists()) {
 				try {
 					List<MessageEntry> entries = readFromLegacyFile(unencryptedFile);
-					messageEntries.addAll(entries);
+					fetchEntries();
+					for (MessageEntry entry : entries) {
+						messageEntries.put(entry.nonce, entry);
+					}
+					orderedEntriesDirty = true;
 					writeToFile();
+					rebuildCounters();
 				} finally {
 					boolean deleted = unencryptedFile.delete();
 					ApptentiveLog.d(CONVERSATION, "Deleted legacy message storage: %b", deleted);
@@ -399,7 +979,7 @@ class FileMessageStore implements MessageStore {
 	public String toString() {
 		return "FileMessageStore{" +
 			       "file=" + file +
-			       ", messageEntries=" + messageEntries +
+			       ", messageEntries=" + messageEntries.values() +
 			       ", shouldFetchFromFile=" + shouldFetchFromFile +
 			       '}';
 	}
@@ -15,24 +15,64 @@ import com.apptentive.android.sdk.util.threading.DispatchQueueType;
 import com.apptentive.android.sdk.util.threading.DispatchTask;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FilenameFilter;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.apptentive.android.sdk.ApptentiveLogTag.UTIL;
 import static com.apptentive.android.sdk.util.Constants.LOG_FILE_EXT;
 import static com.apptentive.android.sdk.util.Constants.LOG_FILE_PREFIX;
 
+/**
+ * Writes log messages to files on a background queue.
+ * <pre>
+ *   - pending messages are kept in a bounded lock-free queue: when it's full the oldest messages
+ *     are dropped (and the number of dropped messages is written to the log later);
+ *   - messages are encoded into a reusable direct buffer and appended to a file channel which
+ *     stays open between writes;
+ *   - a new file is started when the current one gets too big or too old; the oldest files are
+ *     deleted to keep the file count and the total size within limits.
+ * </pre>
+ */
 public class AsyncLogWriter implements ApptentiveLog.LogListener {
 	/**
-	 * Initial buffer size for queued messages
+	 * Max number of messages waiting to be written (older messages are dropped)
+	 */
+	private static final int MAX_PENDING_MESSAGES = 1024;
+
+	/**
+	 * Size of the write buffer
+	 */
+	private static final int WRITE_BUFFER_SIZE = 8 * 1024;
+
+	/**
+	 * Log file is rotated when it gets bigger than this
+	 */
+	private static final long MAX_LOG_FILE_SIZE = 512 * 1024;
+
+	/**
+	 * Log file is rotated when it gets older than this
 	 */
-	private static final int MESSAGE_QUEUE_SIZE = 256;
+	private static final long MAX_LOG_FILE_AGE_MILLIS = 24 * 60 * 60 * 1000L;
 
-	/** Mutex object for operation synchronization */
-	private final Object mutex = new Object();
+	/**
+	 * Max size of all log files on the disk
+	 */
+	private static final long MAX_TOTAL_LOG_SIZE = 2 * 1024 * 1024;
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
 
 	/**
 	 * Dest directory for storing log files
@@ -45,10 +85,20 @@ public class AsyncLogWriter implements ApptentiveLog.LogListener {
 	private final int logHistorySize;
 
 	/**
-	 * Stores pending log message before they written to a log file
-	 * NOTE: this field should only be accessed withing a synchronized context
+	 * Stores pending log messages before they written to a log file
+	 */
+	private final Queue<PendingMessage> pendingMessages;
+
+	/**
+	 * Approximate size of the pending messages queue (<code>ConcurrentLinkedQueue.size()</code>
+	 * is O(n))
 	 */
-	private final List<String> pendingMessages;
+	private final AtomicInteger pendingMessagesCount;
+
+	/**
+	 * Number of messages dropped since the last write
+	 */
+	private final AtomicInteger droppedMessagesCount;
 
 	/**
 	 * Dispatch queue for writing logs in the background
@@ -81,7 +131,9 @@ public class AsyncLogWriter implements ApptentiveLog.LogListener {
 		this.logHistorySize = logHistorySize;
 		this.writeQueue = writeQueue;
 
-		pendingMessages = new ArrayList<>(MESSAGE_QUEUE_SIZE);
+		pendingMessages = new ConcurrentLinkedQueue<>();
+		pendingMessagesCount = new AtomicInteger();
+		droppedMessagesCount = new AtomicInteger();
 
 		File logFile = new File(destDir, createLogFilename());
 		ApptentiveLog.v(UTIL, "Log file: " + logFile);
@@ -101,78 +153,200 @@ public class AsyncLogWriter implements ApptentiveLog.LogListener {
 		return new DispatchTask() {
 			@Override
 			protected void execute() {
-				// list existing log files
-				File[] files = destDir.listFiles(new FilenameFilter() {
-					@Override
-					public boolean accept(File dir, String name) {
-						return name.endsWith(LOG_FILE_EXT);
-					}
-				});
-
-				// anything to clear?
-				if (files == null || files.length == 0) {
-					return;
-				}
-
-				// sort existing log files by modification date (newest come first)
-				Arrays.sort(files, new Comparator<File>() {
-					@Override
-					public int compare(File o1, File o2) {
-						// first we try to compare modification dates
-						int cmp = (int) (o2.lastModified() - o1.lastModified());
-						if (cmp != 0) {
-							return cmp;
-						}
-
-						// if for any reason they are the same - compare filenames
-						return o2.getName().compareTo(o1.getName());
-					}
-				});
-
-				// delete oldest files if the total count exceed the log history size
-				for (int i = logHistorySize - 1; i < files.length; ++i) {
-					files[i].delete();
-				}
+				// leave room for the new file
+				deleteOldLogFiles(logHistorySize - 1, null);
 			}
 		};
 	}
 
 	@Override
 	public void onLogMessage(@NonNull ApptentiveLog.Level level, @NonNull String message) {
-		synchronized (mutex) {
-			pendingMessages.add(level.getShortName() + ": " + message);
-			writeQueue.dispatchAsyncOnce(writeQueueTask);
+		pendingMessages.offer(new PendingMessage(level, message));
+
+		// drop the oldest messages if the writer can't keep up
+		if (pendingMessagesCount.incrementAndGet() > MAX_PENDING_MESSAGES) {
+			if (pendingMessages.poll() != null) {
+				pendingMessagesCount.decrementAndGet();
+				droppedMessagesCount.incrementAndGet();
+			}
+		}
+
+		writeQueue.dispatchAsyncOnce(writeQueueTask);
+	}
+
+	/**
+	 * Deletes the oldest log files so no more than <code>maxCount</code> files are left and their
+	 * total size does not exceed <code>MAX_TOTAL_LOG_SIZE</code>.
+	 *
+	 * @param currentFile - file which should never be deleted (or <code>null</code>)
+	 */
+	private void deleteOldLogFiles(int maxCount, File currentFile) {
+		// list existing log files
+		File[] files = destDir.listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.endsWith(LOG_FILE_EXT);
+			}
+		});
+
+		// anything to clear?
+		if (files == null || files.length == 0) {
+			return;
+		}
+
+		// sort existing log files by modification date (newest come first)
+		Arrays.sort(files, new Comparator<File>() {
+			@Override
+			public int compare(File o1, File o2) {
+				// first we try to compare modification dates
+				long cmp = o2.lastModified() - o1.lastModified();
+				if (cmp != 0) {
+					return cmp > 0 ? 1 : -1;
+				}
+
+				// if for any reason they are the same - compare filenames
+				return o2.getName().compareTo(o1.getName());
+			}
+		});
+
+		// delete oldest files if the total count or size exceed the limits
+		int count = 0;
+		long totalSize = 0;
+		for (File file : files) {
+			if (file.equals(currentFile)) {
+				continue;
+			}
+
+			totalSize += file.length();
+			if (++count > maxCount || totalSize > MAX_TOTAL_LOG_SIZE) {
+				file.delete();
+			}
+		}
+	}
+
+	private static class PendingMessage {
+		final ApptentiveLog.Level level;
+		final String message;
+
+		PendingMessage(ApptentiveLog.Level level, String message) {
+			this.level = level;
+			this.message = message;
 		}
 	}
 
 	private class LogFileWriteTask extends DispatchTask {
-		private final File file;
-		private final List<String> queuedMessagesTemp;
+		private final ByteBuffer buffer;
+		private final CharsetEncoder encoder;
+
+		private File file;
+		private FileChannel channel;
+		private long fileSize;
+		private long fileCreationTime;
 
 		private LogFileWriteTask(File file) {
 			if (file == null) {
 				throw new IllegalArgumentException("File is null");
 			}
 			this.file = file;
-			queuedMessagesTemp = new ArrayList<>(MESSAGE_QUEUE_SIZE);
+			buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+			encoder = UTF_8.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
 		}
 
 		@Override
 		protected void execute() {
-			// we don't want to acquire the mutex for too long so just copy pending messages
-			// to the temp list which would be used in a blocking IO
-			synchronized (mutex) {
-				queuedMessagesTemp.addAll(pendingMessages);
-				pendingMessages.clear();
-			}
-
 			try {
-				Util.writeText(file, queuedMessagesTemp, true);
+				if (channel == null) {
+					openChannel();
+				}
+
+				int droppedCount = droppedMessagesCount.getAndSet(0);
+				if (droppedCount > 0) {
+					writeMessage(ApptentiveLog.Level.WARN, "Dropped " + droppedCount + " log message(s)");
+				}
+
+				PendingMessage pendingMessage;
+				while ((pendingMessage = pendingMessages.poll()) != null) {
+					pendingMessagesCount.decrementAndGet();
+					writeMessage(pendingMessage.level, pendingMessage.message);
+				}
+				flushBuffer();
+
+				if (fileSize > MAX_LOG_FILE_SIZE || System.currentTimeMillis() - fileCreationTime > MAX_LOG_FILE_AGE_MILLIS) {
+					rotate();
+				}
 			} catch (Exception e) {
+				buffer.clear();
+				closeChannel(); // would re-open on the next write
 				ApptentiveLog.e(e, "Exception while writing log file: " + destDir);
 				ErrorMetrics.logException(e);
 			}
-			queuedMessagesTemp.clear();
+		}
+
+		private void openChannel() throws IOException {
+			channel = new FileOutputStream(file, true).getChannel();
+			fileSize = channel.size();
+			fileCreationTime = System.currentTimeMillis();
+		}
+
+		private void closeChannel() {
+			if (channel != null) {
+				try {
+					channel.close();
+				} catch (IOException ignored) {
+				}
+				channel = null;
+			}
+		}
+
+		private void rotate() throws IOException {
+			closeChannel();
+
+			file = createNextLogFile();
+			openChannel();
+
+			deleteOldLogFiles(logHistorySize - 1, file);
+		}
+
+		private File createNextLogFile() {
+			String filename = createLogFilename();
+			File nextFile = new File(destDir, filename);
+
+			// log files are named after the current time (up to a second)
+			String basename = filename.substring(0, filename.length() - LOG_FILE_EXT.length());
+			for (int i = 1; nextFile.exists(); ++i) {
+				nextFile = new File(destDir, basename + "-" + i + LOG_FILE_EXT);
+			}
+			return nextFile;
+		}
+
+		private void writeMessage(ApptentiveLog.Level level, String message) throws IOException {
+			writeText(level.getShortName());
+			writeText(": ");
+			writeText(message);
+			writeText("\n");
+		}
+
+		private void writeText(String text) throws IOException {
+			CharBuffer chars = CharBuffer.wrap(text);
+			encoder.reset();
+			while (true) {
+				CoderResult result = encoder.encode(chars, buffer, true);
+				if (result.isOverflow()) {
+					flushBuffer();
+					continue;
+				}
+				break;
+			}
+		}
+
+		private void flushBuffer() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				fileSize += channel.write(buffer);
+			}
+			buffer.clear();
 		}
 	}
 }
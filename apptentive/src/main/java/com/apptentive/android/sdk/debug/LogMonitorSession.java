@@ -15,6 +15,7 @@ import android.content.pm.PackageManager;
 import android.os.Build;
 
 import com.apptentive.android.sdk.ApptentiveLog;
+import com.apptentive.android.sdk.network.HttpRequestManager;
 import com.apptentive.android.sdk.util.Constants;
 import com.apptentive.android.sdk.util.StringUtils;
 import com.apptentive.android.sdk.util.threading.DispatchQueue;
@@ -28,6 +29,7 @@ import java.util.List;
 import java.util.Locale;
 
 import static com.apptentive.android.sdk.ApptentiveHelper.checkConversationQueue;
+import static com.apptentive.android.sdk.ApptentiveHelper.conversationQueue;
 import static com.apptentive.android.sdk.ApptentiveLog.Level.VERBOSE;
 import static com.apptentive.android.sdk.ApptentiveLogTag.TROUBLESHOOT;
 import static com.apptentive.android.sdk.debug.Assert.assertNotNull;
@@ -50,6 +52,7 @@ class LogMonitorSession {
 	boolean restored;
 
 	private ApptentiveLog.Level oldLogLevel;
+	private ApptentiveLog.Level oldFileLogLevel;
 
 	//region Lifecycle
 
@@ -58,7 +61,15 @@ class LogMonitorSession {
 
 		ApptentiveLog.i(TROUBLESHOOT, "Overriding log level: " + VERBOSE);
 		oldLogLevel = ApptentiveLog.getLogLevel();
+		oldFileLogLevel = ApptentiveLog.getFileLogLevel();
 		ApptentiveLog.overrideLogLevel(VERBOSE);
+		ApptentiveLog.overrideFileLogLevel(VERBOSE);
+
+		// trace spans are exported into the log files
+		Tracing.setEnabled(true);
+
+		// queue statistics are exported into the log files when the session stops
+		DispatchQueue.setMetricsEnabled(true);
 
 		// show debug notification
 		showDebugNotification(context);
@@ -69,6 +80,18 @@ class LogMonitorSession {
 		if (oldLogLevel != null) {
 			ApptentiveLog.overrideLogLevel(oldLogLevel);
 		}
+		if (oldFileLogLevel != null) {
+			ApptentiveLog.overrideFileLogLevel(oldFileLogLevel);
+		}
+
+		Tracing.setEnabled(false);
+		Tracing.export();
+
+		DispatchQueue.setMetricsEnabled(false);
+		ApptentiveLog.i(TROUBLESHOOT, "Conversation queue metrics: %s", conversationQueue().getMetrics());
+
+		// aggregated HTTP metrics go into the log files as well
+		HttpRequestManager.sharedManager().exportMetrics();
 	}
 
 	private void showDebugNotification(final Context context) {
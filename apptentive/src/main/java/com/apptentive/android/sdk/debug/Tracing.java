@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) 2018, Apptentive, Inc. All Rights Reserved.
+ * Please refer to the LICENSE file for the terms and conditions
+ * under which redistribution and use of this file is permitted.
+ */
+
+package com.apptentive.android.sdk.debug;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.apptentive.android.sdk.ApptentiveLog;
+import com.apptentive.android.sdk.util.threading.DispatchQueue;
+import com.apptentive.android.sdk.util.threading.DispatchTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.apptentive.android.sdk.ApptentiveLogTag.TRACING;
+
+/**
+ * Lightweight performance tracing. Finished spans are recorded into a bounded lock-free buffer
+ * and periodically handed over to an <code>{@link Exporter}</code> on a background queue (the
+ * default one writes them into the log which ends up in the troubleshooting log files).
+ * <p/>
+ * Disabled by default: while disabled <code>startSpan</code> returns a shared no-op span so the
+ * instrumentation does not allocate.
+ * <pre>
+ *   Tracing.Span span = Tracing.startSpan("engage", eventName);
+ *   try {
+ *     ...
+ *   } finally {
+ *     span.end();
+ *   }
+ * </pre>
+ */
+public final class Tracing {
+	/**
+	 * Parent id of the root spans
+	 */
+	public static final long NO_PARENT = 0;
+
+	/**
+	 * Max number of finished spans waiting to be exported (older spans are dropped)
+	 */
+	private static final int MAX_PENDING_SPANS = 512;
+
+	/**
+	 * Number of pending spans which triggers the export
+	 */
+	private static final int EXPORT_THRESHOLD = 64;
+
+	/**
+	 * All span timestamps are relative to this moment
+	 */
+	private static final long START_TIME_NANOS = System.nanoTime();
+
+	private static final Span NOOP_SPAN = new Span(NO_PARENT, NO_PARENT, "noop", null, false);
+
+	private static final ThreadLocal<Span> CURRENT_SPAN = new ThreadLocal<>();
+
+	private static final AtomicLong nextSpanId = new AtomicLong(1);
+	private static final Queue<Span> pendingSpans = new ConcurrentLinkedQueue<>();
+	private static final AtomicInteger pendingSpansCount = new AtomicInteger();
+	private static final AtomicInteger droppedSpansCount = new AtomicInteger();
+
+	private static final DispatchTask exportTask = new DispatchTask() {
+		@Override
+		protected void execute() {
+			export();
+		}
+	};
+
+	private static volatile boolean enabled;
+	private static volatile Exporter exporter = new LogExporter();
+
+	private Tracing() {
+	}
+
+	//region Spans
+
+	/**
+	 * Starts a span which becomes a child of the current span of this thread (if any). The span
+	 * becomes current until ended and should be ended on the same thread.
+	 */
+	public static @NonNull Span startSpan(@NonNull String name, @Nullable Object detail) {
+		if (!enabled) {
+			return NOOP_SPAN;
+		}
+
+		Span parent = currentSpan();
+		return startSpan(name, detail, parent != null ? parent.id : NO_PARENT);
+	}
+
+	/**
+	 * Starts a span with explicit parent (use for the work handed over from a different thread).
+	 * The span becomes current until ended and should be ended on the same thread.
+	 */
+	public static @NonNull Span startSpan(@NonNull String name, @Nullable Object detail, long parentId) {
+		if (!enabled) {
+			return NOOP_SPAN;
+		}
+
+		Span span = new Span(nextSpanId.getAndIncrement(), parentId, name, detail, true);
+		span.previous = currentSpan();
+		CURRENT_SPAN.set(span);
+		return span;
+	}
+
+	/**
+	 * Starts a span which becomes a child of the current span of this thread (if any) but does not
+	 * become current itself. It can be ended on any thread.
+	 */
+	public static @NonNull Span startAsyncSpan(@NonNull String name, @Nullable Object detail) {
+		if (!enabled) {
+			return NOOP_SPAN;
+		}
+
+		Span parent = currentSpan();
+		return new Span(nextSpanId.getAndIncrement(), parent != null ? parent.id : NO_PARENT, name, detail, false);
+	}
+
+	/**
+	 * Returns the id of the current span of this thread (or <code>{@link #NO_PARENT}</code>)
+	 */
+	public static long currentSpanId() {
+		if (!enabled) {
+			return NO_PARENT;
+		}
+
+		Span span = currentSpan();
+		return span != null ? span.id : NO_PARENT;
+	}
+
+	private static @Nullable Span currentSpan() {
+		// skip spans which were not properly ended
+		Span span = CURRENT_SPAN.get();
+		while (span != null && span.isEnded()) {
+			span = span.previous;
+		}
+		return span;
+	}
+
+	private static void onSpanEnded(Span span) {
+		if (span.current && CURRENT_SPAN.get() == span) {
+			CURRENT_SPAN.set(span.previous);
+		}
+		span.previous = null;
+
+		pendingSpans.offer(span);
+		int count = pendingSpansCount.incrementAndGet();
+
+		// drop the oldest spans if the exporter can't keep up
+		if (count > MAX_PENDING_SPANS) {
+			if (pendingSpans.poll() != null) {
+				pendingSpansCount.decrementAndGet();
+				droppedSpansCount.incrementAndGet();
+			}
+		}
+
+		if (count >= EXPORT_THRESHOLD) {
+			DispatchQueue.backgroundQueue().dispatchAsyncOnce(exportTask);
+		}
+	}
+
+	//endregion
+
+	//region Export
+
+	/**
+	 * Hands all the pending spans to the exporter on the calling thread
+	 */
+	public static void export() {
+		List<Span> spans = new ArrayList<>(pendingSpansCount.get());
+		Span span;
+		while ((span = pendingSpans.poll()) != null) {
+			pendingSpansCount.decrementAndGet();
+			spans.add(span);
+		}
+
+		int droppedCount = droppedSpansCount.getAndSet(0);
+		if (droppedCount > 0) {
+			ApptentiveLog.w(TRACING, "Dropped %d trace span(s)", droppedCount);
+		}
+
+		if (spans.size() > 0) {
+			try {
+				exporter.export(spans);
+			} catch (Exception e) {
+				ApptentiveLog.e(TRACING, e, "Exception while exporting trace spans");
+				ErrorMetrics.logException(e);
+			}
+		}
+	}
+
+	//endregion
+
+	//region Getters/Setters
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static void setEnabled(boolean enabled) {
+		Tracing.enabled = enabled;
+	}
+
+	/**
+	 * Overrides the span exporter (<code>null</code> restores the default one)
+	 */
+	public static void setExporter(@Nullable Exporter exporter) {
+		Tracing.exporter = exporter != null ? exporter : new LogExporter();
+	}
+
+	//endregion
+
+	//region Span
+
+	public static final class Span {
+		private final long id;
+		private final long parentId;
+		private final String name;
+		private final Object detail;
+		private final String threadName;
+		private final long startTimeNanos;
+		private volatile long endTimeNanos;
+
+		/**
+		 * True if span was made current on the starting thread
+		 */
+		private final boolean current;
+
+		/**
+		 * Previous current span of the starting thread
+		 */
+		private Span previous;
+
+		private Span(long id, long parentId, String name, Object detail, boolean current) {
+			this.id = id;
+			this.parentId = parentId;
+			this.name = name;
+			this.detail = detail;
+			this.current = current;
+			this.threadName = id != NO_PARENT ? Thread.currentThread().getName() : null;
+			this.startTimeNanos = System.nanoTime();
+		}
+
+		/**
+		 * Ends the span (only the first call has any effect)
+		 */
+		public void end() {
+			if (id == NO_PARENT || endTimeNanos != 0) {
+				return;
+			}
+
+			endTimeNanos = Math.max(1, System.nanoTime());
+			onSpanEnded(this);
+		}
+
+		public long getId() {
+			return id;
+		}
+
+		public long getParentId() {
+			return parentId;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public @Nullable Object getDetail() {
+			return detail;
+		}
+
+		public String getThreadName() {
+			return threadName;
+		}
+
+		/**
+		 * Monotonic start time (relative to the tracing facility start)
+		 */
+		public long getStartTimeMicros() {
+			return TimeUnit.NANOSECONDS.toMicros(startTimeNanos - START_TIME_NANOS);
+		}
+
+		public long getDurationMicros() {
+			return isEnded() ? TimeUnit.NANOSECONDS.toMicros(endTimeNanos - startTimeNanos) : 0;
+		}
+
+		public boolean isEnded() {
+			return endTimeNanos != 0;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("#%d (parent #%d) %s%s [%s] start=%dus duration=%dus",
+				id, parentId, name, detail != null ? " '" + detail + "'" : "", threadName,
+				getStartTimeMicros(), getDurationMicros());
+		}
+	}
+
+	//endregion
+
+	//region Exporter
+
+	public interface Exporter {
+		/**
+		 * Called on a background thread with a batch of finished spans
+		 */
+		void export(@NonNull List<Span> spans);
+	}
+
+	/**
+	 * Writes spans into the log (and the troubleshooting log files)
+	 */
+	private static class LogExporter implements Exporter {
+		@Override
+		public void export(@NonNull List<Span> spans) {
+			for (Span span : spans) {
+				ApptentiveLog.d(TRACING, "Span %s", span);
+			}
+		}
+	}
+
+	//endregion
+}
@@ -5,24 +5,20 @@ import androidx.annotation.NonNull;
 import com.apptentive.android.sdk.Encryption;
 import com.apptentive.android.sdk.util.StringUtils;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.security.Key;
 import java.security.SecureRandom;
 
 import javax.crypto.Cipher;
-import javax.crypto.CipherInputStream;
-import javax.crypto.CipherOutputStream;
 import javax.crypto.spec.IvParameterSpec;
 
 import static com.apptentive.android.sdk.util.ObjectUtils.isNullOrEmpty;
 
 /**
- * AES CBC encryption implementation
+ * AES CBC encryption implementation. Used for payload encryption (server-provided key) and as a
+ * legacy fallback for the on-device storage encrypted before {@link AesGcmEncryption} was introduced.
  */
 class AesCBCEncryption implements Encryption {
 
-	private static final int CIPHER_CHUNK = 512;
 	private static final int IV_LENGTH = 16;
 
 	private final Key key;
@@ -48,32 +44,17 @@ class AesCBCEncryption implements Encryption {
 				return data;
 			}
 
-			final Cipher cipher = Cipher.getInstance(transformation);
+			final Cipher cipher = CipherCache.getCipher(transformation);
 
 			byte[] iv = new byte[IV_LENGTH];
 			secureRandom.nextBytes(iv);
 			cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
 
-			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-			buffer.write(iv);
-
-			CipherOutputStream stream = null;
-			try {
-				stream = new CipherOutputStream(buffer, cipher);
-
-				int off = 0;
-				while (off < data.length) {
-					int len = Math.min(CIPHER_CHUNK, data.length - off);
-					stream.write(data, off, len);
-					off += len;
-				}
-			} finally {
-				if (stream != null) {
-					stream.close();
-				}
-			}
-
-			return buffer.toByteArray();
+			// the whole buffer is encrypted in a single pass: the output is [IV][cipher text]
+			byte[] output = new byte[IV_LENGTH + cipher.getOutputSize(data.length)];
+			System.arraycopy(iv, 0, output, 0, IV_LENGTH);
+			int length = cipher.doFinal(data, 0, data.length, output, IV_LENGTH);
+			return trim(output, IV_LENGTH + length);
 		} catch (Exception e) {
 			throw new EncryptionException(e);
 		}
@@ -86,36 +67,29 @@ class AesCBCEncryption implements Encryption {
 				return encryptedData;
 			}
 
-			ByteArrayInputStream input = new ByteArrayInputStream(encryptedData);
-
-			byte[] iv = new byte[IV_LENGTH];
-			if (input.read(iv) != IV_LENGTH) {
+			if (encryptedData.length < IV_LENGTH) {
 				throw new EncryptionException("Unable to read initialization vector");
 			}
 
-			final Cipher cipher = Cipher.getInstance(transformation);
-			cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(iv));
-
-			ByteArrayOutputStream output = new ByteArrayOutputStream();
-
-			CipherInputStream stream = null;
-			try {
-				stream = new CipherInputStream(input, cipher);
+			final Cipher cipher = CipherCache.getCipher(transformation);
+			cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(encryptedData, 0, IV_LENGTH));
 
-				int bytesRead;
-				byte[] temp = new byte[CIPHER_CHUNK];
-				while ((bytesRead = stream.read(temp)) != -1) {
-					output.write(temp, 0, bytesRead);
-				}
-			} finally {
-				if (stream != null) {
-					stream.close();
-				}
-			}
-
-			return output.toByteArray();
+			byte[] output = new byte[cipher.getOutputSize(encryptedData.length - IV_LENGTH)];
+			int length = cipher.doFinal(encryptedData, IV_LENGTH, encryptedData.length - IV_LENGTH, output, 0);
+			return trim(output, length);
+		} catch (EncryptionException e) {
+			throw e;
 		} catch (Exception e) {
 			throw new EncryptionException(e);
 		}
 	}
+
+	static byte[] trim(byte[] buffer, int length) {
+		if (buffer.length == length) {
+			return buffer;
+		}
+		byte[] result = new byte[length];
+		System.arraycopy(buffer, 0, result, 0, length);
+		return result;
+	}
 }
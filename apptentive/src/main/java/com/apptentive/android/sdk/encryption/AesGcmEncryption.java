@@ -0,0 +1,142 @@
+package com.apptentive.android.sdk.encryption;
+
+import android.os.Build;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+
+import com.apptentive.android.sdk.Encryption;
+import com.apptentive.android.sdk.util.StringUtils;
+
+import java.security.Key;
+import java.security.SecureRandom;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+
+import static com.apptentive.android.sdk.util.ObjectUtils.isNullOrEmpty;
+
+/**
+ * AES GCM (authenticated) encryption implementation. Encrypted data has the following layout:
+ * <pre>
+ * [FORMAT_MAGIC (4 bytes)][FORMAT_VERSION][IV (12 bytes)][cipher text + authentication tag (16 bytes)]
+ * </pre>
+ * Data which does not have the format marker is treated as legacy AES CBC data and decrypted with
+ * the <code>legacyEncryption</code> (if any). Such data would be transparently re-encrypted with GCM
+ * the next time it's written. Data with the marker is never handed to the legacy encryption: if it
+ * fails authentication the decryption fails. The same goes for data whose marker is only a few bits
+ * off: that's a damaged GCM header and legacy CBC decryption (no authentication) might turn it into garbage.
+ */
+@RequiresApi(api = Build.VERSION_CODES.KITKAT)
+class AesGcmEncryption implements Encryption {
+
+	/**
+	 * Legacy data starts with a random IV so the marker is long enough to make an accidental match
+	 * negligible (2^-40)
+	 */
+	private static final byte[] FORMAT_MAGIC = { 'A', 'P', 'T', 'G' };
+	private static final byte FORMAT_VERSION = 1;
+	private static final int IV_LENGTH = 12;
+	private static final int TAG_LENGTH_BITS = 128;
+	private static final int IV_OFFSET = FORMAT_MAGIC.length + 1;
+	private static final int HEADER_LENGTH = IV_OFFSET + IV_LENGTH;
+
+	/**
+	 * Max number of bits the format marker may differ by to be treated as a damaged GCM header rather
+	 * than a legacy IV (a random IV is that close to the marker with a negligible probability: ~2^-30)
+	 */
+	private static final int MAX_MARKER_BIT_ERRORS = 2;
+
+	private final Key key;
+	private final String transformation;
+	private final @Nullable Encryption legacyEncryption;
+	private final SecureRandom secureRandom = new SecureRandom();
+
+	AesGcmEncryption(Key key, String transformation, @Nullable Encryption legacyEncryption) {
+		if (key == null) {
+			throw new IllegalArgumentException("Key is null");
+		}
+		if (StringUtils.isNullOrEmpty(transformation)) {
+			throw new IllegalArgumentException("Transformation is null or empty");
+		}
+
+		this.key = key;
+		this.transformation = transformation;
+		this.legacyEncryption = legacyEncryption;
+	}
+
+	@Override
+	public @NonNull byte[] encrypt(@NonNull byte[] data) throws EncryptionException {
+		try {
+			if (isNullOrEmpty(data)) {
+				return data;
+			}
+
+			final Cipher cipher = CipherCache.getCipher(transformation);
+
+			byte[] iv = new byte[IV_LENGTH];
+			secureRandom.nextBytes(iv);
+			cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+
+			byte[] output = new byte[HEADER_LENGTH + cipher.getOutputSize(data.length)];
+			System.arraycopy(FORMAT_MAGIC, 0, output, 0, FORMAT_MAGIC.length);
+			output[FORMAT_MAGIC.length] = FORMAT_VERSION;
+			System.arraycopy(iv, 0, output, IV_OFFSET, IV_LENGTH);
+			int length = cipher.doFinal(data, 0, data.length, output, HEADER_LENGTH);
+			return AesCBCEncryption.trim(output, HEADER_LENGTH + length);
+		} catch (Exception e) {
+			throw new EncryptionException(e);
+		}
+	}
+
+	@Override
+	public @NonNull byte[] decrypt(@NonNull byte[] encryptedData) throws EncryptionException {
+		if (isNullOrEmpty(encryptedData)) {
+			return encryptedData;
+		}
+
+		int markerBitErrors = getMarkerBitErrors(encryptedData);
+		if (markerBitErrors > MAX_MARKER_BIT_ERRORS) {
+			return decryptLegacy(encryptedData);
+		}
+		if (markerBitErrors > 0) {
+			throw new EncryptionException("Data format marker is corrupted");
+		}
+
+		try {
+			final Cipher cipher = CipherCache.getCipher(transformation);
+			cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, encryptedData, IV_OFFSET, IV_LENGTH));
+
+			byte[] output = new byte[cipher.getOutputSize(encryptedData.length - HEADER_LENGTH)];
+			int length = cipher.doFinal(encryptedData, HEADER_LENGTH, encryptedData.length - HEADER_LENGTH, output, 0);
+			return AesCBCEncryption.trim(output, length);
+		} catch (AEADBadTagException e) {
+			throw new EncryptionException("Data authentication failed", e);
+		} catch (Exception e) {
+			throw new EncryptionException(e);
+		}
+	}
+
+	private @NonNull byte[] decryptLegacy(byte[] encryptedData) throws EncryptionException {
+		if (legacyEncryption == null) {
+			throw new EncryptionException("Unknown encrypted data format");
+		}
+		return legacyEncryption.decrypt(encryptedData);
+	}
+
+	/**
+	 * Returns the number of bits the format marker (magic and version) of the data differs by from the
+	 * expected one or <code>Integer.MAX_VALUE</code> if the data is too short to be GCM-encrypted
+	 */
+	private static int getMarkerBitErrors(byte[] data) {
+		if (data.length <= HEADER_LENGTH) {
+			return Integer.MAX_VALUE;
+		}
+		int bitErrors = Integer.bitCount((data[FORMAT_MAGIC.length] ^ FORMAT_VERSION) & 0xff);
+		for (int i = 0; i < FORMAT_MAGIC.length; ++i) {
+			bitErrors += Integer.bitCount((data[i] ^ FORMAT_MAGIC[i]) & 0xff);
+		}
+		return bitErrors;
+	}
+}
@@ -0,0 +1,38 @@
+package com.apptentive.android.sdk.encryption;
+
+import androidx.annotation.NonNull;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+
+/**
+ * Per-thread cache of {@link Cipher} instances. <code>Cipher.getInstance()</code> performs a
+ * provider lookup on every call which is expensive for small payloads. Cipher objects are not
+ * thread-safe so each thread keeps its own instance for every transformation. Callers must
+ * always re-initialize the cipher before using it.
+ */
+final class CipherCache {
+	private static final ThreadLocal<Map<String, Cipher>> CIPHERS = new ThreadLocal<Map<String, Cipher>>() {
+		@Override
+		protected Map<String, Cipher> initialValue() {
+			return new HashMap<>();
+		}
+	};
+
+	private CipherCache() {
+	}
+
+	static @NonNull Cipher getCipher(@NonNull String transformation) throws NoSuchPaddingException, NoSuchAlgorithmException {
+		Map<String, Cipher> ciphers = CIPHERS.get();
+		Cipher cipher = ciphers.get(transformation);
+		if (cipher == null) {
+			cipher = Cipher.getInstance(transformation);
+			ciphers.put(transformation, cipher);
+		}
+		return cipher;
+	}
+}
@@ -1,5 +1,6 @@
 package com.apptentive.android.sdk.encryption;
 
+import android.os.Build;
 import androidx.annotation.NonNull;
 
 import com.apptentive.android.sdk.Encryption;
@@ -10,6 +11,11 @@ import static com.apptentive.android.sdk.util.ObjectUtils.isNullOrEmpty;
 public class EncryptionFactory {
 	public static final @NonNull Encryption NULL = new NullEncryption();
 
+	/**
+	 * Transformation used to decrypt the data stored before authenticated encryption was introduced
+	 */
+	static final String LEGACY_TRANSFORMATION = "AES/CBC/PKCS7Padding";
+
 	public static @NonNull Encryption wrapNullSafe(@NonNull Encryption encryption) {
 		if (encryption == null) {
 			throw new IllegalArgumentException("Encryption is null");
@@ -35,7 +41,16 @@ public class EncryptionFactory {
 			return new AesCBCEncryption(key.getSecretKey(), key.getTransformation());
 		}
 
-		throw new IllegalArgumentException("Unsupported transformation: '" + transformation + "'");
+		if (algorithm.equals("AES") && mode.equals("GCM")) {
+			if (Build.VERSION.SDK_INT < Build.VERSION_CODES.KITKAT) {
+				throw new IllegalArgumentException("Transformation requires API level 19: '" + key.getTransformation() + "'");
+			}
+			// existing storage might still be encrypted with CBC: keep it readable until it's re-written
+			Encryption legacyEncryption = new AesCBCEncryption(key.getSecretKey(), LEGACY_TRANSFORMATION);
+			return new AesGcmEncryption(key.getSecretKey(), key.getTransformation(), legacyEncryption);
+		}
+
+		throw new IllegalArgumentException("Unsupported transformation: '" + key.getTransformation() + "'");
 	}
 
 	/**
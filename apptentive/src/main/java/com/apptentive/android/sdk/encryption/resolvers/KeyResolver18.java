@@ -44,7 +44,8 @@ import static com.apptentive.android.sdk.ApptentiveLogTag.SECURITY;
 	private static final String DEFAULT_KEY_ALGORITHM = "AES";
 	private static final String WRAPPER_KEY_ALGORITHM = "RSA";
 
-	private static final String DEFAULT_TRANSFORMATION = "AES/CBC/PKCS7Padding";
+	private static final String DEFAULT_TRANSFORMATION = "AES/GCM/NoPadding";
+	private static final String LEGACY_TRANSFORMATION = "AES/CBC/PKCS7Padding";
 	private static final String WRAPPER_TRANSFORMATION = "RSA/ECB/PKCS1Padding";
 
 	private static final String KEYSTORE_PROVIDER = "AndroidKeyStore";
@@ -64,7 +65,9 @@ import static com.apptentive.android.sdk.ApptentiveLogTag.SECURITY;
 	                                                                                  InvalidKeyException,
 	                                                                                  IllegalBlockSizeException {
 		SecretKey secretKey = resolveSymmetricKey(context, keyAlias);
-		return new EncryptionKey(secretKey, DEFAULT_TRANSFORMATION);
+		// the key is a plain software key so it can be used with any block mode: GCM requires API level 19
+		String transformation = Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT ? DEFAULT_TRANSFORMATION : LEGACY_TRANSFORMATION;
+		return new EncryptionKey(secretKey, transformation);
 	}
 
 	//region Keys
@@ -3,11 +3,13 @@ package com.apptentive.android.sdk.encryption.resolvers;
 import android.content.Context;
 import android.os.Build;
 import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyInfo;
 import android.security.keystore.KeyProperties;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
 
+import com.apptentive.android.sdk.ApptentiveLog;
 import com.apptentive.android.sdk.encryption.EncryptionKey;
 import com.apptentive.android.sdk.util.ObjectUtils;
 
@@ -22,10 +24,14 @@ import java.security.cert.CertificateException;
 
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+
+import static com.apptentive.android.sdk.ApptentiveLogTag.SECURITY;
 
 @RequiresApi(api = Build.VERSION_CODES.M)
 class KeyResolver23 implements KeyResolver {
-	private static final String CIPHER_TRANSFORMATION = "AES/CBC/PKCS7Padding";
+	private static final String CIPHER_TRANSFORMATION = "AES/GCM/NoPadding";
+	private static final String LEGACY_CIPHER_TRANSFORMATION = "AES/CBC/PKCS7Padding";
 	private static final String KEYSTORE_PROVIDER = "AndroidKeyStore";
 
 	@Override
@@ -37,7 +43,29 @@ class KeyResolver23 implements KeyResolver {
                                                                                     NoSuchProviderException,
                                                                                     InvalidAlgorithmParameterException {
 		SecretKey secretKey = resolveSecretKey(keyAlias);
-		return new EncryptionKey(secretKey, CIPHER_TRANSFORMATION);
+		return new EncryptionKey(secretKey, supportsGcm(secretKey) ? CIPHER_TRANSFORMATION : LEGACY_CIPHER_TRANSFORMATION);
+	}
+
+	/**
+	 * Key store keys are bound to the block modes they were generated with: keys created by older
+	 * SDK versions only allow CBC and would keep using it.
+	 */
+	private static boolean supportsGcm(SecretKey secretKey) {
+		try {
+			SecretKeyFactory factory = SecretKeyFactory.getInstance(secretKey.getAlgorithm(), KEYSTORE_PROVIDER);
+			KeyInfo keyInfo = (KeyInfo) factory.getKeySpec(secretKey, KeyInfo.class);
+			String[] blockModes = keyInfo.getBlockModes();
+			if (blockModes != null) {
+				for (String blockMode : blockModes) {
+					if (KeyProperties.BLOCK_MODE_GCM.equals(blockMode)) {
+						return true;
+					}
+				}
+			}
+		} catch (Exception e) {
+			ApptentiveLog.w(SECURITY, e, "Unable to resolve secret key block modes");
+		}
+		return false;
 	}
 
 	private SecretKey resolveSecretKey(String keyAlias) throws CertificateException, NoSuchAlgorithmException, IOException, UnrecoverableEntryException, KeyStoreException, NoSuchProviderException, InvalidAlgorithmParameterException {
@@ -65,8 +93,8 @@ class KeyResolver23 implements KeyResolver {
 	                                                      InvalidAlgorithmParameterException {
 		KeyGenerator keyGenerator = KeyGenerator.getInstance(KeyProperties.KEY_ALGORITHM_AES, KEYSTORE_PROVIDER);
 		keyGenerator.init(new KeyGenParameterSpec.Builder(keyAlias, KeyProperties.PURPOSE_ENCRYPT | KeyProperties.PURPOSE_DECRYPT)
-			                  .setBlockModes(KeyProperties.BLOCK_MODE_CBC)
-			                  .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_PKCS7)
+			                  .setBlockModes(KeyProperties.BLOCK_MODE_GCM, KeyProperties.BLOCK_MODE_CBC)
+			                  .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_NONE, KeyProperties.ENCRYPTION_PADDING_PKCS7)
 			                  .setRandomizedEncryptionRequired(false) // we need that to make our custom IV work
 			                  .build());
 
@@ -6,6 +6,8 @@
 
 package com.apptentive.android.sdk.model;
 
+import android.graphics.Bitmap;
+
 import androidx.annotation.NonNull;
 
 import com.apptentive.android.sdk.ApptentiveInternal;
@@ -14,6 +16,7 @@ import com.apptentive.android.sdk.Encryption;
 import com.apptentive.android.sdk.debug.ErrorMetrics;
 import com.apptentive.android.sdk.module.messagecenter.model.MessageCenterUtil;
 import com.apptentive.android.sdk.network.HttpRequestMethod;
+import com.apptentive.android.sdk.network.MultipartWriter;
 import com.apptentive.android.sdk.util.StringUtils;
 import com.apptentive.android.sdk.util.Util;
 import com.apptentive.android.sdk.util.image.ImageItem;
@@ -25,7 +28,8 @@ import org.json.JSONObject;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -283,103 +287,102 @@ public class CompoundMessage extends ApptentiveMessage implements MessageCenterU
 	}
 
 	private static final String lineEnd = "\r\n";
-	private static final String twoHyphens = "--";
 
 	/**
-	 * This is a multipart request. To accomplish this, we will create a data blog that is the entire contents
-	 * of the request after the request's headers. Each part of the body includes its own headers,
-	 * boundary, and data, but that is all rolled into one byte array to be stored pending sending.
+	 * This is a multipart request. The data is the entire contents of the request after the request's
+	 * headers. Each part of the body includes its own headers, boundary, and data.
 	 * This enables the contents to be stores securely via encryption the moment it is created, and
 	 * not read again as plain text while it sits on the device.
 	 *
 	 * @return a Byte array that can be set on the payload request.
-	 * TODO: Refactor this API so that the resulting byte array is streamed to a file for later retrieval.
+	 * @see #writeData(OutputStream) to avoid holding the whole body in memory
 	 */
 	@Override
 	public @NonNull byte[] renderData() throws Exception {
-		boolean shouldEncrypt = isAuthenticated();
 		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		writeData(data);
+		ApptentiveLog.d(PAYLOADS, "Total payload body bytes: %d", data.size());
+		return data.toByteArray();
+	}
 
-		// First write the message body out as the first "part".
-		StringBuilder header = new StringBuilder();
-		header.append(twoHyphens).append(boundary).append(lineEnd);
-
-		StringBuilder part = new StringBuilder();
-		part
-			.append("Content-Disposition: form-data; name=\"message\"").append(lineEnd)
-			.append("Content-Type: application/json;charset=UTF-8").append(lineEnd)
-			.append(lineEnd)
-			.append(marshallForSending().toString()).append(lineEnd);
-		byte[] partBytes = part.toString().getBytes();
-
+	/**
+	 * Streams the multipart body part by part: attachments are scaled/copied straight into the
+	 * stream. If encrypted, each part must be encrypted as a whole, and wrapped in a plain text set
+	 * of headers, so only a single part is held in memory at a time.
+	 */
+	@Override
+	public void writeData(@NonNull OutputStream out) throws Exception {
+		final boolean shouldEncrypt = isAuthenticated();
 		final Encryption encryption = getEncryption();
+		final MultipartWriter writer = new MultipartWriter(out, boundary);
+
+		// First write the message body out as the first "part".
+		byte[] messageBytes = marshallForSending().toString().getBytes();
 		if (shouldEncrypt) {
-			header
-				.append("Content-Disposition: form-data; name=\"message\"").append(lineEnd)
-				.append("Content-Type: application/octet-stream").append(lineEnd)
-				.append(lineEnd);
-			data.write(header.toString().getBytes());
-			data.write(encryption.encrypt(partBytes));
-			data.write("\r\n".getBytes());
+			ByteArrayOutputStream part = new ByteArrayOutputStream();
+			MultipartWriter.writePartHeaders(part, "form-data; name=\"message\"", "application/json;charset=UTF-8");
+			part.write(messageBytes);
+			part.write(lineEnd.getBytes());
+			writer.writePart("form-data; name=\"message\"", "application/octet-stream", encryption.encrypt(part.toByteArray()));
 		} else {
-			data.write(header.toString().getBytes());
-			data.write(partBytes);
+			writer.writePart("form-data; name=\"message\"", "application/json;charset=UTF-8", messageBytes);
 		}
 
 		// Then append attachments
 		if (attachedFiles != null) {
 			for (StoredFile storedFile : attachedFiles) {
 				ApptentiveLog.v(PAYLOADS, "Starting to write an attachment part.");
-				data.write(("--" + boundary + lineEnd).getBytes());
-				StringBuilder attachmentEnvelope = new StringBuilder();
-				attachmentEnvelope.append(String.format("Content-Disposition: form-data; name=\"file[]\"; filename=\"%s\"", storedFile.getFileName())).append(lineEnd)
-					.append("Content-Type: ").append(storedFile.getMimeType()).append(lineEnd)
-					.append(lineEnd);
-				ByteArrayOutputStream attachmentBytes = new ByteArrayOutputStream();
-				FileInputStream fileInputStream = null;
-				ApptentiveLog.v(PAYLOADS, "Writing attachment envelope: %s", attachmentEnvelope.toString());
-				attachmentBytes.write(attachmentEnvelope.toString().getBytes());
+				String contentDisposition = String.format("form-data; name=\"file[]\"; filename=\"%s\"", storedFile.getFileName());
 
+				// Read the attachment before writing any headers so a broken one can be skipped
+				Bitmap image = null;
+				File file = null;
 				try {
 					if (Util.isMimeTypeImage(storedFile.getMimeType())) {
-						ApptentiveLog.v(PAYLOADS, "Appending image attachment.");
-						ImageUtil.appendScaledDownImageToStream(storedFile.getSourceUriOrPath(), attachmentBytes);
+						image = ImageUtil.createScaledDownImageForSending(storedFile.getSourceUriOrPath());
 					} else {
-						ApptentiveLog.v(PAYLOADS, "Appending non-image attachment.");
-						Util.appendFileToStream(new File(storedFile.getSourceUriOrPath()), attachmentBytes);
+						file = new File(storedFile.getSourceUriOrPath());
+						if (!file.isFile() || !file.canRead()) {
+							throw new IOException("Unable to read file: " + file);
+						}
 					}
 				} catch (Exception e) {
 					ApptentiveLog.e(PAYLOADS, "Error reading Message Payload attachment: \"%s\".", e, storedFile.getLocalFilePath());
 					logException(e);
 					continue;
-				} finally {
-					Util.ensureClosed(fileInputStream);
 				}
 
-				if (shouldEncrypt) {
-					// If encrypted, each part must be encrypted, and wrapped in a plain text set of headers.
-					StringBuilder encryptionEnvelope = new StringBuilder();
-					encryptionEnvelope
-						.append("Content-Disposition: form-data; name=\"file[]\"").append(lineEnd)
-						.append("Content-Type: application/octet-stream").append(lineEnd)
-						.append(lineEnd);
-					ApptentiveLog.v(PAYLOADS, "Writing encrypted envelope: %s", encryptionEnvelope.toString());
-					data.write(encryptionEnvelope.toString().getBytes());
-					ApptentiveLog.v(PAYLOADS, "Encrypting attachment bytes: %d", attachmentBytes.size());
-					byte[] encryptedAttachment = encryption.encrypt(attachmentBytes.toByteArray());
-					ApptentiveLog.v(PAYLOADS, "Writing encrypted attachment bytes: %d", encryptedAttachment.length);
-					data.write(encryptedAttachment);
-				} else {
-					ApptentiveLog.v(PAYLOADS, "Writing attachment bytes: %d", attachmentBytes.size());
-					data.write(attachmentBytes.toByteArray());
+				try {
+					if (shouldEncrypt) {
+						ByteArrayOutputStream part = new ByteArrayOutputStream();
+						MultipartWriter.writePartHeaders(part, contentDisposition, storedFile.getMimeType());
+						writeAttachment(part, image, file);
+						ApptentiveLog.v(PAYLOADS, "Encrypting attachment bytes: %d", part.size());
+						byte[] encryptedAttachment = encryption.encrypt(part.toByteArray());
+						ApptentiveLog.v(PAYLOADS, "Writing encrypted attachment bytes: %d", encryptedAttachment.length);
+						writer.writePart("form-data; name=\"file[]\"", "application/octet-stream", encryptedAttachment);
+					} else {
+						writeAttachment(writer.startPart(contentDisposition, storedFile.getMimeType()), image, file);
+						writer.endPart();
+					}
+				} finally {
+					if (image != null) {
+						image.recycle();
+					}
 				}
-				data.write("\r\n".getBytes());
 			}
 		}
-		data.write(("--" + boundary + "--").getBytes());
+		writer.finish();
+	}
 
-		ApptentiveLog.d(PAYLOADS, "Total payload body bytes: %d", data.size());
-		return data.toByteArray();
+	private static void writeAttachment(OutputStream out, Bitmap image, File file) throws IOException {
+		if (image != null) {
+			ApptentiveLog.v(PAYLOADS, "Appending image attachment.");
+			ImageUtil.writeImageForSending(image, out);
+		} else {
+			ApptentiveLog.v(PAYLOADS, "Appending non-image attachment.");
+			Util.appendFileToStream(file, out);
+		}
 	}
 
 	private void logException(Exception e) {
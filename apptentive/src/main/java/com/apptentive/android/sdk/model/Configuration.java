@@ -42,6 +42,8 @@ public class Configuration extends JSONObject {
 
 	// This one is not sent in JSON, but as a header form the server.
 	private static final String KEY_CONFIGURATION_CACHE_EXPIRATION_MILLIS = "configuration_cache_expiration_millis";
+	private static final String KEY_CONFIGURATION_ETAG = "configuration_etag";
+	private static final String KEY_CONFIGURATION_LAST_MODIFIED = "configuration_last_modified";
 
 	// Store the last configuration object to avoid json parsing and disk IO
 	private static Configuration cachedConfiguration;
@@ -202,6 +204,30 @@ public class Configuration extends JSONObject {
 		}
 	}
 
+	/**
+	 * Returns the <code>ETag</code> of the server response this configuration was created from
+	 * (used for conditional requests)
+	 */
+	public String getConfigurationETag() {
+		return getString(KEY_CONFIGURATION_ETAG, null);
+	}
+
+	public void setConfigurationETag(String eTag) {
+		putString(KEY_CONFIGURATION_ETAG, eTag);
+	}
+
+	/**
+	 * Returns the <code>Last-Modified</code> date of the server response this configuration was
+	 * created from (used for conditional requests)
+	 */
+	public String getConfigurationLastModified() {
+		return getString(KEY_CONFIGURATION_LAST_MODIFIED, null);
+	}
+
+	public void setConfigurationLastModified(String lastModified) {
+		putString(KEY_CONFIGURATION_LAST_MODIFIED, lastModified);
+	}
+
 	public boolean hasConfigurationCacheExpired() {
 		return getConfigurationCacheExpirationMillis() < System.currentTimeMillis();
 	}
@@ -218,6 +244,24 @@ public class Configuration extends JSONObject {
 		}
 	}
 
+	private String getString(String key, String defaultValue) {
+		return isNull(key) ? defaultValue : optString(key, defaultValue);
+	}
+
+	private void putString(String key, String value) {
+		if (value == null) {
+			remove(key);
+			return;
+		}
+
+		try {
+			put(key, value);
+		} catch (JSONException e) {
+			ApptentiveLog.w(CONVERSATION, "Error adding %s to Configuration.", key);
+			logException(e);
+		}
+	}
+
 	private static void logException(Exception e) {
 		ErrorMetrics.logException(e);
 	}
@@ -16,6 +16,7 @@ import com.apptentive.android.sdk.util.StringUtils;
 
 import org.json.JSONException;
 
+import java.io.OutputStream;
 import java.util.List;
 
 public abstract class Payload {
@@ -66,6 +67,14 @@ public abstract class Payload {
 	 */
 	public abstract @NonNull byte[] renderData() throws Exception;
 
+	/**
+	 * Writes the same data as {@link #renderData()} into the stream. Subclasses with large bodies
+	 * override this to stream the body without rendering it in memory (the stream is not closed).
+	 */
+	public void writeData(@NonNull OutputStream out) throws Exception {
+		out.write(renderData());
+	}
+
 	//region
 
 	//region Http-request
@@ -15,6 +15,7 @@ import com.apptentive.android.sdk.ApptentiveLog;
 import com.apptentive.android.sdk.conversation.Conversation;
 import com.apptentive.android.sdk.debug.Assert;
 import com.apptentive.android.sdk.debug.ErrorMetrics;
+import com.apptentive.android.sdk.debug.Tracing;
 import com.apptentive.android.sdk.model.EventPayload;
 import com.apptentive.android.sdk.model.ExtendedData;
 import com.apptentive.android.sdk.module.engagement.interaction.model.Interaction;
@@ -70,6 +71,7 @@ public class EngagementModule {
 			return false;
 		}
 
+		Tracing.Span span = Tracing.startSpan("engage", eventName);
 		try {
 			String eventLabel = generateEventLabel(vendor, interaction, eventName);
 			ApptentiveLog.i(INTERACTIONS, "Engage event: '%s'", eventLabel);
@@ -82,6 +84,8 @@ public class EngagementModule {
 		} catch (Exception e) {
 			ApptentiveLog.e(INTERACTIONS, e, "Exception while engaging event '%s'", eventName);
 			logException(e);
+		} finally {
+			span.end();
 		}
 		return false;
 	}
@@ -37,6 +37,7 @@ import com.apptentive.android.sdk.module.engagement.interaction.model.Interactio
 import com.apptentive.android.sdk.util.Constants;
 import com.apptentive.android.sdk.util.StringUtils;
 import com.apptentive.android.sdk.util.Util;
+import com.apptentive.android.sdk.util.threading.DispatchPriority;
 import com.apptentive.android.sdk.util.threading.DispatchQueue;
 import com.apptentive.android.sdk.util.threading.DispatchTask;
 
@@ -476,7 +477,7 @@ public abstract class ApptentiveBaseFragment<T extends Interaction> extends Dial
 			protected boolean execute(Conversation conversation) {
 				return EngagementModule.engage(getActivity(), conversation, vendor, interaction, interactionId, eventName, data, customData, extendedData);
 			}
-		}, "engage");
+		}, "engage", DispatchPriority.Interactive);
 	}
 
 	public void engageInternal(String eventName) {
@@ -489,7 +490,7 @@ public abstract class ApptentiveBaseFragment<T extends Interaction> extends Dial
 			protected boolean execute(Conversation conversation) {
 				return EngagementModule.engageInternal(getActivity(), conversation, interaction, eventName, data);
 			}
-		}, "engage");
+		}, "engage", DispatchPriority.Interactive);
 	}
 
 	protected @Nullable ConversationProxy getConversation() {
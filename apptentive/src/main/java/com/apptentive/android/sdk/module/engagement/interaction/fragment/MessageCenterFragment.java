@@ -37,6 +37,7 @@ import androidx.fragment.app.DialogFragment;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentTransaction;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import com.apptentive.android.sdk.Apptentive;
 import com.apptentive.android.sdk.ApptentiveInternal;
 import com.apptentive.android.sdk.ApptentiveLog;
@@ -119,6 +120,9 @@ public class MessageCenterFragment extends ApptentiveBaseFragment<MessageCenterI
 
 	private final static long DEFAULT_DELAYMILLIS = 200;
 
+	// number of messages loaded from the storage at once (older messages are loaded on scroll)
+	private final static int MESSAGES_PAGE_SIZE = 50;
+
 	/* Fragment.getActivity() may return null if not attached.
 	 * hostingActivityRef is always set in onAttach()
 	 * Keeping a cached weak reference ensures it's safe to use
@@ -158,6 +162,10 @@ public class MessageCenterFragment extends ApptentiveBaseFragment<MessageCenterI
 	// Count how many paused ongoing messages
 	private int unsentMessagesCount = 0;
 
+	// Nonce of the oldest loaded message (null if all messages are loaded)
+	private @Nullable String olderMessagesNonce;
+	private boolean olderMessagesLoading;
+
 	private int listViewSavedTopIndex = -1;
 	private int listViewSavedTopOffset;
 
@@ -261,11 +269,12 @@ public class MessageCenterFragment extends ApptentiveBaseFragment<MessageCenterI
 		dispatchConversationTask(new ConversationDispatchTask() {
 			@Override
 			protected boolean execute(Conversation conversation) {
-				final List<MessageCenterListItem> items = conversation.getMessageManager().getMessageCenterListItems();
+				final MessageManager.MessageCenterListPage page = conversation.getMessageManager().getMessageCenterListItems(null, MESSAGES_PAGE_SIZE);
 				dispatchOnMainQueue(new DispatchTask() {
 					@Override
 					protected void execute() {
-						callback.onFetchFinish(items);
+						olderMessagesNonce = page.nextBeforeNonce;
+						callback.onFetchFinish(page.items);
 					}
 				});
 
@@ -274,6 +283,45 @@ public class MessageCenterFragment extends ApptentiveBaseFragment<MessageCenterI
 		}, "prepare messages");
 	}
 
+	private void fetchOlderMessages() {
+		assertMainThread();
+
+		if (olderMessagesNonce == null || olderMessagesLoading) {
+			return;
+		}
+
+		olderMessagesLoading = true;
+		final String beforeNonce = olderMessagesNonce;
+		dispatchConversationTask(new ConversationDispatchTask() {
+			@Override
+			protected boolean execute(Conversation conversation) {
+				final MessageManager.MessageCenterListPage page = conversation.getMessageManager().getMessageCenterListItems(beforeNonce, MESSAGES_PAGE_SIZE);
+				dispatchOnMainQueue(new DispatchTask() {
+					@Override
+					protected void execute() {
+						olderMessagesLoading = false;
+						olderMessagesNonce = page.nextBeforeNonce;
+						insertOlderMessages(page.items);
+					}
+				});
+
+				return true;
+			}
+		}, "prepare older messages");
+	}
+
+	private void insertOlderMessages(List<MessageCenterListItem> items) {
+		if (messageCenterRecyclerViewAdapter == null || items.size() == 0) {
+			return;
+		}
+
+		// older messages go right after the greeting
+		int insertIndex = listItems.size() > 0 && listItems.get(0).getListItemType() == MessageCenterListItem.GREETING ? 1 : 0;
+		List<MessageCenterListItem> sortedItems = sortMessages(items);
+		listItems.addAll(insertIndex, sortedItems);
+		messageCenterRecyclerViewAdapter.notifyItemRangeInserted(insertIndex, sortedItems.size());
+	}
+
 	@Override
 	public void onAttach(Context context) {
 		super.onAttach(context);
@@ -505,6 +553,15 @@ public class MessageCenterFragment extends ApptentiveBaseFragment<MessageCenterI
 		}
 
 		messageCenterRecyclerView.setAdapter(messageCenterRecyclerViewAdapter);
+		messageCenterRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+			@Override
+			public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+				LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+				if (dy < 0 && layoutManager != null && layoutManager.findFirstVisibleItemPosition() <= 1) {
+					fetchOlderMessages();
+				}
+			}
+		});
 
 		// Calculate FAB y-offset
 		fabPaddingPixels = calculateFabPadding(rootView.getContext());
@@ -1279,6 +1336,12 @@ public class MessageCenterFragment extends ApptentiveBaseFragment<MessageCenterI
 
 		listItems.clear();
 		unsentMessagesCount = 0;
+		listItems.addAll(sortMessages(originalItems));
+		messagingActionHandler.sendEmptyMessage(MSG_ADD_GREETING);
+	}
+
+	private List<MessageCenterListItem> sortMessages(final List<MessageCenterListItem> originalItems) {
+		List<MessageCenterListItem> sortedItems = new ArrayList<>(originalItems.size());
 		// Loop through each message item retrieved from database
 		for (MessageCenterListItem item : originalItems) {
 			if (item instanceof ApptentiveMessage) {
@@ -1291,7 +1354,7 @@ public class MessageCenterFragment extends ApptentiveBaseFragment<MessageCenterI
 				/*
 				 * Find proper location to insert into the listItems list of the listview.
 				 */
-				ListIterator<MessageCenterListItem> listIterator = listItems.listIterator();
+				ListIterator<MessageCenterListItem> listIterator = sortedItems.listIterator();
 				ApptentiveMessage next = null;
 				while (listIterator.hasNext()) {
 					next = (ApptentiveMessage) listIterator.next();
@@ -1316,7 +1379,7 @@ public class MessageCenterFragment extends ApptentiveBaseFragment<MessageCenterI
 				}
 			}
 		}
-		messagingActionHandler.sendEmptyMessage(MSG_ADD_GREETING);
+		return sortedItems;
 	}
 
 	@Override
@@ -148,6 +148,15 @@ public abstract class Interaction extends JSONObject {
 	}
 
 	public static class Factory {
+		/**
+		 * Returns <code>true</code> if the interaction object has an id and a type supported by this
+		 * SDK version (only such interactions can be parsed).
+		 */
+		public static boolean isKnownInteraction(JSONObject interaction) {
+			return !interaction.isNull(KEY_ID) && interaction.has(KEY_TYPE) &&
+				       Type.parse(interaction.optString(KEY_TYPE)) != Type.unknown;
+		}
+
 		public static Interaction parseInteraction(String interactionString) {
 			if (interactionString == null) {
 				return null;
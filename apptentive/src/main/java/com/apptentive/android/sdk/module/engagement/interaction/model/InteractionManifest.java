@@ -21,9 +21,18 @@ public class InteractionManifest extends JSONObject {
 		super(json);
 	}
 
+	/**
+	 * Creates a manifest from an already parsed response object (the values are shared, not copied).
+	 */
+	public InteractionManifest(JSONObject json) throws JSONException {
+		putOpt(Interactions.KEY_NAME, json.opt(Interactions.KEY_NAME));
+		putOpt(Targets.KEY_NAME, json.opt(Targets.KEY_NAME));
+	}
+
 	/**
 	 * In addition to returning the Interactions contained in this payload, this method reformats the Interactions from a
 	 * list into a map. The map is then used for further Interaction lookup.
+	 * The parsed interaction objects are moved into the map as is (without re-serializing and parsing them again).
 	 * @return
 	 */
 	public Interactions getInteractions() {
@@ -34,9 +43,9 @@ public class InteractionManifest extends JSONObject {
 					Interactions interactions = new Interactions();
 					JSONArray interactionsJSONArray = (JSONArray) obj;
 					for (int i = 0; i < interactionsJSONArray.length(); i++) {
-						Interaction interaction = Interaction.Factory.parseInteraction(interactionsJSONArray.getString(i));
-						if (interaction != null) {
-							interactions.put(interaction.getId(), interaction);
+						JSONObject interaction = interactionsJSONArray.optJSONObject(i);
+						if (interaction != null && Interaction.Factory.isKnownInteraction(interaction)) {
+							interactions.put(interaction.getString(Interaction.KEY_ID), interaction);
 						} else {
 							// This is an unknown Interaction type. Probably for a future SDK version.
 						}
@@ -54,8 +63,7 @@ public class InteractionManifest extends JSONObject {
 	public Targets getTargets() {
 		try {
 			if (!isNull(Targets.KEY_NAME)) {
-				Object targets = get(Targets.KEY_NAME);
-				return new Targets(targets.toString());
+				return new Targets(getJSONObject(Targets.KEY_NAME));
 			}
 		} catch (JSONException e) {
 			ApptentiveLog.w(INTERACTIONS, e, "Unable to load Targets from InteractionManifest.");
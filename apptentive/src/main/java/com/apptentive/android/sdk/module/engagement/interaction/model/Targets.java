@@ -15,6 +15,8 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.util.Iterator;
+
 import static com.apptentive.android.sdk.ApptentiveLogTag.INTERACTIONS;
 import static com.apptentive.android.sdk.debug.ErrorMetrics.logException;
 
@@ -29,6 +31,17 @@ public class Targets extends JSONObject {
 		super(json);
 	}
 
+	/**
+	 * Creates targets from an already parsed object (the values are shared, not copied).
+	 */
+	public Targets(JSONObject json) throws JSONException {
+		Iterator<String> keys = json.keys();
+		while (keys.hasNext()) {
+			String key = keys.next();
+			put(key, json.get(key));
+		}
+	}
+
 	public String getApplicableInteraction(String eventLabel, boolean verbose) {
 		JSONArray invocations = optJSONArray(eventLabel);
 		if (invocations != null) {
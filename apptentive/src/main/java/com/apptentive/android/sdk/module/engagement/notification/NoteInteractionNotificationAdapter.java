@@ -33,6 +33,7 @@ import com.apptentive.android.sdk.module.engagement.logic.FieldManager;
 import com.apptentive.android.sdk.util.Constants;
 import com.apptentive.android.sdk.util.StringUtils;
 import com.apptentive.android.sdk.util.Util;
+import com.apptentive.android.sdk.util.threading.DispatchPriority;
 
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -177,7 +178,7 @@ public class NoteInteractionNotificationAdapter implements InteractionNotificati
 			protected boolean execute(Conversation conversation) {
 				return EngagementModule.engageInternal(context, conversation, interaction, ApptentiveBaseFragment.EVENT_NAME_LAUNCH, data.toString());
 			}
-		}, "engage Note Notification launch");
+		}, "engage Note Notification launch", DispatchPriority.Interactive);
 	}
 
 	protected void actionButtonPressed(final Context context, final Intent incomingIntent, final TextModalInteraction interaction) {
@@ -251,7 +252,7 @@ public class NoteInteractionNotificationAdapter implements InteractionNotificati
 						}
 						return false;
 					}
-				}, "choosing and launching Interaction from Note Notification Action");
+				}, "choosing and launching Interaction from Note Notification Action", DispatchPriority.Interactive);
 
 
 				break;
@@ -273,7 +274,7 @@ public class NoteInteractionNotificationAdapter implements InteractionNotificati
 					protected boolean execute(Conversation conversation) {
 						return EngagementModule.engageInternal(context, conversation, interaction, TextModalInteraction.EVENT_NAME_DISMISS, data.toString());
 					}
-				}, "engage Note Notification dismiss");
+				}, "engage Note Notification dismiss", DispatchPriority.Interactive);
 
 				break;
 			case unknown:
@@ -299,6 +300,6 @@ public class NoteInteractionNotificationAdapter implements InteractionNotificati
 			protected boolean execute(Conversation conversation) {
 				return EngagementModule.engageInternal(context, conversation, interaction, TextModalInteraction.EVENT_NAME_CANCEL, data.toString());
 			}
-		}, "engage Note Notification cancel");
+		}, "engage Note Notification cancel", DispatchPriority.Interactive);
 	}
 }
@@ -28,11 +28,14 @@ import com.apptentive.android.sdk.module.messagecenter.model.MessageFactory;
 import com.apptentive.android.sdk.module.metric.MetricModule;
 import com.apptentive.android.sdk.network.HttpJsonRequest;
 import com.apptentive.android.sdk.network.HttpRequest;
+import com.apptentive.android.sdk.network.HttpRequestJournal;
 import com.apptentive.android.sdk.notifications.ApptentiveNotification;
 import com.apptentive.android.sdk.notifications.ApptentiveNotificationCenter;
 import com.apptentive.android.sdk.notifications.ApptentiveNotificationObserver;
 import com.apptentive.android.sdk.storage.MessageStore;
 import com.apptentive.android.sdk.util.Destroyable;
+import com.apptentive.android.sdk.util.StringUtils;
+import com.apptentive.android.sdk.util.threading.DispatchPriority;
 import com.apptentive.android.sdk.util.threading.DispatchQueue;
 import com.apptentive.android.sdk.util.threading.DispatchTask;
 
@@ -75,6 +78,21 @@ public class MessageManager implements Destroyable, ApptentiveNotificationObserv
 
 	private static int TOAST_TYPE_UNREAD_MESSAGE = 1;
 
+	private static final String TAG_FETCH_MESSAGES_REQUEST = "fetch_messages";
+
+	/**
+	 * Max number of messages requested at once
+	 */
+	private static final int MESSAGE_PAGE_SIZE = 50;
+
+	/**
+	 * Max number of pages fetched in a single sync (the next sync continues from the last stored message)
+	 */
+	private static final int MAX_MESSAGE_PAGES_PER_SYNC = 20;
+
+	private static final String KEY_MESSAGES = "messages";
+	private static final String KEY_HAS_MORE = "has_more";
+
 	private final Conversation conversation;
 
 	private final MessageStore messageStore;
@@ -130,6 +148,7 @@ public class MessageManager implements Destroyable, ApptentiveNotificationObserv
 		this.pollingWorker = new MessagePollingWorker(this);
 
 		registerNotifications();
+		registerRequestReplayer();
 	}
 
 	/*
@@ -140,6 +159,7 @@ public class MessageManager implements Destroyable, ApptentiveNotificationObserv
 		try {
 			boolean updateMC = isMessageCenterInForeground();
 			fetchAndStoreMessages(updateMC, false, null);
+			pollingWorker.onConversationActivity();
 		} catch (final Exception e) {
 			ApptentiveLog.w(MESSAGES, e, "Unhandled Exception thrown from fetching new message task");
 			logException(e);
@@ -147,61 +167,91 @@ public class MessageManager implements Destroyable, ApptentiveNotificationObserv
 	}
 
 	/**
-	 * Performs a request against the server to check for messages in the conversation since the latest message we already have.
+	 * Performs requests against the server to check for messages in the conversation since the latest message we already have.
+	 * Messages are fetched in pages of {@link #MESSAGE_PAGE_SIZE}: each page is stored before the next one is requested so
+	 * an interrupted sync resumes from the last stored message.
 	 * This method will either be run on MessagePollingThread or as an asyncTask when Push is received.
 	 */
 	void fetchAndStoreMessages(final boolean isMessageCenterForeground, final boolean showToast, @Nullable final MessageFetchListener listener) {
 		checkConversationQueue();
 
 		try {
-			String lastMessageId = messageStore.getLastReceivedMessageId();
-			fetchMessages(lastMessageId, new MessageFetchListener() {
-				@Override
-				public void onFetchFinish(MessageManager messageManager, List<ApptentiveMessage> messages) {
-					try {
-						if (messages == null || messages.size() == 0) return;
-
-						CompoundMessage messageOnToast = null;
-						ApptentiveLog.d(MESSAGES,"Messages retrieved: %d", messages.size());
-
-						// Also get the count of incoming unread messages.
-						int incomingUnreadMessages = 0;
-						// Mark messages from server where sender is the app user as read.
-						for (final ApptentiveMessage apptentiveMessage : messages) {
-							if (apptentiveMessage.isOutgoingMessage()) {
-								apptentiveMessage.setRead(true);
-							} else {
-								if (messageOnToast == null) {
-									if (apptentiveMessage.getMessageType() == ApptentiveMessage.Type.CompoundMessage) {
-										messageOnToast = (CompoundMessage) apptentiveMessage;
-									}
-								}
-								incomingUnreadMessages++;
-
-								// for every new message received, notify Message Center
-								notifyInternalNewMessagesListeners((CompoundMessage) apptentiveMessage);
-							}
-						}
-						messageStore.addOrUpdateMessages(messages.toArray(new ApptentiveMessage[messages.size()]));
-						if (incomingUnreadMessages > 0) {
-							// Show toast notification only if the foreground activity is not already message center activity
-							if (!isMessageCenterForeground && showToast) {
-								DispatchQueue.mainQueue().dispatchAsyncOnce(toastMessageNotifierTask.setMessage(messageOnToast));
-							}
-						}
+			fetchAndStoreMessagePage(new MessageSync(isMessageCenterForeground, showToast, listener));
+		} catch (Exception e) {
+			ApptentiveLog.e(MESSAGES, "Error retrieving last received message id from worker thread");
+			logException(e);
+		}
+	}
 
-						// Send message to notify host app, such as unread message badge
-						conversationQueue().dispatchAsyncOnce(hostMessageNotifierTask.setMessageCount(getUnreadMessageCount()));
-					} finally {
-						if (listener != null) {
-							listener.onFetchFinish(messageManager, messages);
+	private void fetchAndStoreMessagePage(final MessageSync sync) throws Exception {
+		// every page is committed to the store so it always holds the cursor for the next one
+		String lastMessageId = messageStore.getLastReceivedMessageId();
+		fetchMessages(lastMessageId, new MessagePageListener() {
+			@Override
+			public void onFetchPage(@Nullable List<ApptentiveMessage> messages, boolean hasMore) {
+				try {
+					if (messages != null && messages.size() > 0) {
+						storeMessagePage(sync, messages);
+
+						if (hasMore && ++sync.pageCount < MAX_MESSAGE_PAGES_PER_SYNC) {
+							fetchAndStoreMessagePage(sync);
+							return;
 						}
+					} else if (messages == null) {
+						sync.successful = false;
 					}
+				} catch (Exception e) {
+					ApptentiveLog.e(MESSAGES, e, "Exception while storing fetched messages");
+					logException(e);
+					sync.successful = false;
 				}
-			});
-		} catch (Exception e) {
-			ApptentiveLog.e(MESSAGES, "Error retrieving last received message id from worker thread");
-			logException(e);
+
+				finishMessageSync(sync);
+			}
+		});
+	}
+
+	private void storeMessagePage(MessageSync sync, List<ApptentiveMessage> messages) {
+		ApptentiveLog.d(MESSAGES, "Messages retrieved: %d", messages.size());
+
+		// Mark messages from server where sender is the app user as read.
+		for (final ApptentiveMessage apptentiveMessage : messages) {
+			if (apptentiveMessage.isOutgoingMessage()) {
+				apptentiveMessage.setRead(true);
+			} else {
+				if (sync.messageOnToast == null) {
+					if (apptentiveMessage.getMessageType() == ApptentiveMessage.Type.CompoundMessage) {
+						sync.messageOnToast = (CompoundMessage) apptentiveMessage;
+					}
+				}
+				// Also get the count of incoming unread messages.
+				sync.incomingUnreadMessages++;
+
+				// for every new message received, notify Message Center
+				notifyInternalNewMessagesListeners((CompoundMessage) apptentiveMessage);
+			}
+		}
+		messageStore.addOrUpdateMessages(messages.toArray(new ApptentiveMessage[messages.size()]));
+		sync.storedMessages += messages.size();
+	}
+
+	private void finishMessageSync(MessageSync sync) {
+		try {
+			if (sync.storedMessages > 0) {
+				if (sync.incomingUnreadMessages > 0) {
+					// Show toast notification only if the foreground activity is not already message center activity
+					if (!sync.isMessageCenterForeground && sync.showToast) {
+						DispatchQueue.mainQueue().dispatchAsyncOnce(toastMessageNotifierTask.setMessage(sync.messageOnToast));
+					}
+				}
+
+				// Send message to notify host app, such as unread message badge
+				conversationQueue().dispatchAsyncOnce(hostMessageNotifierTask.setMessageCount(getUnreadMessageCount()));
+			}
+		} finally {
+			if (sync.listener != null) {
+				sync.listener.onFetchFinish(this, sync.successful, sync.storedMessages);
+			}
 		}
 	}
 
@@ -223,9 +273,37 @@ public class MessageManager implements Destroyable, ApptentiveNotificationObserv
 		return messagesToShow;
 	}
 
+	/**
+	 * Returns a page of Message Center list items stored right before the message with
+	 * <code>beforeNonce</code> (or the newest items if <code>beforeNonce</code> is <code>null</code>).
+	 * Only the messages of the requested page are parsed.
+	 */
+	public MessageCenterListPage getMessageCenterListItems(@Nullable String beforeNonce, int count) {
+		List<MessageCenterListItem> messagesToShow = new ArrayList<>();
+		String nextBeforeNonce = null;
+		try {
+			MessageStore.MessagePage page = messageStore.getMessages(beforeNonce, count);
+			// Do not display hidden messages on Message Center
+			for (ApptentiveMessage message : page.getMessages()) {
+				if (!message.isHidden()) {
+					messagesToShow.add(message);
+				}
+			}
+			nextBeforeNonce = page.getNextBeforeNonce();
+		} catch (Exception e) {
+			ApptentiveLog.e(MESSAGES,"Error getting messages page in worker thread");
+			logException(e);
+		}
+
+		return new MessageCenterListPage(messagesToShow, nextBeforeNonce);
+	}
+
 	public void sendMessage(ApptentiveMessage apptentiveMessage) {
 		messageStore.addOrUpdateMessages(apptentiveMessage);
 		conversation.addPayload(apptentiveMessage);
+
+		// a reply is more likely right after a message was sent
+		pollingWorker.onConversationActivity();
 	}
 
 	public void addMessages(ApptentiveMessage[] messages) {
@@ -240,21 +318,25 @@ public class MessageManager implements Destroyable, ApptentiveNotificationObserv
 		messageStore.deleteAllMessages();
 	}
 
-	private HttpJsonRequest fetchMessages(String afterId, final MessageFetchListener listener) {
+	private HttpJsonRequest fetchMessages(String afterId, final MessagePageListener listener) {
 		ApptentiveLog.v(MESSAGES, "Fetching messages newer than: %s", (afterId == null) ? "0" : afterId);
 
 		// TODO: Use the new ApptentiveHttpClient for this.
 		ApptentiveHttpClient httpClient = ApptentiveInternal.getInstance().getApptentiveHttpClient();
-		HttpJsonRequest request = httpClient.createFetchMessagesRequest(conversation.getConversationToken(), conversation.getConversationId(), afterId, null, null, new HttpRequest.Listener<HttpJsonRequest>() {
+		HttpJsonRequest request = httpClient.createFetchMessagesRequest(conversation.getConversationToken(), conversation.getConversationId(), afterId, null, MESSAGE_PAGE_SIZE, new HttpRequest.Listener<HttpJsonRequest>() {
 			@Override
 			public void onFinish(HttpJsonRequest request) {
 				try {
-					notifyFinished(listener, parseMessages(request.getResponseObject()));
+					JSONObject root = request.getResponseObject();
+					// a full page means there might be more messages (even if the server does not report 'has_more')
+					JSONArray page = root.optJSONArray(KEY_MESSAGES);
+					boolean hasMore = page != null && page.length() == MESSAGE_PAGE_SIZE || root.optBoolean(KEY_HAS_MORE, false);
+					listener.onFetchPage(parseMessages(root), hasMore);
 				} catch (Exception e) {
 					ApptentiveLog.e(MESSAGES, e, "Exception while parsing messages");
 					logException(e);
 
-					notifyFinished(listener, null);
+					listener.onFetchPage(null, false);
 				}
 			}
 
@@ -265,16 +347,14 @@ public class MessageManager implements Destroyable, ApptentiveNotificationObserv
 			@Override
 			public void onFail(HttpJsonRequest request, String reason) {
 				ApptentiveLog.e(MESSAGES, "Error while fetching messages: %s", reason);
-				notifyFinished(listener, null);
-			}
-
-			private void notifyFinished(MessageFetchListener listener, List<ApptentiveMessage> messages) {
-				if (listener != null) {
-					listener.onFetchFinish(MessageManager.this, messages);
-				}
+				listener.onFetchPage(null, false);
 			}
 		});
-		request.setCallbackQueue(conversationQueue());
+		// fetches triggered by a push and by polling can overlap: share a single network call
+		request.setTag(StringUtils.format("%s:%s", TAG_FETCH_MESSAGES_REQUEST, afterId));
+		request.setSingleFlight(true);
+		request.setJournalKind(TAG_FETCH_MESSAGES_REQUEST);
+		request.setCallbackQueue(conversationQueue(DispatchPriority.Background));
 		request.start();
 		return request;
 	}
@@ -285,8 +365,8 @@ public class MessageManager implements Destroyable, ApptentiveNotificationObserv
 
 	public List<ApptentiveMessage> parseMessages(JSONObject root) throws JSONException {
 		List<ApptentiveMessage> ret = new ArrayList<>();
-		if (!root.isNull("messages")) {
-			JSONArray items = root.getJSONArray("messages");
+		if (!root.isNull(KEY_MESSAGES)) {
+			JSONArray items = root.getJSONArray(KEY_MESSAGES);
 			for (int i = 0; i < items.length(); i++) {
 				String json = items.getJSONObject(i).toString();
 				ApptentiveMessage apptentiveMessage = MessageFactory.fromJson(json);
@@ -376,6 +456,50 @@ public class MessageManager implements Destroyable, ApptentiveNotificationObserv
 		return msgCount;
 	}
 
+	//region Request journal
+
+	private final HttpRequestJournal.Replayer fetchMessagesReplayer = new HttpRequestJournal.Replayer() {
+		@Override
+		public boolean replay() {
+			checkConversationQueue();
+			if (!conversation.hasActiveState()) {
+				return false;
+			}
+			if (conversation.isMessageCenterFeatureUsed()) {
+				fetchAndStoreMessages(isMessageCenterInForeground(), false, replayFetchListener);
+			}
+			return true;
+		}
+	};
+
+	/**
+	 * Resumes polling once the network is back (polling might have paused while the fetches were failing)
+	 */
+	private final MessageFetchListener replayFetchListener = new MessageFetchListener() {
+		@Override
+		public void onFetchFinish(MessageManager messageManager, boolean successful, int storedMessageCount) {
+			if (successful) {
+				pollingWorker.onConversationActivity();
+			}
+		}
+	};
+
+	private void registerRequestReplayer() {
+		ApptentiveHttpClient httpClient = ApptentiveInternal.getInstance().getApptentiveHttpClient();
+		if (httpClient != null) {
+			httpClient.registerRequestReplayer(TAG_FETCH_MESSAGES_REQUEST, fetchMessagesReplayer);
+		}
+	}
+
+	private void unregisterRequestReplayer() {
+		ApptentiveHttpClient httpClient = ApptentiveInternal.getInstance().getApptentiveHttpClient();
+		if (httpClient != null) {
+			httpClient.unregisterRequestReplayer(TAG_FETCH_MESSAGES_REQUEST, fetchMessagesReplayer);
+		}
+	}
+
+	//endregion
+
 	//region Notifications
 
 	private void registerNotifications() {
@@ -384,8 +508,9 @@ public class MessageManager implements Destroyable, ApptentiveNotificationObserv
 			.addObserver(NOTIFICATION_ACTIVITY_RESUMED, this)
 			.addObserver(NOTIFICATION_APP_ENTERED_FOREGROUND, this)
 			.addObserver(NOTIFICATION_APP_ENTERED_BACKGROUND, this)
-			.addObserver(NOTIFICATION_PAYLOAD_WILL_START_SEND, this)
-			.addObserver(NOTIFICATION_PAYLOAD_DID_FINISH_SEND, this);
+			// payload notifications are posted from the payload sender threads
+			.addObserver(NOTIFICATION_PAYLOAD_WILL_START_SEND, this, conversationQueue(DispatchPriority.Background))
+			.addObserver(NOTIFICATION_PAYLOAD_DID_FINISH_SEND, this, conversationQueue(DispatchPriority.Background));
 	}
 
 	//endregion
@@ -432,6 +557,7 @@ public class MessageManager implements Destroyable, ApptentiveNotificationObserv
 	@Override
 	public void destroy() {
 		ApptentiveNotificationCenter.defaultCenter().removeObserver(this);
+		unregisterRequestReplayer();
 		pollingWorker.destroy();
 	}
 
@@ -621,7 +747,57 @@ public class MessageManager implements Destroyable, ApptentiveNotificationObserv
 	}
 
 	public interface MessageFetchListener {
-		void onFetchFinish(MessageManager messageManager, List<ApptentiveMessage> messages);
+		/**
+		 * @param successful         - <code>false</code> if fetching or storing a page failed
+		 * @param storedMessageCount - total number of messages stored by the sync (some of the pages
+		 *                           might have been stored even if the sync failed later)
+		 */
+		void onFetchFinish(MessageManager messageManager, boolean successful, int storedMessageCount);
+	}
+
+	private interface MessagePageListener {
+		/**
+		 * @param messages - messages of the page (or <code>null</code> if fetching failed)
+		 */
+		void onFetchPage(@Nullable List<ApptentiveMessage> messages, boolean hasMore);
+	}
+
+	/**
+	 * State of a paged message sync
+	 */
+	private static class MessageSync {
+		final boolean isMessageCenterForeground;
+		final boolean showToast;
+		final MessageFetchListener listener;
+
+		boolean successful = true;
+		int pageCount;
+		int storedMessages;
+		int incomingUnreadMessages;
+		CompoundMessage messageOnToast;
+
+		MessageSync(boolean isMessageCenterForeground, boolean showToast, MessageFetchListener listener) {
+			this.isMessageCenterForeground = isMessageCenterForeground;
+			this.showToast = showToast;
+			this.listener = listener;
+		}
+	}
+
+	/**
+	 * A page of Message Center list items
+	 */
+	public static class MessageCenterListPage {
+		public final List<MessageCenterListItem> items;
+
+		/**
+		 * Nonce to request the previous page with (or <code>null</code> if there are no older messages)
+		 */
+		public final @Nullable String nextBeforeNonce;
+
+		MessageCenterListPage(List<MessageCenterListItem> items, @Nullable String nextBeforeNonce) {
+			this.items = items;
+			this.nextBeforeNonce = nextBeforeNonce;
+		}
 	}
 
 	//region Message Dispatch Task
@@ -697,6 +873,11 @@ public class MessageManager implements Destroyable, ApptentiveNotificationObserv
 			return target.getAllMessages();
 		}
 
+		@Override
+		public MessagePage getMessages(@Nullable String beforeNonce, int count) throws Exception {
+			return target.getMessages(beforeNonce, count);
+		}
+
 		@Override
 		public String getLastReceivedMessageId() throws Exception {
 			return target.getLastReceivedMessageId();
@@ -12,14 +12,12 @@ import androidx.annotation.NonNull;
 import com.apptentive.android.sdk.ApptentiveInternal;
 import com.apptentive.android.sdk.ApptentiveLog;
 import com.apptentive.android.sdk.conversation.Conversation;
-import com.apptentive.android.sdk.model.ApptentiveMessage;
 import com.apptentive.android.sdk.model.Configuration;
 import com.apptentive.android.sdk.notifications.ApptentiveNotificationCenter;
 import com.apptentive.android.sdk.util.Destroyable;
+import com.apptentive.android.sdk.util.threading.DispatchPriority;
 import com.apptentive.android.sdk.util.threading.DispatchTask;
 
-import java.util.List;
-
 import static com.apptentive.android.sdk.ApptentiveHelper.dispatchOnConversationQueueOnce;
 import static com.apptentive.android.sdk.ApptentiveLogTag.MESSAGES;
 import static com.apptentive.android.sdk.ApptentiveNotifications.NOTIFICATION_KEY_INTERVAL;
@@ -29,6 +27,17 @@ import static com.apptentive.android.sdk.debug.Assert.assertTrue;
 
 class MessagePollingWorker implements Destroyable, MessageManager.MessageFetchListener {
 
+	/**
+	 * Max factor the polling interval is multiplied by while polls come back empty
+	 */
+	private static final int MAX_POLLING_BACKOFF_MULTIPLIER = 8;
+
+	/**
+	 * Number of consecutive empty polls after which polling is paused until the next conversation activity
+	 * (only when Message Center is not in foreground)
+	 */
+	private static final int MAX_EMPTY_POLLS_BEFORE_PAUSE = 10;
+
 	private final MessageManager messageManager;
 	private final long backgroundPollingInterval;
 	private final long foregroundPollingInterval;
@@ -37,6 +46,19 @@ class MessagePollingWorker implements Destroyable, MessageManager.MessageFetchLi
 
 	private DispatchTask messagePollingTask;
 
+	/**
+	 * Number of polls in a row which didn't return new messages
+	 */
+	private int emptyPollCount;
+
+	/**
+	 * True if polling was paused because of no conversation activity
+	 */
+	private boolean pollingPaused;
+
+	private int totalPollCount;
+	private int hitPollCount;
+
 	MessagePollingWorker(MessageManager messageManager) {
 		if (messageManager == null) {
 			throw new IllegalArgumentException("Message manager is null");
@@ -58,8 +80,27 @@ class MessagePollingWorker implements Destroyable, MessageManager.MessageFetchLi
 	//region MessageFetchListener
 
 	@Override
-	public void onFetchFinish(MessageManager manager, List<ApptentiveMessage> messages) {
+	public void onFetchFinish(MessageManager manager, boolean successful, int storedMessageCount) {
+		totalPollCount++;
+		if (storedMessageCount > 0) {
+			hitPollCount++;
+			emptyPollCount = 0;
+		} else if (successful) {
+			emptyPollCount++;
+		} else {
+			// a failed poll (no network, server error, etc) says nothing about the conversation activity
+			ApptentiveLog.v(MESSAGES, "Message poll failed: keep the polling interval");
+		}
+		ApptentiveLog.v(MESSAGES, "Message polls: %d, hits: %d (%d%%)", totalPollCount, hitPollCount, getPollHitRate());
+
 		if (isPolling()) {
+			if (!messageCenterInForeground && emptyPollCount >= MAX_EMPTY_POLLS_BEFORE_PAUSE) {
+				ApptentiveLog.v(MESSAGES, "Pause polling messages: no new messages after %d polls", emptyPollCount);
+				stopPolling();
+				pollingPaused = true;
+				return;
+			}
+
 			long pollingInterval = getPollingInterval();
 			ApptentiveLog.v(MESSAGES, "Scheduled polling messages in %d sec", pollingInterval / 1000);
 			dispatchOnConversationQueueOnce(messagePollingTask, pollingInterval);
@@ -90,6 +131,23 @@ class MessagePollingWorker implements Destroyable, MessageManager.MessageFetchLi
 		}
 	}
 
+	/**
+	 * Called when a message is sent, a push notification is received or a fetch succeeds after the
+	 * network comes back: resets the polling back-off
+	 * and resumes polling if it was paused because of no conversation activity.
+	 */
+	void onConversationActivity() {
+		emptyPollCount = 0;
+
+		if (pollingPaused) {
+			ApptentiveLog.v(MESSAGES, "Resume polling messages (%s)", getLocalConversationIdentifier());
+			startPolling();
+		} else if (isPolling()) {
+			// the next poll might be scheduled with a backed off interval
+			schedulePolling(getPollingInterval());
+		}
+	}
+
 	void startPolling() {
 		startPolling(false);
 	}
@@ -101,13 +159,15 @@ class MessagePollingWorker implements Destroyable, MessageManager.MessageFetchLi
 
 		if (!isPolling()) {
 			ApptentiveLog.v(MESSAGES, "Start polling messages (%s)", getLocalConversationIdentifier());
-			messagePollingTask = createPollingTask();
-			dispatchOnConversationQueueOnce(messagePollingTask, 0L);
+			emptyPollCount = 0;
+			schedulePolling(0L);
 			notifyStartPolling(getPollingInterval());
 		}
 	}
 
 	void stopPolling() {
+		pollingPaused = false;
+
 		if (isPolling()) {
 			ApptentiveLog.v(MESSAGES, "Stop polling messages (%s)", getLocalConversationIdentifier());
 			messagePollingTask.cancel();
@@ -116,10 +176,42 @@ class MessagePollingWorker implements Destroyable, MessageManager.MessageFetchLi
 		}
 	}
 
+	private void schedulePolling(long delayMillis) {
+		if (messagePollingTask != null) {
+			messagePollingTask.cancel();
+		}
+		messagePollingTask = createPollingTask();
+		dispatchOnConversationQueueOnce(messagePollingTask, delayMillis);
+	}
+
+	/**
+	 * Returns the base polling interval doubled for every empty poll in a row (up to {@link #MAX_POLLING_BACKOFF_MULTIPLIER})
+	 */
 	private long getPollingInterval() {
-		return messageCenterInForeground ? foregroundPollingInterval : backgroundPollingInterval;
+		long baseInterval = messageCenterInForeground ? foregroundPollingInterval : backgroundPollingInterval;
+		int multiplier = 1 << Math.min(emptyPollCount, Integer.numberOfTrailingZeros(MAX_POLLING_BACKOFF_MULTIPLIER));
+		return baseInterval * multiplier;
+	}
+
+	//region Metrics
+
+	int getTotalPollCount() {
+		return totalPollCount;
 	}
 
+	int getHitPollCount() {
+		return hitPollCount;
+	}
+
+	/**
+	 * Returns the percentage of polls which returned new messages
+	 */
+	int getPollHitRate() {
+		return totalPollCount > 0 ? 100 * hitPollCount / totalPollCount : 0;
+	}
+
+	//endregion
+
 	//region Notifications
 
 	private void notifyStartPolling(long interval) {
@@ -164,6 +256,11 @@ class MessagePollingWorker implements Destroyable, MessageManager.MessageFetchLi
 					ApptentiveLog.w(MESSAGES, "Unable to fetch messages: message center can't be show at this time");
 				}
 			}
+
+			@Override
+			public DispatchPriority getPriority() {
+				return DispatchPriority.Background;
+			}
 		};
 	}
 }
\ No newline at end of file
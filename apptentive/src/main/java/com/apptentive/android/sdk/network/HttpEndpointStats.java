@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2018, Apptentive, Inc. All Rights Reserved.
+ * Please refer to the LICENSE file for the terms and conditions
+ * under which redistribution and use of this file is permitted.
+ */
+
+package com.apptentive.android.sdk.network;
+
+import com.apptentive.android.sdk.util.StringUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Thread-safe aggregate of {@link HttpRequestMetrics} per endpoint template: request counts, byte
+ * counts and latency histograms (time to first byte and total time).
+ */
+public final class HttpEndpointStats {
+	/**
+	 * Upper bounds of the histogram buckets in millis (the last bucket is open-ended)
+	 */
+	private static final long[] BUCKET_BOUNDS_MILLIS = { 50, 100, 250, 500, 1000, 2500, 5000 };
+
+	private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+	public synchronized void record(String endpointTemplate, HttpRequestMetrics metrics, boolean successful) {
+		if (endpointTemplate == null) {
+			throw new IllegalArgumentException("Endpoint template is null");
+		}
+		if (metrics == null) {
+			throw new IllegalArgumentException("Metrics is null");
+		}
+
+		Entry entry = entries.get(endpointTemplate);
+		if (entry == null) {
+			entry = new Entry();
+			entries.put(endpointTemplate, entry);
+		}
+		entry.record(metrics, successful);
+	}
+
+	public synchronized int getRequestCount(String endpointTemplate) {
+		Entry entry = entries.get(endpointTemplate);
+		return entry != null ? entry.requests : 0;
+	}
+
+	public synchronized void reset() {
+		entries.clear();
+	}
+
+	/**
+	 * Returns a human-readable report (one block per endpoint template)
+	 */
+	public synchronized String dump() {
+		StringBuilder result = new StringBuilder();
+		for (Map.Entry<String, Entry> e : entries.entrySet()) {
+			Entry entry = e.getValue();
+			result.append(e.getKey()).append('\n');
+			result.append(StringUtils.format("  requests=%d failed=%d retries=%d sent=%d received=%d decoded=%d\n",
+					entry.requests, entry.failures, entry.retries, entry.requestBytes, entry.responseBytes, entry.decodedResponseBytes));
+			result.append("  ttfb:  ").append(formatHistogram(entry.timeToFirstByteHistogram)).append('\n');
+			result.append("  total: ").append(formatHistogram(entry.totalHistogram)).append('\n');
+		}
+		return result.toString();
+	}
+
+	private static String formatHistogram(int[] histogram) {
+		StringBuilder result = new StringBuilder();
+		for (int i = 0; i < histogram.length; ++i) {
+			if (i > 0) {
+				result.append(' ');
+			}
+			if (i < BUCKET_BOUNDS_MILLIS.length) {
+				result.append("<").append(BUCKET_BOUNDS_MILLIS[i]);
+			} else {
+				result.append(">=").append(BUCKET_BOUNDS_MILLIS[BUCKET_BOUNDS_MILLIS.length - 1]);
+			}
+			result.append("ms:").append(histogram[i]);
+		}
+		return result.toString();
+	}
+
+	private static int bucketIndex(long millis) {
+		for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; ++i) {
+			if (millis < BUCKET_BOUNDS_MILLIS[i]) {
+				return i;
+			}
+		}
+		return BUCKET_BOUNDS_MILLIS.length;
+	}
+
+	private static class Entry {
+		int requests;
+		int failures;
+		int retries;
+		long requestBytes;
+		long responseBytes;
+		long decodedResponseBytes;
+		final int[] timeToFirstByteHistogram = new int[BUCKET_BOUNDS_MILLIS.length + 1];
+		final int[] totalHistogram = new int[BUCKET_BOUNDS_MILLIS.length + 1];
+
+		void record(HttpRequestMetrics metrics, boolean successful) {
+			++requests;
+			if (!successful) {
+				++failures;
+			}
+			retries += metrics.getRetryCount();
+			requestBytes += metrics.getRequestBytes();
+			responseBytes += metrics.getResponseBytes();
+			decodedResponseBytes += metrics.getDecodedResponseBytes();
+
+			if (metrics.getTimeToFirstByteMillis() != -1) {
+				++timeToFirstByteHistogram[bucketIndex(metrics.getTimeToFirstByteMillis())];
+			}
+			if (metrics.getTotalMillis() != -1) {
+				++totalHistogram[bucketIndex(metrics.getTotalMillis())];
+			}
+		}
+	}
+}
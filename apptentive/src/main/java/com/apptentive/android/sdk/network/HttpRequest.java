@@ -7,11 +7,14 @@
 package com.apptentive.android.sdk.network;
 
 import android.util.Base64;
+import androidx.annotation.Nullable;
 
 import com.apptentive.android.sdk.Apptentive;
 import com.apptentive.android.sdk.ApptentiveLog;
 import com.apptentive.android.sdk.debug.ErrorMetrics;
+import com.apptentive.android.sdk.debug.Tracing;
 import com.apptentive.android.sdk.util.Constants;
+import com.apptentive.android.sdk.util.CountingInputStream;
 import com.apptentive.android.sdk.util.StringUtils;
 import com.apptentive.android.sdk.util.Util;
 import com.apptentive.android.sdk.util.threading.DispatchQueue;
@@ -19,6 +22,7 @@ import com.apptentive.android.sdk.util.threading.DispatchTask;
 
 import org.json.JSONObject;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -47,6 +51,11 @@ public class HttpRequest {
 	 */
 	private static final HttpRequestRetryPolicy DEFAULT_RETRY_POLICY = new HttpRequestRetryPolicyDefault();
 
+	/**
+	 * Default transport (used if a custom one is not specified)
+	 */
+	private static final HttpTransport DEFAULT_TRANSPORT = new UrlConnectionTransport();
+
 	/**
 	 * Id-number of the next request
 	 */
@@ -62,6 +71,31 @@ public class HttpRequest {
 	 */
 	private HttpURLConnection connection;
 
+	/**
+	 * Transport for opening and releasing connections
+	 */
+	private HttpTransport transport = DEFAULT_TRANSPORT;
+
+	/**
+	 * Flag indicating if the response was fully read and the connection can be kept alive
+	 */
+	private boolean connectionReusable;
+
+	/**
+	 * Flag indicating if the connection was opened by the transport (and should be released to it)
+	 */
+	private boolean transportConnection;
+
+	/**
+	 * Timings and byte counts of the request
+	 */
+	private final HttpRequestMetrics metrics = new HttpRequestMetrics();
+
+	/**
+	 * Endpoint template the metrics of this request are aggregated under (optional)
+	 */
+	private String endpointTemplate;
+
 	/**
 	 * Optional request tag (for an easy request identification)
 	 */
@@ -142,6 +176,36 @@ public class HttpRequest {
 	 */
 	boolean retrying;
 
+	/**
+	 * Flag indicating if identical requests (with the same tag) should share this request's network call
+	 */
+	private boolean singleFlight;
+
+	/**
+	 * Requests sharing this request's network call (guarded by the request manager)
+	 */
+	List<HttpRequest> joinedRequests;
+
+	/**
+	 * Flag indicating if the network call is done and no more requests can join (guarded by the request manager)
+	 */
+	boolean completed;
+
+	/**
+	 * Flag indicating if this request shares the network call of another request
+	 */
+	boolean joined;
+
+	/**
+	 * Kind of the request in the request journal (or <code>null</code> if the request is not journaled)
+	 */
+	private String journalKind;
+
+	/**
+	 * Flag indicating if the last attempt failed because the network was not available
+	 */
+	boolean networkUnavailable;
+
 	@SuppressWarnings("rawtypes")
 	private List<Listener> listeners;
 
@@ -150,9 +214,17 @@ public class HttpRequest {
 	 */
 	private DispatchQueue callbackQueue;
 
+	/**
+	 * Optional handler for streaming the response body (if <code>null</code> - the body is read into {@link #responseData})
+	 */
+	private HttpResponseHandler responseHandler;
+
 	/** Optional injector for debugging purposes */
 	private Injector injector;
 
+	/** Parent trace span id for the request span */
+	private long traceParentId = Tracing.NO_PARENT;
+
 	public HttpRequest(String urlString) {
 		if (urlString == null || urlString.length() == 0) {
 			throw new IllegalArgumentException("Invalid URL string '" + urlString + "'");
@@ -205,7 +277,10 @@ public class HttpRequest {
 				}
 			}
 		} finally {
-			requestManager.unregisterRequest(HttpRequest.this);
+			// joined requests are never registered with the manager
+			if (!joined) {
+				requestManager.unregisterRequest(HttpRequest.this);
+			}
 		}
 	}
 
@@ -231,9 +306,13 @@ public class HttpRequest {
 	void dispatchSync(DispatchQueue networkQueue) {
 		long requestStartTime = System.currentTimeMillis();
 
+		Tracing.Span span = Tracing.startSpan("http", urlString, traceParentId);
+		metrics.onAttemptStart();
+		networkUnavailable = false;
 		try {
 			sendRequestSync();
 		} catch (NetworkUnavailableException e) {
+			networkUnavailable = true;
 			responseCode = -1; // indicates failure
 			errorMessage = e.getMessage();
 			ApptentiveLog.w(NETWORK, e.getMessage());
@@ -247,6 +326,8 @@ public class HttpRequest {
 			}
 
 			// TODO: send error metrics with the details of the request
+		} finally {
+			span.end();
 		}
 
 		ApptentiveLog.d(NETWORK, "Request finished in %d ms", System.currentTimeMillis() - requestStartTime);
@@ -256,6 +337,46 @@ public class HttpRequest {
 			return;
 		}
 
+		metrics.onFinish(responseCode);
+		ApptentiveLog.v(NETWORK, "Request metrics: %s", metrics);
+
+		// fan the result out to the requests which joined this one
+		List<HttpRequest> joinedRequests = requestManager.completeRequest(this);
+		if (joinedRequests != null) {
+			for (HttpRequest joinedRequest : joinedRequests) {
+				joinedRequest.finishJoinedRequest(this);
+			}
+		}
+
+		dispatchFinishRequest();
+	}
+
+	/**
+	 * Completes a joined request with the result of the request it shared the network call with
+	 */
+	private void finishJoinedRequest(HttpRequest request) {
+		responseCode = request.responseCode;
+		responseHeaders = request.responseHeaders;
+		responseData = request.responseData;
+		errorMessage = request.errorMessage;
+		if (request.isCancelled()) {
+			cancel();
+		}
+
+		if (isSuccessful() && !isCancelled()) {
+			try {
+				handleResponse(responseData);
+			} catch (Exception e) {
+				responseCode = -1; // indicates failure
+				errorMessage = e.getMessage();
+				ApptentiveLog.e(NETWORK, "Unable to handle joined request response: %s", this);
+			}
+		}
+
+		dispatchFinishRequest();
+	}
+
+	private void dispatchFinishRequest() {
 		// use custom callback queue (if any)
 		if (callbackQueue != null) {
 			callbackQueue.dispatchAsync(new DispatchTask() {
@@ -281,6 +402,8 @@ public class HttpRequest {
 				ApptentiveLog.v(NETWORK, "%s", toString());
 			}
 			retrying = false;
+			connectionReusable = false;
+			transportConnection = false;
 
 			connection = openConnection(url);
 			connection.setRequestMethod(method.toString());
@@ -300,25 +423,32 @@ public class HttpRequest {
 				setupRequestProperties(connection, requestProperties);
 			}
 
+			byte[] requestData = null;
 			if (!HttpRequestMethod.GET.equals(method)) {
 				connection.setDoInput(true);
 				connection.setDoOutput(true);
 				connection.setUseCaches(false);
+				requestData = createRequestData();
+			}
 
-				byte[] requestData = createRequestData();
-				if (requestData != null && requestData.length > 0) {
-					OutputStream outputStream = null;
-					try {
-						outputStream = connection.getOutputStream();
-						outputStream.write(requestData);
-					} finally {
-						Util.ensureClosed(outputStream);
-					}
+			// connect explicitly to measure the connection time separately from the response time
+			connection.connect();
+			metrics.onConnected();
+
+			if (requestData != null && requestData.length > 0) {
+				OutputStream outputStream = null;
+				try {
+					outputStream = connection.getOutputStream();
+					outputStream.write(requestData);
+				} finally {
+					Util.ensureClosed(outputStream);
 				}
+				metrics.onRequestSent(requestData.length);
 			}
 
 			// send request
 			responseCode = connection.getResponseCode();
+			metrics.onFirstByte(responseCode);
 			ApptentiveLog.d(NETWORK, "Response %s: %d %s", url, responseCode, connection.getResponseMessage());
 
 			if (isCancelled()) {
@@ -330,8 +460,18 @@ public class HttpRequest {
 
 			// TODO: figure out a better way of handling response codes
 			boolean gzipped = isGzipContentEncoding(responseHeaders);
-			if (responseCode >= HttpURLConnection.HTTP_OK && responseCode < HttpURLConnection.HTTP_MULT_CHOICE) {
-				responseData = readResponse(connection.getInputStream(), gzipped);
+			if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+				// conditional request: cached data is still valid and the response has no body
+				responseData = "";
+				connectionReusable = true;
+				ApptentiveLog.v(NETWORK, "Response data: not modified");
+			} else if (responseCode >= HttpURLConnection.HTTP_OK && responseCode < HttpURLConnection.HTTP_MULT_CHOICE && responseHandler != null) {
+				handleResponseStream(connection.getInputStream(), gzipped, connection.getContentLength(), metrics);
+				connectionReusable = true;
+				ApptentiveLog.v(NETWORK, "Response data: handled by %s", responseHandler);
+			} else if (responseCode >= HttpURLConnection.HTTP_OK && responseCode < HttpURLConnection.HTTP_MULT_CHOICE) {
+				responseData = readResponse(connection.getInputStream(), gzipped, connection.getContentLength(), metrics);
+				connectionReusable = true;
 				if (ApptentiveLog.shouldSanitizeLogMessages()) {
 					ApptentiveLog.v(NETWORK, "Response data: <HIDDEN> %d bytes", responseData.length());
 				} else {
@@ -339,7 +479,13 @@ public class HttpRequest {
 				}
 			} else {
 				errorMessage = StringUtils.format("Unexpected response code: %d (%s)", responseCode, connection.getResponseMessage());
-				responseData = readResponse(connection.getErrorStream(), gzipped);
+				try {
+					responseData = readResponse(connection.getErrorStream(), gzipped, connection.getContentLength(), metrics);
+					connectionReusable = true;
+				} catch (IOException e) {
+					// keep the response code: failing to read the error details doesn't change the outcome
+					ApptentiveLog.w(NETWORK, e, "Unable to read error response data");
+				}
 				ApptentiveLog.w(NETWORK, "Error response data: %s", responseData);
 			}
 
@@ -376,6 +522,12 @@ public class HttpRequest {
 	private boolean retryRequest(DispatchQueue networkQueue, int responseCode) {
 		assertFalse(retryDispatchTask.isScheduled());
 
+		// journaled requests are replayed once the connection is back (instead of retrying offline)
+		if (networkUnavailable && isJournaled()) {
+			ApptentiveLog.v(NETWORK, "Network is unavailable: request is left for the journal replay: %s", this);
+			return false;
+		}
+
 		++retryAttempt;
 
 		if (!retryPolicy.shouldRetryRequest(responseCode, retryAttempt)) {
@@ -409,13 +561,22 @@ public class HttpRequest {
 
 	/* This method can be overridden in a subclass for customizing or mocking the connection */
 	protected HttpURLConnection openConnection(URL url) throws IOException {
-		return (HttpURLConnection) url.openConnection();
+		HttpURLConnection connection = transport.openConnection(url);
+		transportConnection = true;
+		return connection;
 	}
 
 	private void closeConnection() {
 		if (connection != null) {
-			connection.disconnect();
+			HttpURLConnection releasedConnection = connection;
 			connection = null;
+			// keep the connection alive unless the request failed or was cancelled half way
+			boolean reusable = connectionReusable && !isCancelled();
+			if (transportConnection) {
+				transport.releaseConnection(releasedConnection, reusable);
+			} else if (!reusable) {
+				releasedConnection.disconnect(); // the connection was opened by a subclass
+			}
 		}
 	}
 
@@ -436,21 +597,85 @@ public class HttpRequest {
 		return false;
 	}
 
-	private static String readResponse(InputStream is, boolean gzipped) throws IOException {
+	private static final int READ_BUFFER_SIZE = 8192;
+
+	/**
+	 * Read buffers are reused across requests (each network thread gets its own)
+	 */
+	private static final ThreadLocal<byte[]> READ_BUFFER = new ThreadLocal<byte[]>() {
+		@Override
+		protected byte[] initialValue() {
+			return new byte[READ_BUFFER_SIZE];
+		}
+	};
+
+	private static String readResponse(InputStream is, boolean gzipped, int contentLength, HttpRequestMetrics metrics) throws IOException {
 		if (is == null) {
 			return null;
 		}
 
+		CountingInputStream rawStream = new CountingInputStream(is);
+		is = rawStream;
 		try {
 			if (gzipped) {
 				is = new GZIPInputStream(is);
+				contentLength = -1; // compressed size is no hint for the decoded size
+			}
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream(contentLength > 0 ? contentLength : READ_BUFFER_SIZE);
+			byte[] buffer = READ_BUFFER.get();
+			int read;
+			while ((read = is.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			metrics.onResponseRead(rawStream.getBytesRead(), out.size());
+			return out.toString("UTF-8");
+		} finally {
+			Util.ensureClosed(is);
+		}
+	}
+
+	private void handleResponseStream(InputStream is, boolean gzipped, int contentLength, HttpRequestMetrics metrics) throws IOException {
+		if (is == null) {
+			return;
+		}
+
+		CountingInputStream rawStream = new CountingInputStream(is);
+		is = rawStream;
+		try {
+			// the body is not needed: skip it without unzipping
+			if (responseHandler == HttpResponseHandler.DISCARD) {
+				skipStream(is);
+				metrics.onResponseRead(rawStream.getBytesRead(), rawStream.getBytesRead());
+				return;
 			}
-			return Util.readStringFromInputStream(is, "UTF-8");
+
+			CountingInputStream decodedStream = rawStream;
+			if (gzipped) {
+				decodedStream = new CountingInputStream(new GZIPInputStream(rawStream));
+				contentLength = -1;
+			}
+			is = decodedStream;
+			responseHandler.handleResponse(this, is, contentLength);
+
+			// drain whatever the handler didn't read so the connection can be reused
+			skipStream(is);
+			metrics.onResponseRead(rawStream.getBytesRead(), decodedStream.getBytesRead());
 		} finally {
 			Util.ensureClosed(is);
 		}
 	}
 
+	/**
+	 * Reads the stream to the end using a pooled buffer (so the connection can be reused)
+	 */
+	static void skipStream(InputStream is) throws IOException {
+		byte[] buffer = READ_BUFFER.get();
+		while (is.read(buffer) != -1) {
+			// skip
+		}
+	}
+
 	//endregion
 
 	//region Cancellation
@@ -485,6 +710,18 @@ public class HttpRequest {
 		}
 	}
 
+	/**
+	 * Makes this request conditional: the server would respond with <code>304 Not Modified</code>
+	 * (and no body) if the resource still matches the validators of a previously received response.
+	 *
+	 * @param eTag         - value of the <code>ETag</code> header of the cached response (or <code>null</code>)
+	 * @param lastModified - value of the <code>Last-Modified</code> header of the cached response (or <code>null</code>)
+	 */
+	public void setCacheValidators(@Nullable String eTag, @Nullable String lastModified) {
+		setRequestProperty("If-None-Match", eTag);
+		setRequestProperty("If-Modified-Since", lastModified);
+	}
+
 	//endregion
 
 	//region String representation
@@ -564,7 +801,15 @@ public class HttpRequest {
 	}
 
 	public boolean isSuccessful() {
-		return responseCode >= 200 && responseCode < 300;
+		return (responseCode >= 200 && responseCode < 300) || isNotModified();
+	}
+
+	/**
+	 * Returns <code>true</code> if the server responded to a conditional request with
+	 * <code>304 Not Modified</code> (see {@link #setCacheValidators(String, String)})
+	 */
+	public boolean isNotModified() {
+		return responseCode == HttpURLConnection.HTTP_NOT_MODIFIED;
 	}
 
 	public boolean isFailed() {
@@ -619,6 +864,25 @@ public class HttpRequest {
 		return responseHeaders != null ? responseHeaders.get(key) : null;
 	}
 
+	/**
+	 * Returns the value of a single-valued response header (case-insensitive lookup without the list
+	 * brackets of {@link #getResponseHeader(String)}) or <code>null</code> if it's missing
+	 */
+	public @Nullable String getResponseHeaderValue(String key) {
+		if (responseHeaders != null) {
+			for (Entry<String, String> entry : responseHeaders.entrySet()) {
+				if (key.equalsIgnoreCase(entry.getKey())) {
+					String value = entry.getValue();
+					if (value != null && value.startsWith("[") && value.endsWith("]")) {
+						value = value.substring(1, value.length() - 1);
+					}
+					return value;
+				}
+			}
+		}
+		return null;
+	}
+
 	public boolean isAuthenticationFailure() {
 		return responseCode == 401;
 	}
@@ -651,10 +915,95 @@ public class HttpRequest {
 		responseCode = code;
 	}
 
+	/**
+	 * Sets a handler for streaming the body of a successful response. The body is not stored and
+	 * {@link #getResponseData()} returns <code>null</code>.
+	 */
+	public void setResponseHandler(HttpResponseHandler responseHandler) {
+		this.responseHandler = responseHandler;
+	}
+
+	/**
+	 * Sets a transport for opening connections (the shared {@link UrlConnectionTransport} is used by default)
+	 */
+	public void setTransport(HttpTransport transport) {
+		if (transport == null) {
+			throw new IllegalArgumentException("Transport is null");
+		}
+		this.transport = transport;
+	}
+
+	/**
+	 * Timings and byte counts of the request (complete once the request finishes)
+	 */
+	public HttpRequestMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Sets the endpoint template (e.g. <code>/conversations/%s/interactions</code>) the request
+	 * metrics are aggregated under by the request manager
+	 */
+	public void setEndpointTemplate(String endpointTemplate) {
+		this.endpointTemplate = endpointTemplate;
+	}
+
+	public String getEndpointTemplate() {
+		return endpointTemplate;
+	}
+
+	public HttpTransport getTransport() {
+		return transport;
+	}
+
+	/**
+	 * Returns the shared transport used by requests without a custom one
+	 */
+	public static HttpTransport getDefaultTransport() {
+		return DEFAULT_TRANSPORT;
+	}
+
+	/**
+	 * Makes the request single-flight: if an identical request (a single-flight request with the
+	 * same tag) is already in flight, this request doesn't go to the network but receives the
+	 * result of the active one (listeners of both requests are notified).
+	 * Not supported for requests with a response handler.
+	 */
+	public void setSingleFlight(boolean singleFlight) {
+		this.singleFlight = singleFlight;
+	}
+
+	public boolean isSingleFlight() {
+		return singleFlight && responseHandler == null;
+	}
+
+	/**
+	 * Records the request in the request manager's journal while it's active: if it fails because
+	 * the network is not available it's replayed later (even after a restart) by the replayer
+	 * registered for the <code>kind</code>. Active requests are only journaled in memory: a request
+	 * which was in flight when the process died is not replayed. Only for idempotent requests with
+	 * a tag.
+	 */
+	public void setJournalKind(String journalKind) {
+		this.journalKind = journalKind;
+	}
+
+	public String getJournalKind() {
+		return journalKind;
+	}
+
+	boolean isJournaled() {
+		return journalKind != null && tag != null;
+	}
+
 	public void setInjector(Injector injector) {
 		this.injector = injector;
 	}
 
+	public void setTraceParentId(long traceParentId) {
+		this.traceParentId = traceParentId;
+	}
+
 	//endregion
 
 	//region Listener
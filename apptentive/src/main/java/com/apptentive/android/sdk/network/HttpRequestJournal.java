@@ -0,0 +1,443 @@
+/*
+ * Copyright (c) 2018, Apptentive, Inc. All Rights Reserved.
+ * Please refer to the LICENSE file for the terms and conditions
+ * under which redistribution and use of this file is permitted.
+ */
+
+package com.apptentive.android.sdk.network;
+
+import com.apptentive.android.sdk.ApptentiveLog;
+import com.apptentive.android.sdk.util.Util;
+import com.apptentive.android.sdk.util.threading.DispatchQueue;
+import com.apptentive.android.sdk.util.threading.DispatchTask;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.apptentive.android.sdk.ApptentiveLogTag.NETWORK;
+import static com.apptentive.android.sdk.debug.ErrorMetrics.logException;
+
+/**
+ * Durable record of idempotent API requests (fetches) which haven't finished yet. Requests are
+ * journaled by their tag while active and removed once they finish, so the entries left after the
+ * network goes away can be replayed later. Requests are not persisted themselves: each entry has a
+ * "kind" and replaying an entry calls the {@link Replayer} registered for that kind (at most once
+ * per replay, no matter how many entries of the kind are pending).
+ * <p/>
+ * Active requests are only tracked in memory: an entry is written to the file once it is retained
+ * after a network failure (see {@link #retain(String)}). The file is loaded and saved on the I/O
+ * queue, so callers never block on the disk.
+ */
+public class HttpRequestJournal {
+	/**
+	 * Max number of entries kept in the journal (the oldest ones are dropped)
+	 */
+	private static final int MAX_ENTRIES = 32;
+
+	/**
+	 * Entries older than this are dropped when the journal is loaded
+	 */
+	private static final long ENTRY_EXPIRATION_MILLIS = 24 * 60 * 60 * 1000L;
+
+	private static final String KEY_ENTRIES = "entries";
+	private static final String KEY_TAG = "tag";
+	private static final String KEY_KIND = "kind";
+	private static final String KEY_TIMESTAMP = "timestamp";
+
+	private final File file;
+
+	/**
+	 * Queue for loading and saving the journal file
+	 */
+	private final DispatchQueue ioQueue;
+
+	/**
+	 * Pending entries in the insertion order (by request tag)
+	 */
+	private final Map<String, Entry> entries;
+
+	/**
+	 * Tags removed before the file was loaded (their stored entries are stale)
+	 */
+	private final Set<String> removedTags;
+
+	private final Map<String, Replayer> replayers;
+
+	/**
+	 * Guards loading the file
+	 */
+	private final Object loadLock = new Object();
+
+	/**
+	 * Guards writing the file (saves should not overtake each other on a concurrent queue)
+	 */
+	private final Object saveLock = new Object();
+
+	private boolean loaded;
+
+	private final DispatchTask loadTask = new DispatchTask() {
+		@Override
+		protected void execute() {
+			ensureLoaded();
+		}
+	};
+
+	private final DispatchTask saveTask = new DispatchTask() {
+		@Override
+		protected void execute() {
+			ensureLoaded(); // never overwrite the entries which were not loaded yet
+			save();
+		}
+	};
+
+	public HttpRequestJournal(File file) {
+		this(file, DispatchQueue.backgroundQueue());
+	}
+
+	HttpRequestJournal(File file, DispatchQueue ioQueue) {
+		if (file == null) {
+			throw new IllegalArgumentException("File is null");
+		}
+		if (ioQueue == null) {
+			throw new IllegalArgumentException("I/O queue is null");
+		}
+		this.file = file;
+		this.ioQueue = ioQueue;
+		this.entries = new LinkedHashMap<>();
+		this.removedTags = new HashSet<>();
+		this.replayers = new HashMap<>();
+		ioQueue.dispatchAsync(loadTask);
+	}
+
+	//region Entries
+
+	/**
+	 * Records an active request (does nothing if a request with the same tag is already journaled)
+	 */
+	public synchronized void add(String tag, String kind) {
+		if (tag == null) {
+			throw new IllegalArgumentException("Tag is null");
+		}
+		if (kind == null) {
+			throw new IllegalArgumentException("Kind is null");
+		}
+
+		if (entries.containsKey(tag)) {
+			return;
+		}
+
+		if (entries.size() >= MAX_ENTRIES) {
+			Iterator<Entry> iterator = entries.values().iterator();
+			if (iterator.next().persistent) {
+				scheduleSave();
+			}
+			iterator.remove();
+		}
+
+		entries.put(tag, new Entry(tag, kind, System.currentTimeMillis()));
+	}
+
+	/**
+	 * Keeps the entry of a request which failed because of the network (the entry is saved to the
+	 * file so it survives a restart)
+	 */
+	public synchronized void retain(String tag) {
+		Entry entry = entries.get(tag);
+		if (entry != null && !entry.persistent) {
+			entry.persistent = true;
+			scheduleSave();
+		}
+	}
+
+	/**
+	 * Removes a finished request
+	 */
+	public synchronized void remove(String tag) {
+		if (!loaded) {
+			removedTags.add(tag);
+		}
+
+		Entry entry = entries.remove(tag);
+		if (entry != null && entry.persistent) {
+			scheduleSave();
+		}
+	}
+
+	public synchronized void clear() {
+		if (!loaded) {
+			removedTags.addAll(entries.keySet());
+		}
+
+		if (entries.size() > 0) {
+			entries.clear();
+			scheduleSave();
+		}
+	}
+
+	public synchronized boolean contains(String tag) {
+		return entries.containsKey(tag);
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	//endregion
+
+	//region Replay
+
+	/**
+	 * Registers a replayer for journal entries of the specified kind
+	 */
+	public synchronized void registerReplayer(String kind, Replayer replayer) {
+		if (kind == null) {
+			throw new IllegalArgumentException("Kind is null");
+		}
+		if (replayer == null) {
+			throw new IllegalArgumentException("Replayer is null");
+		}
+		replayers.put(kind, replayer);
+	}
+
+	public synchronized void unregisterReplayer(String kind, Replayer replayer) {
+		if (replayers.get(kind) == replayer) {
+			replayers.remove(kind);
+		}
+	}
+
+	private synchronized Replayer getReplayer(String kind) {
+		return replayers.get(kind);
+	}
+
+	/**
+	 * Calls the replayer for each kind of pending entries once. Entries of a kind are removed after
+	 * its replayer handled them (unless a replayed request with the same tag is active: the entry
+	 * stays as its journal record). Entries without a registered replayer, entries with an active
+	 * request and entries whose replayer could not handle them yet are left in the journal.
+	 *
+	 * @param requestManager - manager used to skip requests which are already in flight
+	 * @return number of replayers which handled the entries
+	 */
+	public int replay(HttpRequestManager requestManager) {
+		ensureLoaded(); // the entries from the previous session
+
+		List<Entry> pendingEntries;
+		synchronized (this) {
+			pendingEntries = new ArrayList<>(entries.values());
+		}
+
+		// the request manager is not queried under the journal lock (it journals requests under its own lock)
+		Map<Replayer, List<String>> pendingTags = new LinkedHashMap<>();
+		for (Entry entry : pendingEntries) {
+			Replayer replayer = getReplayer(entry.kind);
+			if (replayer == null) {
+				continue;
+			}
+
+			if (isActive(requestManager, entry.tag)) {
+				continue; // already in flight
+			}
+
+			List<String> tags = pendingTags.get(replayer);
+			if (tags == null) {
+				tags = new ArrayList<>();
+				pendingTags.put(replayer, tags);
+			}
+			tags.add(entry.tag);
+		}
+
+		// replayers start (and journal) new requests
+		List<String> replayedTags = new ArrayList<>();
+		int replayedCount = 0;
+		for (Map.Entry<Replayer, List<String>> pending : pendingTags.entrySet()) {
+			try {
+				if (pending.getKey().replay()) {
+					replayedTags.addAll(pending.getValue());
+					++replayedCount;
+				}
+			} catch (Exception e) {
+				ApptentiveLog.e(NETWORK, e, "Exception while replaying journaled requests");
+				logException(e);
+			}
+		}
+
+		for (String tag : replayedTags) {
+			if (!isActive(requestManager, tag)) {
+				remove(tag);
+			}
+		}
+
+		if (replayedCount > 0) {
+			ApptentiveLog.d(NETWORK, "Replayed %d journaled request(s)", replayedCount);
+		}
+
+		return replayedCount;
+	}
+
+	private static boolean isActive(HttpRequestManager requestManager, String tag) {
+		return requestManager != null && requestManager.findRequest(tag) != null;
+	}
+
+	//endregion
+
+	//region Persistence
+
+	/**
+	 * Loads the file once (the caller blocks until the entries are loaded)
+	 */
+	private void ensureLoaded() {
+		synchronized (loadLock) {
+			if (!loaded) {
+				List<Entry> storedEntries = load();
+				mergeStoredEntries(storedEntries);
+			}
+		}
+	}
+
+	private List<Entry> load() {
+		List<Entry> storedEntries = new ArrayList<>();
+		if (!file.exists()) {
+			return storedEntries;
+		}
+
+		try {
+			JSONObject json = new JSONObject(new String(Util.readBytes(file), "UTF-8"));
+			JSONArray array = json.getJSONArray(KEY_ENTRIES);
+			long minTimestamp = System.currentTimeMillis() - ENTRY_EXPIRATION_MILLIS;
+			for (int i = 0; i < array.length(); ++i) {
+				JSONObject item = array.getJSONObject(i);
+				Entry entry = new Entry(item.getString(KEY_TAG), item.getString(KEY_KIND), item.getLong(KEY_TIMESTAMP));
+				if (entry.timestamp > minTimestamp) {
+					entry.persistent = true;
+					storedEntries.add(entry);
+				}
+			}
+			ApptentiveLog.v(NETWORK, "Loaded %d journaled request(s)", storedEntries.size());
+		} catch (Exception e) {
+			ApptentiveLog.e(NETWORK, e, "Unable to load request journal: %s", file);
+			logException(e);
+		}
+		return storedEntries;
+	}
+
+	/**
+	 * Adds the entries from the file to the ones journaled while it was loading
+	 */
+	private synchronized void mergeStoredEntries(List<Entry> storedEntries) {
+		Map<String, Entry> activeEntries = new LinkedHashMap<>(entries);
+		entries.clear();
+
+		boolean needsSave = false;
+		for (Entry entry : storedEntries) {
+			if (removedTags.contains(entry.tag)) {
+				needsSave = true; // the file has a stale entry
+			} else {
+				entries.put(entry.tag, entry);
+			}
+		}
+
+		for (Entry entry : activeEntries.values()) {
+			Entry storedEntry = entries.remove(entry.tag);
+			if (storedEntry != null) {
+				entry.persistent = true; // the entry is in the file already
+			}
+			entries.put(entry.tag, entry);
+		}
+
+		while (entries.size() > MAX_ENTRIES) {
+			Iterator<Entry> iterator = entries.values().iterator();
+			iterator.next();
+			iterator.remove();
+			needsSave = true;
+		}
+
+		removedTags.clear();
+		loaded = true;
+
+		if (needsSave) {
+			scheduleSave();
+		}
+	}
+
+	private void scheduleSave() {
+		ioQueue.dispatchAsyncOnce(saveTask);
+	}
+
+	private void save() {
+		synchronized (saveLock) {
+			try {
+				JSONArray array = new JSONArray();
+				for (Entry entry : getPersistentEntries()) {
+					JSONObject item = new JSONObject();
+					item.put(KEY_TAG, entry.tag);
+					item.put(KEY_KIND, entry.kind);
+					item.put(KEY_TIMESTAMP, entry.timestamp);
+					array.put(item);
+				}
+
+				JSONObject json = new JSONObject();
+				json.put(KEY_ENTRIES, array);
+				Util.writeAtomically(file, json.toString().getBytes("UTF-8"));
+			} catch (JSONException | IOException e) {
+				ApptentiveLog.e(NETWORK, e, "Unable to save request journal: %s", file);
+				logException(e);
+			}
+		}
+	}
+
+	private synchronized List<Entry> getPersistentEntries() {
+		List<Entry> persistentEntries = new ArrayList<>();
+		for (Entry entry : entries.values()) {
+			if (entry.persistent) {
+				persistentEntries.add(entry);
+			}
+		}
+		return persistentEntries;
+	}
+
+	//endregion
+
+	//region Helper classes
+
+	/**
+	 * Re-issues journaled requests of a specific kind
+	 */
+	public interface Replayer {
+		/**
+		 * @return <code>true</code> if the entries were handled (a request was issued or it's no longer
+		 * needed) or <code>false</code> if they should be kept for the next replay
+		 */
+		boolean replay();
+	}
+
+	private static class Entry {
+		final String tag;
+		final String kind;
+		final long timestamp;
+
+		/**
+		 * True if the entry should be stored in the file
+		 */
+		boolean persistent;
+
+		Entry(String tag, String kind, long timestamp) {
+			this.tag = tag;
+			this.kind = kind;
+			this.timestamp = timestamp;
+		}
+	}
+
+	//endregion
+}
@@ -1,13 +1,16 @@
 package com.apptentive.android.sdk.network;
 
-import com.apptentive.android.sdk.util.StringUtils;
+import com.apptentive.android.sdk.ApptentiveLog;
 import com.apptentive.android.sdk.util.threading.DispatchQueue;
 import com.apptentive.android.sdk.util.threading.DispatchQueueType;
 import com.apptentive.android.sdk.util.threading.DispatchTask;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import static com.apptentive.android.sdk.ApptentiveLogTag.NETWORK;
 import static com.apptentive.android.sdk.debug.Assert.*;
 
 /**
@@ -19,6 +22,11 @@ public class HttpRequestManager {
 	 */
 	private List<HttpRequest> activeRequests;
 
+	/**
+	 * Active requests indexed by tag (only tagged requests)
+	 */
+	private final Map<String, HttpRequest> activeRequestsByTag;
+
 	/**
 	 * Dispatch queue for blocking network operations
 	 */
@@ -27,6 +35,16 @@ public class HttpRequestManager {
 	private Listener listener;
 	private HttpRequest.Injector requestInjector;
 
+	/**
+	 * Optional durable record of active idempotent requests
+	 */
+	private HttpRequestJournal journal;
+
+	/**
+	 * Aggregated metrics of the finished requests (by endpoint template)
+	 */
+	private final HttpEndpointStats endpointStats = new HttpEndpointStats();
+
 	/**
 	 * Creates a request manager with custom network dispatch queue
 	 *
@@ -39,6 +57,7 @@ public class HttpRequestManager {
 		}
 		this.networkQueue = networkQueue;
 		this.activeRequests = new ArrayList<>();
+		this.activeRequestsByTag = new HashMap<>();
 	}
 
 	//region Requests
@@ -55,6 +74,11 @@ public class HttpRequestManager {
 			request.setInjector(requestInjector);
 		}
 
+		// share an identical request which is already in flight
+		if (joinActiveRequest(request)) {
+			return request;
+		}
+
 		registerRequest(request);
 		dispatchRequest(request);
 		notifyRequestStarted(request);
@@ -74,6 +98,40 @@ public class HttpRequestManager {
 		});
 	}
 
+	/**
+	 * Attaches a single-flight request to an active single-flight request with the same tag: the
+	 * joined request doesn't go to the network and gets the result of the active one.
+	 *
+	 * @return <code>true</code> if the request was attached
+	 */
+	private boolean joinActiveRequest(HttpRequest request) {
+		if (!request.isSingleFlight() || request.getTag() == null) {
+			return false;
+		}
+
+		HttpRequest activeRequest = activeRequestsByTag.get(request.getTag());
+		if (activeRequest == null || !activeRequest.isSingleFlight() || activeRequest.completed || activeRequest.isCancelled()) {
+			return false;
+		}
+
+		if (activeRequest.joinedRequests == null) {
+			activeRequest.joinedRequests = new ArrayList<>();
+		}
+		activeRequest.joinedRequests.add(request);
+		request.joined = true;
+		return true;
+	}
+
+	/**
+	 * Marks the request as completed (no more requests can join it) and returns joined requests (if any)
+	 */
+	synchronized List<HttpRequest> completeRequest(HttpRequest request) {
+		request.completed = true;
+		List<HttpRequest> joinedRequests = request.joinedRequests;
+		request.joinedRequests = null;
+		return joinedRequests;
+	}
+
 	/**
 	 * Cancel all active requests
 	 */
@@ -93,6 +151,15 @@ public class HttpRequestManager {
 	synchronized void registerRequest(HttpRequest request) {
 		assertTrue(this == request.requestManager);
 		activeRequests.add(request);
+
+		String tag = request.getTag();
+		if (tag != null && !activeRequestsByTag.containsKey(tag)) {
+			activeRequestsByTag.put(tag, request);
+		}
+
+		if (journal != null && request.isJournaled()) {
+			journal.add(tag, request.getJournalKind());
+		}
 	}
 
 	/**
@@ -103,6 +170,34 @@ public class HttpRequestManager {
 		boolean removed = activeRequests.remove(request);
 		assertTrue(removed, "Attempted to unregister missing request: %s", request);
 
+		String tag = request.getTag();
+		if (tag != null && activeRequestsByTag.get(tag) == request) {
+			activeRequestsByTag.remove(tag);
+
+			// index another active request with the same tag (if any)
+			for (HttpRequest activeRequest : activeRequests) {
+				if (tag.equals(activeRequest.getTag())) {
+					activeRequestsByTag.put(tag, activeRequest);
+					break;
+				}
+			}
+		}
+
+		// requests which failed because of the network stay in the journal until it's replayed
+		if (journal != null && request.isJournaled()) {
+			if (request.isCancelled() || !request.networkUnavailable) {
+				if (activeRequestsByTag.get(tag) == null) {
+					journal.remove(tag);
+				}
+			} else {
+				journal.retain(tag);
+			}
+		}
+
+		if (request.getEndpointTemplate() != null && request.getMetrics().getAttempts() > 0) {
+			endpointStats.record(request.getEndpointTemplate(), request.getMetrics(), request.isSuccessful());
+		}
+
 		if (removed) {
 			notifyRequestFinished(request);
 		}
@@ -112,12 +207,35 @@ public class HttpRequestManager {
 	 * Returns a request with a specified tag or <code>null</code> is not found
 	 */
 	public synchronized HttpRequest findRequest(String tag) {
-		for (HttpRequest request : activeRequests) {
-			if (StringUtils.equal(request.getTag(), tag)) {
-				return request;
-			}
+		return tag != null ? activeRequestsByTag.get(tag) : null;
+	}
+
+	/**
+	 * Re-issues journaled requests which didn't finish (skipping the ones which are still active)
+	 *
+	 * @return number of journal replayers called
+	 */
+	public int replayJournal() {
+		HttpRequestJournal journal = getJournal();
+		return journal != null ? journal.replay(this) : 0;
+	}
+
+	//endregion
+
+	//region Metrics
+
+	public HttpEndpointStats getEndpointStats() {
+		return endpointStats;
+	}
+
+	/**
+	 * Writes aggregated request metrics into the log (ends up in the troubleshooting log files)
+	 */
+	public void exportMetrics() {
+		String report = endpointStats.dump();
+		if (report.length() > 0) {
+			ApptentiveLog.i(NETWORK, "HTTP request metrics:\n%s", report);
 		}
-		return null;
 	}
 
 	//endregion
@@ -162,6 +280,14 @@ public class HttpRequestManager {
 		this.requestInjector = requestInjector;
 	}
 
+	public synchronized HttpRequestJournal getJournal() {
+		return journal;
+	}
+
+	public synchronized void setJournal(HttpRequestJournal journal) {
+		this.journal = journal;
+	}
+
 	//endregion
 
 	//region Listener
@@ -169,6 +295,10 @@ public class HttpRequestManager {
 	public interface Listener {
 		void onRequestStart(HttpRequestManager manager, HttpRequest request);
 
+		/**
+		 * Called when a request finishes (including all its retries): timings and byte counts are
+		 * available through {@link HttpRequest#getMetrics()}
+		 */
 		void onRequestFinish(HttpRequestManager manager, HttpRequest request);
 
 		void onRequestsCancel(HttpRequestManager manager);
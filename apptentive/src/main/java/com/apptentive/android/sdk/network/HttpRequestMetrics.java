@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2018, Apptentive, Inc. All Rights Reserved.
+ * Please refer to the LICENSE file for the terms and conditions
+ * under which redistribution and use of this file is permitted.
+ */
+
+package com.apptentive.android.sdk.network;
+
+import com.apptentive.android.sdk.util.StringUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timings and byte counts of a single {@link HttpRequest} (the last attempt if the request was
+ * retried). Populated on the network thread and read once the request finishes.
+ * <p/>
+ * <code>HttpURLConnection</code> doesn't expose DNS resolution separately: it's part of the
+ * connect time.
+ */
+public final class HttpRequestMetrics {
+	private long requestStartNanos;
+	private long attemptStartNanos;
+
+	private long connectMillis = -1;
+	private long timeToFirstByteMillis = -1;
+	private long transferMillis = -1;
+	private long totalMillis = -1;
+
+	private long requestBytes;
+	private long responseBytes;
+	private long decodedResponseBytes;
+
+	private int attempts;
+	private int responseCode = -1;
+
+	//region Recording
+
+	void onAttemptStart() {
+		attemptStartNanos = System.nanoTime();
+		if (attempts++ == 0) {
+			requestStartNanos = attemptStartNanos;
+		}
+
+		// only the last attempt is recorded
+		connectMillis = timeToFirstByteMillis = transferMillis = -1;
+		requestBytes = responseBytes = decodedResponseBytes = 0;
+	}
+
+	void onConnected() {
+		connectMillis = millisSince(attemptStartNanos);
+	}
+
+	void onRequestSent(long requestBytes) {
+		this.requestBytes = requestBytes;
+	}
+
+	void onFirstByte(int responseCode) {
+		this.responseCode = responseCode;
+		timeToFirstByteMillis = millisSince(attemptStartNanos);
+	}
+
+	void onResponseRead(long responseBytes, long decodedResponseBytes) {
+		this.responseBytes = responseBytes;
+		this.decodedResponseBytes = decodedResponseBytes;
+		if (timeToFirstByteMillis != -1) {
+			transferMillis = millisSince(attemptStartNanos) - timeToFirstByteMillis;
+		}
+	}
+
+	void onFinish(int responseCode) {
+		this.responseCode = responseCode;
+		totalMillis = millisSince(requestStartNanos);
+	}
+
+	private static long millisSince(long startNanos) {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+	}
+
+	//endregion
+
+	//region Getters
+
+	/**
+	 * Time to open the connection including DNS lookup and TLS handshake (-1 if not connected)
+	 */
+	public long getConnectMillis() {
+		return connectMillis;
+	}
+
+	/**
+	 * Time from the start of the attempt to the response status (-1 if no response)
+	 */
+	public long getTimeToFirstByteMillis() {
+		return timeToFirstByteMillis;
+	}
+
+	/**
+	 * Time to read the response body (-1 if the body was not read)
+	 */
+	public long getTransferMillis() {
+		return transferMillis;
+	}
+
+	/**
+	 * Time from the start of the first attempt to the end of the last one (includes retry delays)
+	 */
+	public long getTotalMillis() {
+		return totalMillis;
+	}
+
+	public long getRequestBytes() {
+		return requestBytes;
+	}
+
+	/**
+	 * Response body size as received (compressed if gzipped)
+	 */
+	public long getResponseBytes() {
+		return responseBytes;
+	}
+
+	/**
+	 * Response body size after decoding (equals {@link #getResponseBytes()} if not gzipped)
+	 */
+	public long getDecodedResponseBytes() {
+		return decodedResponseBytes;
+	}
+
+	/**
+	 * Compressed to decoded response size ratio (1.0 if not compressed or no body)
+	 */
+	public double getCompressionRatio() {
+		return decodedResponseBytes > 0 ? (double) responseBytes / decodedResponseBytes : 1.0;
+	}
+
+	public int getAttempts() {
+		return attempts;
+	}
+
+	public int getRetryCount() {
+		return Math.max(0, attempts - 1);
+	}
+
+	public int getResponseCode() {
+		return responseCode;
+	}
+
+	//endregion
+
+	@Override
+	public String toString() {
+		return StringUtils.format("code=%d connect=%dms ttfb=%dms transfer=%dms total=%dms sent=%d received=%d decoded=%d retries=%d",
+				responseCode, connectMillis, timeToFirstByteMillis, transferMillis, totalMillis,
+				requestBytes, responseBytes, decodedResponseBytes, getRetryCount());
+	}
+}
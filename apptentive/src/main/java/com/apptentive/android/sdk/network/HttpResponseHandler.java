@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2018, Apptentive, Inc. All Rights Reserved.
+ * Please refer to the LICENSE file for the terms and conditions
+ * under which redistribution and use of this file is permitted.
+ */
+
+package com.apptentive.android.sdk.network;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Consumes the body of a successful HTTP response as a stream (instead of reading it into a
+ * <code>String</code>): the body can be stream-parsed, written to a file or discarded. The handler
+ * is called on the network thread and the stream is closed when it returns.
+ */
+public interface HttpResponseHandler {
+	/**
+	 * Reads the response body and ignores it (no decoding): for requests where only the response code matters
+	 */
+	HttpResponseHandler DISCARD = new HttpResponseHandler() {
+		@Override
+		public void handleResponse(HttpRequest request, InputStream stream, int contentLength) throws IOException {
+			HttpRequest.skipStream(stream);
+		}
+
+		@Override
+		public String toString() {
+			return "discard";
+		}
+	};
+
+	/**
+	 * @param request       - request which received the response
+	 * @param stream        - response body stream (already unzipped if needed)
+	 * @param contentLength - value of the <code>Content-Length</code> header or -1 if unknown
+	 */
+	void handleResponse(HttpRequest request, InputStream stream, int contentLength) throws IOException;
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2018, Apptentive, Inc. All Rights Reserved.
+ * Please refer to the LICENSE file for the terms and conditions
+ * under which redistribution and use of this file is permitted.
+ */
+
+package com.apptentive.android.sdk.network;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Opens and releases connections for HTTP requests. Implementations are expected to keep
+ * persistent connections alive between requests.
+ */
+public interface HttpTransport {
+	/**
+	 * Opens a connection for a request (the connection is not connected yet)
+	 */
+	HttpURLConnection openConnection(URL url) throws IOException;
+
+	/**
+	 * Called when a request is done with the connection.
+	 *
+	 * @param reusable - <code>true</code> if the response was fully read and the underlying
+	 *                 socket can be used for the next request; <code>false</code> if the request
+	 *                 failed or was cancelled and the connection should be torn down.
+	 */
+	void releaseConnection(HttpURLConnection connection, boolean reusable);
+
+	/**
+	 * Returns connection metrics of this transport
+	 */
+	HttpTransportMetrics getMetrics();
+}
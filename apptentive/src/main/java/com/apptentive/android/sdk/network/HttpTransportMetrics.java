@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2018, Apptentive, Inc. All Rights Reserved.
+ * Please refer to the LICENSE file for the terms and conditions
+ * under which redistribution and use of this file is permitted.
+ */
+
+package com.apptentive.android.sdk.network;
+
+import com.apptentive.android.sdk.util.StringUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe connection statistics of an {@link HttpTransport}. The counters are about
+ * <code>HttpURLConnection</code> objects handed out to requests (one per request attempt) and not
+ * about the sockets underneath: a pooled socket is reused by many connection objects. The
+ * kept-alive to opened ratio shows how often the socket could be returned to the pool.
+ */
+public final class HttpTransportMetrics {
+	private final AtomicInteger activeConnections = new AtomicInteger();
+	private final AtomicLong openedConnections = new AtomicLong();
+	private final AtomicLong keptAliveConnections = new AtomicLong();
+	private final AtomicLong disconnectedConnections = new AtomicLong();
+
+	public void onConnectionOpened() {
+		openedConnections.incrementAndGet();
+		activeConnections.incrementAndGet();
+	}
+
+	public void onConnectionReleased(boolean keptAlive) {
+		activeConnections.decrementAndGet();
+		if (keptAlive) {
+			keptAliveConnections.incrementAndGet();
+		} else {
+			disconnectedConnections.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Number of connection objects currently used by requests
+	 */
+	public int getActiveConnections() {
+		return activeConnections.get();
+	}
+
+	/**
+	 * Total number of connection objects handed out (equals the number of request attempts, not
+	 * the number of sockets)
+	 */
+	public long getOpenedConnections() {
+		return openedConnections.get();
+	}
+
+	/**
+	 * Number of connection objects released with a reusable socket (returned to the keep-alive pool)
+	 */
+	public long getKeptAliveConnections() {
+		return keptAliveConnections.get();
+	}
+
+	/**
+	 * Number of connection objects released with their socket torn down (failed or cancelled requests)
+	 */
+	public long getDisconnectedConnections() {
+		return disconnectedConnections.get();
+	}
+
+	@Override
+	public String toString() {
+		return StringUtils.format("active=%d opened=%d kept_alive=%d disconnected=%d",
+			getActiveConnections(), getOpenedConnections(), getKeptAliveConnections(), getDisconnectedConnections());
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2018, Apptentive, Inc. All Rights Reserved.
+ * Please refer to the LICENSE file for the terms and conditions
+ * under which redistribution and use of this file is permitted.
+ */
+
+package com.apptentive.android.sdk.network;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a <code>multipart/form-data</code> body part by part straight into a stream (a file or a
+ * connection) so the parts never need to be held in memory together.
+ * <pre>
+ *   MultipartWriter writer = new MultipartWriter(out, boundary);
+ *   OutputStream part = writer.startPart("form-data; name=\"file[]\"", "image/jpeg");
+ *   ... write the part body
+ *   writer.endPart();
+ *   writer.finish();
+ * </pre>
+ */
+public class MultipartWriter {
+	private static final String LINE_END = "\r\n";
+	private static final String TWO_HYPHENS = "--";
+
+	private final OutputStream out;
+	private final String boundary;
+	private PartOutputStream currentPart;
+
+	public MultipartWriter(OutputStream out, String boundary) {
+		if (out == null) {
+			throw new IllegalArgumentException("Output stream is null");
+		}
+		if (boundary == null) {
+			throw new IllegalArgumentException("Boundary is null");
+		}
+		this.out = out;
+		this.boundary = boundary;
+	}
+
+	/**
+	 * Writes the boundary and the headers of a new part and returns a stream for the part body. The
+	 * stream can be closed: that doesn't close the underlying stream.
+	 */
+	public OutputStream startPart(String contentDisposition, String contentType) throws IOException {
+		if (currentPart != null) {
+			throw new IllegalStateException("Previous part is not finished");
+		}
+
+		write(out, TWO_HYPHENS + boundary + LINE_END);
+		writePartHeaders(out, contentDisposition, contentType);
+		currentPart = new PartOutputStream(out);
+		return currentPart;
+	}
+
+	public void endPart() throws IOException {
+		if (currentPart == null) {
+			throw new IllegalStateException("No part started");
+		}
+
+		currentPart = null;
+		write(out, LINE_END);
+	}
+
+	/**
+	 * Writes a part with an in-memory body
+	 */
+	public void writePart(String contentDisposition, String contentType, byte[] body) throws IOException {
+		startPart(contentDisposition, contentType).write(body);
+		endPart();
+	}
+
+	/**
+	 * Writes the closing boundary (the underlying stream is flushed but not closed)
+	 */
+	public void finish() throws IOException {
+		if (currentPart != null) {
+			throw new IllegalStateException("Last part is not finished");
+		}
+
+		write(out, TWO_HYPHENS + boundary + TWO_HYPHENS);
+		out.flush();
+	}
+
+	/**
+	 * Writes part headers followed by an empty line (used for the parts nested into encrypted parts)
+	 */
+	public static void writePartHeaders(OutputStream out, String contentDisposition, String contentType) throws IOException {
+		write(out, "Content-Disposition: " + contentDisposition + LINE_END);
+		write(out, "Content-Type: " + contentType + LINE_END);
+		write(out, LINE_END);
+	}
+
+	private static void write(OutputStream out, String text) throws IOException {
+		out.write(text.getBytes("UTF-8"));
+	}
+
+	/**
+	 * Part body stream which does not close the underlying stream (image encoders close streams
+	 * when done)
+	 */
+	private static class PartOutputStream extends FilterOutputStream {
+		PartOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(byte[] buffer, int offset, int count) throws IOException {
+			out.write(buffer, offset, count);
+		}
+
+		@Override
+		public void close() throws IOException {
+			flush();
+		}
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2018, Apptentive, Inc. All Rights Reserved.
+ * Please refer to the LICENSE file for the terms and conditions
+ * under which redistribution and use of this file is permitted.
+ */
+
+package com.apptentive.android.sdk.network;
+
+import com.apptentive.android.sdk.ApptentiveLog;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import static com.apptentive.android.sdk.ApptentiveLogTag.NETWORK;
+
+/**
+ * Default transport backed by the platform {@link HttpURLConnection} which pools keep-alive
+ * connections internally: a connection is only disconnected when it can't be reused (calling
+ * <code>disconnect()</code> after every request tears down the socket on many Android versions).
+ * <p/>
+ * Another HTTP client (for example, one with HTTP/2 support) can be plugged in by overriding
+ * {@link #createConnection(URL)} and returning its <code>HttpURLConnection</code> implementation.
+ */
+public class UrlConnectionTransport implements HttpTransport {
+	private final HttpTransportMetrics metrics = new HttpTransportMetrics();
+
+	@Override
+	public HttpURLConnection openConnection(URL url) throws IOException {
+		HttpURLConnection connection = createConnection(url);
+		metrics.onConnectionOpened();
+		return connection;
+	}
+
+	/**
+	 * Override this method to use a custom HTTP client
+	 */
+	protected HttpURLConnection createConnection(URL url) throws IOException {
+		return (HttpURLConnection) url.openConnection();
+	}
+
+	@Override
+	public void releaseConnection(HttpURLConnection connection, boolean reusable) {
+		metrics.onConnectionReleased(reusable);
+		if (!reusable) {
+			ApptentiveLog.v(NETWORK, "Disconnecting: %s", connection.getURL());
+			connection.disconnect();
+		}
+	}
+
+	@Override
+	public HttpTransportMetrics getMetrics() {
+		return metrics;
+	}
+}
@@ -6,20 +6,34 @@
 
 package com.apptentive.android.sdk.notifications;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
 import com.apptentive.android.sdk.ApptentiveLog;
-import com.apptentive.android.sdk.util.ObjectUtils;
 import com.apptentive.android.sdk.util.StringUtils;
+import com.apptentive.android.sdk.util.threading.DispatchQueue;
+import com.apptentive.android.sdk.util.threading.DispatchQueueType;
 
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
+import static com.apptentive.android.sdk.ApptentiveLog.Level.VERBOSE;
 import static com.apptentive.android.sdk.ApptentiveLogTag.*;
 
 /**
  * An {@link ApptentiveNotificationCenter} object (or simply, notification center) provides a
  * mechanism for broadcasting information within a program. An {@link ApptentiveNotificationCenter}
  * object is essentially a notification dispatch table.
+ * <p>
+ * The dispatch table is copy-on-write: adding and removing observers is synchronized while posting
+ * only reads immutable snapshots and never holds a lock when calling observers. A slow observer
+ * only delays the thread which posted the notification.
+ * <p>
+ * Observers might be registered with a target {@link DispatchQueue}: they are always notified on
+ * that queue. Notifications posted with <code>postNotificationAsync</code> are delivered to the
+ * rest of the observers on a shared serial notification queue so the posting thread is never
+ * blocked by observers.
  */
 public class ApptentiveNotificationCenter {
 
@@ -29,12 +43,23 @@ public class ApptentiveNotificationCenter {
 	private static final Map<String, Object> EMPTY_USER_INFO = Collections.emptyMap();
 
 	/**
-	 * Lookup table for notification-to-observers search.
+	 * Lookup table for notification-to-observers search (immutable snapshot: replaced when a new
+	 * notification name is registered).
 	 */
-	private final Map<String, ApptentiveNotificationObserverList> observerListLookup;
+	private volatile Map<String, ApptentiveNotificationObserverList> observerListLookup;
+
+	/**
+	 * Queue for delivering async notifications to observers without own queues (created lazily).
+	 */
+	private DispatchQueue notificationQueue;
 
 	ApptentiveNotificationCenter() {
-		this.observerListLookup = new HashMap<>();
+		this(null);
+	}
+
+	ApptentiveNotificationCenter(@Nullable DispatchQueue notificationQueue) {
+		this.observerListLookup = Collections.emptyMap();
+		this.notificationQueue = notificationQueue;
 	}
 
 	//region Observers
@@ -42,7 +67,7 @@ public class ApptentiveNotificationCenter {
 	/**
 	 * Adds an entry to the receiver’s dispatch table with an observer using strong reference.
 	 */
-	public synchronized ApptentiveNotificationCenter addObserver(String notification, ApptentiveNotificationObserver observer) {
+	public ApptentiveNotificationCenter addObserver(String notification, ApptentiveNotificationObserver observer) {
 		addObserver(notification, observer, false);
 		return this;
 	}
@@ -52,15 +77,38 @@ public class ApptentiveNotificationCenter {
 	 *
 	 * @param useWeakReference - weak reference is used if <code>true</code>
 	 */
-	public synchronized void addObserver(String notification, ApptentiveNotificationObserver observer, boolean useWeakReference) {
+	public void addObserver(String notification, ApptentiveNotificationObserver observer, boolean useWeakReference) {
+		addObserver(notification, observer, useWeakReference, null);
+	}
+
+	/**
+	 * Adds an entry to the receiver’s dispatch table with an observer using strong reference. The
+	 * observer is always notified on the target <code>queue</code>.
+	 */
+	public ApptentiveNotificationCenter addObserver(String notification, ApptentiveNotificationObserver observer, @NonNull DispatchQueue queue) {
+		if (queue == null) {
+			throw new IllegalArgumentException("Queue is null");
+		}
+		addObserver(notification, observer, false, queue);
+		return this;
+	}
+
+	/**
+	 * Adds an entry to the receiver’s dispatch table with an observer.
+	 *
+	 * @param useWeakReference - weak reference is used if <code>true</code>
+	 * @param queue            - target queue for notifying the observer (<code>null</code> to
+	 *                         notify the observer on the posting thread)
+	 */
+	public void addObserver(String notification, ApptentiveNotificationObserver observer, boolean useWeakReference, @Nullable DispatchQueue queue) {
 		final ApptentiveNotificationObserverList list = resolveObserverList(notification);
-		list.addObserver(observer, useWeakReference);
+		list.addObserver(observer, useWeakReference, queue);
 	}
 
 	/**
 	 * Removes matching entries from the receiver’s dispatch table.
 	 */
-	public synchronized void removeObserver(final String notification, final ApptentiveNotificationObserver observer) {
+	public void removeObserver(final String notification, final ApptentiveNotificationObserver observer) {
 		final ApptentiveNotificationObserverList list = findObserverList(notification);
 		if (list != null) {
 			list.removeObserver(observer);
@@ -70,7 +118,7 @@ public class ApptentiveNotificationCenter {
 	/**
 	 * Removes all the entries specifying a given observer from the receiver’s dispatch table.
 	 */
-	public synchronized void removeObserver(final ApptentiveNotificationObserver observer) {
+	public void removeObserver(final ApptentiveNotificationObserver observer) {
 		for (ApptentiveNotificationObserverList observers : observerListLookup.values()) {
 			observers.removeObserver(observer);
 		}
@@ -83,26 +131,56 @@ public class ApptentiveNotificationCenter {
 	/**
 	 * Creates a notification with a given name and posts it to the receiver.
 	 */
-	public synchronized void postNotification(String name) {
+	public void postNotification(String name) {
 		postNotification(name, EMPTY_USER_INFO);
 	}
 
 	/**
 	 * Creates a notification with a given name and user info and posts it to the receiver.
 	 */
-	public synchronized void postNotification(final String name, Object... args) {
-		postNotification(name, ObjectUtils.toMap(args));
+	public void postNotification(final String name, Object... args) {
+		postNotification(name, new NotificationUserInfo(args));
 	}
 
 	/**
 	 * Creates a notification with a given name and user info and posts it to the receiver.
 	 */
-	public synchronized void postNotification(final String name, final Map<String, Object> userInfo) {
-		ApptentiveLog.v(NOTIFICATIONS, "Post notification: name=%s userInfo={%s}", name, StringUtils.toString(userInfo));
+	public void postNotification(final String name, final Map<String, Object> userInfo) {
+		postNotification(name, userInfo, false);
+	}
+
+	/**
+	 * Creates a notification with a given name and posts it to the receiver without waiting for
+	 * observers.
+	 */
+	public void postNotificationAsync(String name) {
+		postNotificationAsync(name, EMPTY_USER_INFO);
+	}
+
+	/**
+	 * Creates a notification with a given name and user info and posts it to the receiver without
+	 * waiting for observers.
+	 */
+	public void postNotificationAsync(final String name, Object... args) {
+		postNotificationAsync(name, new NotificationUserInfo(args));
+	}
+
+	/**
+	 * Creates a notification with a given name and user info and posts it to the receiver without
+	 * waiting for observers. Observers without own queues are notified on the notification queue.
+	 */
+	public void postNotificationAsync(final String name, final Map<String, Object> userInfo) {
+		postNotification(name, userInfo, true);
+	}
+
+	private void postNotification(final String name, final Map<String, Object> userInfo, boolean async) {
+		if (ApptentiveLog.canLog(VERBOSE)) {
+			ApptentiveLog.v(NOTIFICATIONS, "Post notification%s: name=%s userInfo={%s}", async ? " async" : "", name, StringUtils.toString(userInfo));
+		}
 
 		final ApptentiveNotificationObserverList list = findObserverList(name);
 		if (list != null) {
-			list.notifyObservers(new ApptentiveNotification(name, userInfo));
+			list.notifyObservers(new ApptentiveNotification(name, userInfo), async ? getNotificationQueue() : null);
 		}
 	}
 
@@ -115,7 +193,7 @@ public class ApptentiveNotificationCenter {
 	 *
 	 * @return <code>null</code> is not found
 	 */
-	private synchronized ApptentiveNotificationObserverList findObserverList(String name) {
+	private ApptentiveNotificationObserverList findObserverList(String name) {
 		return observerListLookup.get(name);
 	}
 
@@ -126,11 +204,21 @@ public class ApptentiveNotificationCenter {
 		ApptentiveNotificationObserverList list = observerListLookup.get(name);
 		if (list == null) {
 			list = new ApptentiveNotificationObserverList();
-			observerListLookup.put(name, list);
+
+			final Map<String, ApptentiveNotificationObserverList> lookup = new HashMap<>(observerListLookup);
+			lookup.put(name, list);
+			observerListLookup = Collections.unmodifiableMap(lookup);
 		}
 		return list;
 	}
 
+	private synchronized DispatchQueue getNotificationQueue() {
+		if (notificationQueue == null) {
+			notificationQueue = DispatchQueue.createBackgroundQueue("Apptentive Notification Queue", DispatchQueueType.Serial);
+		}
+		return notificationQueue;
+	}
+
 	//endregion
 
 	//region Singleton
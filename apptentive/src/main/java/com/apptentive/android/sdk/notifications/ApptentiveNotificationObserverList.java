@@ -6,11 +6,15 @@
 
 package com.apptentive.android.sdk.notifications;
 
+import androidx.annotation.Nullable;
+
 import com.apptentive.android.sdk.ApptentiveLog;
-import com.apptentive.android.sdk.util.ObjectUtils;
+import com.apptentive.android.sdk.util.threading.DispatchQueue;
+import com.apptentive.android.sdk.util.threading.DispatchTask;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static com.apptentive.android.sdk.debug.ErrorMetrics.logException;
@@ -18,54 +22,63 @@ import static com.apptentive.android.sdk.debug.ErrorMetrics.logException;
 /**
  * Utility class for storing weak/strong references to {@link ApptentiveNotificationObserverList}
  * and posting notification. Lost reference cleanup is done automatically.
+ * <p>
+ * The list is copy-on-write: observers are kept in an immutable array which is replaced on every
+ * modification. Posting a notification reads the current snapshot without locking so observers
+ * might be added/removed (even from a notification callback) while a notification is dispatched.
+ * <p>
+ * An observer can be registered with a {@link DispatchQueue}: such observer is always notified on
+ * its queue (in the order notifications were posted if the queue is serial).
  */
 class ApptentiveNotificationObserverList {
 
+	private static final ObserverEntry[] EMPTY_OBSERVERS = new ObserverEntry[0];
+
 	/**
-	 * List of observers.
+	 * Immutable snapshot of observers.
 	 */
-	private final List<ApptentiveNotificationObserver> observers;
+	private volatile ObserverEntry[] observers;
 
 	ApptentiveNotificationObserverList() {
-		observers = new ArrayList<>();
+		observers = EMPTY_OBSERVERS;
 	}
 
 	/**
-	 * Posts notification to all observers.
+	 * Posts notification to all observers on the calling thread (observers with own queues are
+	 * notified on their queues).
 	 */
 	void notifyObservers(ApptentiveNotification notification) {
+		notifyObservers(notification, null);
+	}
+
+	/**
+	 * Posts notification to all observers.
+	 *
+	 * @param defaultQueue - queue for notifying observers without own queues (<code>null</code> to
+	 *                     notify them on the calling thread)
+	 */
+	void notifyObservers(ApptentiveNotification notification, @Nullable DispatchQueue defaultQueue) {
 		boolean hasLostReferences = false;
 
-		// create a temporary list of observers to avoid concurrent modification errors
-		List<ApptentiveNotificationObserver> temp = new ArrayList<>(observers.size());
-		for (int i = 0; i < observers.size(); ++i) {
-			ApptentiveNotificationObserver observer = observers.get(i);
-			ObserverWeakReference observerRef = ObjectUtils.as(observer, ObserverWeakReference.class);
-			if (observerRef == null || !observerRef.isReferenceLost()) {
-				temp.add(observer);
-			} else {
+		// the snapshot never changes so we don't need a temporary copy
+		final ObserverEntry[] snapshot = observers;
+		for (ObserverEntry entry : snapshot) {
+			if (entry.isReferenceLost()) {
 				hasLostReferences = true;
+				continue;
 			}
-		}
 
-		// notify observers
-		for (int i = 0; i < temp.size(); ++i) {
-			try {
-				temp.get(i).onReceiveNotification(notification);
-			} catch (Exception e) {
-				ApptentiveLog.e(e, "Exception while posting notification: %s", notification);
-				logException(e); // TODO: add more context info
+			final DispatchQueue queue = entry.queue != null ? entry.queue : defaultQueue;
+			if (queue != null) {
+				queue.dispatchAsync(new NotificationTask(entry, notification));
+			} else {
+				entry.notifyObserver(notification);
 			}
 		}
 
 		// clean lost references
 		if (hasLostReferences) {
-			for (int i = observers.size() - 1; i >= 0; --i) {
-				final ObserverWeakReference observerRef = ObjectUtils.as(observers.get(i), ObserverWeakReference.class);
-				if (observerRef != null && observerRef.isReferenceLost()) {
-					observers.remove(i);
-				}
-			}
+			removeLostReferences();
 		}
 	}
 
@@ -76,12 +89,27 @@ class ApptentiveNotificationObserverList {
 	 * @return <code>true</code> - if observer was added
 	 */
 	boolean addObserver(ApptentiveNotificationObserver observer, boolean useWeakReference) {
+		return addObserver(observer, useWeakReference, null);
+	}
+
+	/**
+	 * Adds an observer to the list without duplicates.
+	 *
+	 * @param useWeakReference - use weak reference if <code>true</code>
+	 * @param queue            - queue for notifying the observer (<code>null</code> to notify on
+	 *                         the posting thread)
+	 * @return <code>true</code> - if observer was added
+	 */
+	synchronized boolean addObserver(ApptentiveNotificationObserver observer, boolean useWeakReference, @Nullable DispatchQueue queue) {
 		if (observer == null) {
 			throw new IllegalArgumentException("Observer is null");
 		}
 
 		if (!contains(observer)) {
-			observers.add(useWeakReference ? new ObserverWeakReference(observer) : observer);
+			final ObserverEntry[] oldObservers = observers;
+			final ObserverEntry[] newObservers = Arrays.copyOf(oldObservers, oldObservers.length + 1);
+			newObservers[oldObservers.length] = new ObserverEntry(observer, useWeakReference, queue);
+			observers = newObservers;
 			return true;
 		}
 
@@ -93,10 +121,15 @@ class ApptentiveNotificationObserverList {
 	 *
 	 * @return <code>true</code> if observer was returned
 	 */
-	boolean removeObserver(ApptentiveNotificationObserver observer) {
+	synchronized boolean removeObserver(ApptentiveNotificationObserver observer) {
 		int index = indexOf(observer);
 		if (index != -1) {
-			observers.remove(index);
+			final ObserverEntry[] oldObservers = observers;
+			oldObservers[index].removed = true; // cancel pending deliveries
+			final ObserverEntry[] newObservers = new ObserverEntry[oldObservers.length - 1];
+			System.arraycopy(oldObservers, 0, newObservers, 0, index);
+			System.arraycopy(oldObservers, index + 1, newObservers, index, oldObservers.length - index - 1);
+			observers = newObservers;
 			return true;
 		}
 		return false;
@@ -106,7 +139,23 @@ class ApptentiveNotificationObserverList {
 	 * Size of the list
 	 */
 	public int size() {
-		return observers.size();
+		return observers.length;
+	}
+
+	/**
+	 * Removes all weak references which lost their observers
+	 */
+	private synchronized void removeLostReferences() {
+		final ObserverEntry[] oldObservers = observers;
+		final List<ObserverEntry> newObservers = new ArrayList<>(oldObservers.length);
+		for (ObserverEntry entry : oldObservers) {
+			if (!entry.isReferenceLost()) {
+				newObservers.add(entry);
+			}
+		}
+		if (newObservers.size() != oldObservers.length) {
+			observers = newObservers.toArray(EMPTY_OBSERVERS);
+		}
 	}
 
 	/**
@@ -115,14 +164,9 @@ class ApptentiveNotificationObserverList {
 	 * @return -1 if not found
 	 */
 	private int indexOf(ApptentiveNotificationObserver observer) {
-		for (int i = 0; i < observers.size(); ++i) {
-			final ApptentiveNotificationObserver other = observers.get(i);
-			if (other == observer) {
-				return i;
-			}
-
-			final ObserverWeakReference otherReference = ObjectUtils.as(other, ObserverWeakReference.class);
-			if (otherReference != null && otherReference.get() == observer) {
+		final ObserverEntry[] observers = this.observers;
+		for (int i = 0; i < observers.length; ++i) {
+			if (observers[i].getObserver() == observer) {
 				return i;
 			}
 		}
@@ -137,27 +181,63 @@ class ApptentiveNotificationObserverList {
 	}
 
 	/**
-	 * Helper class for stored {@link ApptentiveNotificationObserver} weak reference
+	 * Helper class for storing an observer (or its weak reference) with an optional target queue
 	 */
-	private static class ObserverWeakReference extends WeakReference<ApptentiveNotificationObserver> implements ApptentiveNotificationObserver {
-
-		ObserverWeakReference(ApptentiveNotificationObserver referent) {
-			super(referent);
+	private static class ObserverEntry {
+		private final ApptentiveNotificationObserver observer;
+		private final WeakReference<ApptentiveNotificationObserver> observerReference;
+		private final @Nullable DispatchQueue queue;
+		private volatile boolean removed;
+
+		ObserverEntry(ApptentiveNotificationObserver observer, boolean useWeakReference, @Nullable DispatchQueue queue) {
+			this.observer = useWeakReference ? null : observer;
+			this.observerReference = useWeakReference ? new WeakReference<>(observer) : null;
+			this.queue = queue;
 		}
 
-		@Override
-		public void onReceiveNotification(ApptentiveNotification notification) {
-			ApptentiveNotificationObserver observer = get();
+		void notifyObserver(ApptentiveNotification notification) {
+			ApptentiveNotificationObserver observer = getObserver();
 			if (observer != null) {
-				observer.onReceiveNotification(notification);
+				try {
+					observer.onReceiveNotification(notification);
+				} catch (Exception e) {
+					ApptentiveLog.e(e, "Exception while posting notification: %s", notification);
+					logException(e); // TODO: add more context info
+				}
 			}
 		}
 
+		@Nullable ApptentiveNotificationObserver getObserver() {
+			return observerReference != null ? observerReference.get() : observer;
+		}
+
 		/**
 		 * Returns true if observer's memory was freed.
 		 */
 		boolean isReferenceLost() {
-			return get() == null;
+			return observerReference != null && observerReference.get() == null;
+		}
+	}
+
+	/**
+	 * Delivers a notification to an observer on its queue. Weak observers are not retained by the
+	 * task.
+	 */
+	private static class NotificationTask extends DispatchTask {
+		private final ObserverEntry entry;
+		private final ApptentiveNotification notification;
+
+		NotificationTask(ObserverEntry entry, ApptentiveNotification notification) {
+			this.entry = entry;
+			this.notification = notification;
+		}
+
+		@Override
+		protected void execute() {
+			// the observer might be removed while the notification was on the queue
+			if (!entry.removed) {
+				entry.notifyObserver(notification);
+			}
 		}
 	}
 }
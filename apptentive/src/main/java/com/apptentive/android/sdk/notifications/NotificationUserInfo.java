@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2018, Apptentive, Inc. All Rights Reserved.
+ * Please refer to the LICENSE file for the terms and conditions
+ * under which redistribution and use of this file is permitted.
+ */
+
+package com.apptentive.android.sdk.notifications;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable notification user info backed by a flat key-value array:
+ * <code>[key1, value1, key2, value2, ...]</code>. Notifications carry just a few entries so a
+ * linear lookup is cheaper than building a hash map for every post.
+ */
+class NotificationUserInfo extends AbstractMap<String, Object> {
+	private final Object[] keyValues;
+
+	/**
+	 * @param keyValues - key-value pairs (the array is not copied and should not be modified)
+	 */
+	NotificationUserInfo(Object... keyValues) {
+		if (keyValues.length % 2 != 0) {
+			throw new IllegalArgumentException("Invalid args");
+		}
+		for (int i = 0; i < keyValues.length; i += 2) {
+			if (!(keyValues[i] instanceof String)) {
+				throw new IllegalArgumentException("Invalid key: " + keyValues[i]);
+			}
+		}
+		this.keyValues = keyValues;
+	}
+
+	@Override
+	public Object get(Object key) {
+		int index = indexOfKey(key);
+		return index != -1 ? keyValues[index + 1] : null;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return indexOfKey(key) != -1;
+	}
+
+	@Override
+	public int size() {
+		return keyValues.length / 2;
+	}
+
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		return new AbstractSet<Entry<String, Object>>() {
+			@Override
+			public Iterator<Entry<String, Object>> iterator() {
+				return new Iterator<Entry<String, Object>>() {
+					private int index;
+
+					@Override
+					public boolean hasNext() {
+						return index < keyValues.length;
+					}
+
+					@Override
+					public Entry<String, Object> next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						Entry<String, Object> entry = new SimpleImmutableEntry<>((String) keyValues[index], keyValues[index + 1]);
+						index += 2;
+						return entry;
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return NotificationUserInfo.this.size();
+			}
+		};
+	}
+
+	private int indexOfKey(Object key) {
+		// the last value wins (same as consecutive map puts)
+		for (int i = keyValues.length - 2; i >= 0; i -= 2) {
+			if (keyValues[i].equals(key)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
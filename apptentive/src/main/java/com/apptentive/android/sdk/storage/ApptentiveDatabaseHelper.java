@@ -13,10 +13,12 @@ import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 import androidx.annotation.Nullable;
+import androidx.core.util.AtomicFile;
 
 import com.apptentive.android.sdk.ApptentiveLog;
 import com.apptentive.android.sdk.Encryption;
 import com.apptentive.android.sdk.encryption.EncryptionException;
+import com.apptentive.android.sdk.encryption.EncryptionFactory;
 import com.apptentive.android.sdk.debug.ErrorMetrics;
 import com.apptentive.android.sdk.encryption.EncryptionHelper;
 import com.apptentive.android.sdk.model.Payload;
@@ -28,7 +30,9 @@ import com.apptentive.android.sdk.util.Constants;
 import com.apptentive.android.sdk.util.StringUtils;
 import com.apptentive.android.sdk.util.Util;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -55,6 +59,7 @@ public class ApptentiveDatabaseHelper extends SQLiteOpenHelper {
 
 	private final File payloadDataDir;
 	private final Encryption encryption;
+	private final PayloadTokenCache tokenCache; // payload auth tokens are encrypted/decrypted once per process
 
 	//region Payload SQL
 
@@ -206,6 +211,7 @@ public class ApptentiveDatabaseHelper extends SQLiteOpenHelper {
 		this.fileDir = context.getFilesDir();
 		this.payloadDataDir = new File(fileDir, Constants.PAYLOAD_DATA_DIR);
 		this.encryption = encryption;
+		this.tokenCache = new PayloadTokenCache(encryption);
 	}
 
 	//region Create & Upgrade
@@ -281,7 +287,7 @@ public class ApptentiveDatabaseHelper extends SQLiteOpenHelper {
 			values.put(PayloadEntry.COLUMN_CONTENT_TYPE.name, notNull(payload.getHttpRequestContentType()));
 			// The token is encrypted inside the payload body for authenticated conversations. In that case, don't store it here.
 			if (!payload.isAuthenticated()) {
-				values.put(PayloadEntry.COLUMN_AUTH_TOKEN.name, encrypt(payload.getConversationToken())); // might be null
+				values.put(PayloadEntry.COLUMN_AUTH_TOKEN.name, encryptToken(payload.getConversationToken())); // might be null
 			}
 			values.put(PayloadEntry.COLUMN_CONVERSATION_ID.name, payload.getConversationId()); // might be null
 			values.put(PayloadEntry.COLUMN_REQUEST_METHOD.name, payload.getHttpRequestMethod().name());
@@ -291,7 +297,11 @@ public class ApptentiveDatabaseHelper extends SQLiteOpenHelper {
 
 			File dest = getPayloadBodyFile(payload.getNonce());
 			ApptentiveLog.v(DATABASE, "Saving payload body to: %s", dest);
-			writeToFile(dest, payload.renderData(), !payload.isAuthenticated());  // only anonymous payloads get encrypted upon write (authenticated payloads get encrypted on serialization)
+			if (payload.isAuthenticated() || encryption == EncryptionFactory.NULL) {
+				writePayloadToFile(dest, payload); // authenticated payloads get encrypted on serialization so the body is streamed straight into the file
+			} else {
+				writeToFile(dest, payload.renderData(), true);  // anonymous payloads get encrypted as a whole upon write
+			}
 
 			values.put(PayloadEntry.COLUMN_AUTHENTICATED.name, payload.isAuthenticated() ? TRUE : FALSE);
 			values.put(PayloadEntry.COLUMN_LOCAL_CONVERSATION_ID.name, notNull(payload.getLocalConversationIdentifier()));
@@ -342,6 +352,7 @@ public class ApptentiveDatabaseHelper extends SQLiteOpenHelper {
 		try {
 			db = getWritableDatabase();
 			db.delete(PayloadEntry.TABLE_NAME, "", null);
+			tokenCache.clear();
 		} catch (SQLException sqe) {
 			ApptentiveLog.e(DATABASE, "deleteAllPayloads EXCEPTION: " + sqe.getMessage());
 			logException(sqe);
@@ -370,14 +381,6 @@ public class ApptentiveDatabaseHelper extends SQLiteOpenHelper {
 
 				final String nonce = notNull(cursor.getString(PayloadEntry.COLUMN_IDENTIFIER.index));
 
-				// if we failed to decrypt auth token - delete it
-				final String authToken = tryDecryptString(cursor.getBlob(PayloadEntry.COLUMN_AUTH_TOKEN.index), "");
-				if (authToken != null && authToken.length() == 0) {
-					ApptentiveLog.w(PAYLOADS, "Oldest unsent payload auth token can't be decrypted. Deleting...");
-					deletePayload(nonce);
-					continue;
-				}
-
 				final PayloadType payloadType = PayloadType.parse(cursor.getString(PayloadEntry.COLUMN_PAYLOAD_TYPE.index));
 				assertFalse(PayloadType.unknown.equals(payloadType), "Oldest unsent payload has unknown type");
 
@@ -396,6 +399,14 @@ public class ApptentiveDatabaseHelper extends SQLiteOpenHelper {
 					continue;
 				}
 
+				// decrypt auth token only after cheaper checks pass; if we failed to decrypt auth token - delete it
+				final String authToken = tryDecryptToken(cursor.getBlob(PayloadEntry.COLUMN_AUTH_TOKEN.index), "");
+				if (authToken != null && authToken.length() == 0) {
+					ApptentiveLog.w(PAYLOADS, "Oldest unsent payload auth token can't be decrypted. Deleting...");
+					deletePayload(nonce);
+					continue;
+				}
+
 				final String contentType = notNull(cursor.getString(PayloadEntry.COLUMN_CONTENT_TYPE.index));
 				final HttpRequestMethod httpRequestMethod = HttpRequestMethod.valueOf(notNull(cursor.getString(PayloadEntry.COLUMN_REQUEST_METHOD.index)));
 				final boolean authenticated = cursor.getInt(PayloadEntry.COLUMN_AUTHENTICATED.index) == TRUE;
@@ -438,7 +449,7 @@ public class ApptentiveDatabaseHelper extends SQLiteOpenHelper {
 		try {
 			SQLiteDatabase db = getWritableDatabase();
 			db.execSQL(legacyPayloads ? SQL_UPDATE_LEGACY_PAYLOADS : SQL_UPDATE_INCOMPLETE_PAYLOADS, new Object[] {
-				encrypt(authToken), conversationId, localConversationId
+				encryptToken(authToken), conversationId, localConversationId
 			});
 			ApptentiveLog.v(DATABASE, "Updated missing conversation ids");
 		} catch (Exception e) {
@@ -577,17 +588,17 @@ public class ApptentiveDatabaseHelper extends SQLiteOpenHelper {
 		context.deleteDatabase(DATABASE_NAME);
 	}
 
-	private @Nullable byte[] encrypt(@Nullable String value) throws EncryptionException {
-		return EncryptionHelper.encrypt(encryption, value);
+	private @Nullable byte[] encryptToken(@Nullable String token) throws EncryptionException {
+		return tokenCache.encrypt(token);
 	}
 
-	private @Nullable String tryDecryptString(@Nullable byte[] bytes, String defaultValue) {
-		return tryDecryptString(bytes, defaultValue, true);
+	private @Nullable String tryDecryptToken(@Nullable byte[] bytes, String defaultValue) {
+		return tryDecryptToken(bytes, defaultValue, true);
 	}
 
-	private @Nullable String tryDecryptString(@Nullable byte[] bytes, String defaultValue, boolean printError) {
+	private @Nullable String tryDecryptToken(@Nullable byte[] bytes, String defaultValue, boolean printError) {
 		try {
-			return decryptString(bytes);
+			return decryptToken(bytes);
 		} catch (Exception e) {
 			if (printError) {
 				ApptentiveLog.e(e, "Failed to decrypt string");
@@ -596,8 +607,8 @@ public class ApptentiveDatabaseHelper extends SQLiteOpenHelper {
 		}
 	}
 
-	private @Nullable String decryptString(@Nullable byte[] bytes) throws EncryptionException {
-		return EncryptionHelper.decryptString(encryption, bytes);
+	private @Nullable String decryptToken(@Nullable byte[] bytes) throws EncryptionException {
+		return tokenCache.decrypt(bytes);
 	}
 
 	private void writeToFile(File file, byte[] data, boolean encrypted) throws IOException,
@@ -609,6 +620,24 @@ public class ApptentiveDatabaseHelper extends SQLiteOpenHelper {
 		}
 	}
 
+	private void writePayloadToFile(File file, Payload payload) throws Exception {
+		AtomicFile atomicFile = new AtomicFile(file);
+		FileOutputStream stream = null;
+		boolean successful = false;
+		try {
+			stream = atomicFile.startWrite();
+			BufferedOutputStream out = new BufferedOutputStream(stream);
+			payload.writeData(out);
+			out.flush();
+			atomicFile.finishWrite(stream);
+			successful = true;
+		} finally {
+			if (!successful) {
+				atomicFile.failWrite(stream);
+			}
+		}
+	}
+
 	private @Nullable byte[] tryReadFromFile(File file, boolean encrypted) {
 		try {
 			return readFromFile(file, encrypted);
@@ -689,7 +718,7 @@ public class ApptentiveDatabaseHelper extends SQLiteOpenHelper {
 						hideIfSanitized(cursor.getString(PayloadEntry.COLUMN_PATH.index)),
 						cursor.getInt(PayloadEntry.COLUMN_AUTHENTICATED.index),
 						cursor.getString(PayloadEntry.COLUMN_LOCAL_CONVERSATION_ID.index),
-						hideIfSanitized(tryDecryptString(cursor.getBlob(PayloadEntry.COLUMN_AUTH_TOKEN.index), "<CORRUPTED>", false))
+						hideIfSanitized(tryDecryptToken(cursor.getBlob(PayloadEntry.COLUMN_AUTH_TOKEN.index), "<CORRUPTED>", false))
 				};
 			}
 			ApptentiveLog.v(PAYLOADS, "%s (%d payload(s)):\n%s", title, payloadCount, StringUtils.table(rows));
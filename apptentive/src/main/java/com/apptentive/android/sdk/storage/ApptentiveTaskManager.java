@@ -13,6 +13,7 @@ import com.apptentive.android.sdk.Encryption;
 import com.apptentive.android.sdk.comm.ApptentiveHttpClient;
 import com.apptentive.android.sdk.conversation.Conversation;
 import com.apptentive.android.sdk.conversation.ConversationState;
+import com.apptentive.android.sdk.debug.Tracing;
 import com.apptentive.android.sdk.encryption.EncryptionKey;
 import com.apptentive.android.sdk.model.Payload;
 import com.apptentive.android.sdk.model.PayloadData;
@@ -26,15 +27,17 @@ import com.apptentive.android.sdk.util.threading.DispatchTask;
 import org.json.JSONObject;
 
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.apptentive.android.sdk.ApptentiveHelper.checkConversationQueue;
 import static com.apptentive.android.sdk.ApptentiveHelper.conversationQueue;
-import static com.apptentive.android.sdk.ApptentiveHelper.dispatchOnConversationQueue;
 import static com.apptentive.android.sdk.ApptentiveLogTag.CONVERSATION;
 import static com.apptentive.android.sdk.ApptentiveLogTag.PAYLOADS;
 import static com.apptentive.android.sdk.ApptentiveNotifications.NOTIFICATION_APP_ENTERED_BACKGROUND;
@@ -58,9 +61,49 @@ import static java.lang.Boolean.TRUE;
 
 public class ApptentiveTaskManager implements PayloadStore, EventStore, ApptentiveNotificationObserver, PayloadSender.Listener {
 
+	/**
+	 * Max number of database tasks waiting for the worker thread
+	 */
+	private static final int MAX_QUEUED_TASKS = 256;
+
 	private final ApptentiveDatabaseHelper dbHelper;
 	private final ThreadPoolExecutor singleThreadExecutor; // TODO: replace with a private concurrent dispatch queue
 
+	/**
+	 * True if <code>{@link #sendNextPayloadTask}</code> is waiting on the executor queue
+	 */
+	private final AtomicBoolean sendNextPayloadScheduled = new AtomicBoolean();
+
+	/**
+	 * True if <code>{@link #sendNextPayloadTask}</code> was rejected by the full executor queue: the
+	 * request is re-armed once the worker finishes its current task
+	 */
+	private final AtomicBoolean sendNextPayloadRequested = new AtomicBoolean();
+
+	/**
+	 * Coalesced "send next payload" request: only one instance is queued at a time
+	 */
+	private final Runnable sendNextPayloadTask = new Runnable() {
+		@Override
+		public void run() {
+			sendNextPayloadScheduled.set(false);
+			try {
+				sendNextPayloadSync();
+			} catch (Exception e) {
+				ApptentiveLog.e(e, "Exception while trying to send next payload");
+				logException(e);
+			}
+		}
+	};
+
+	/**
+	 * The executor's worker thread (it can't wait for the room in its own queue)
+	 */
+	private volatile Thread workerThread;
+
+	private final AtomicLong queuedTaskCount = new AtomicLong();
+	private final AtomicLong rejectedTaskCount = new AtomicLong();
+
 	private final PayloadSender payloadSender;
 	private boolean appInBackground = true;
 
@@ -72,13 +115,42 @@ public class ApptentiveTaskManager implements PayloadStore, EventStore, Apptenti
 		/* When a new database task is submitted, the executor has the following behaviors:
 		 * 1. If the thread pool has no thread yet, it creates a single worker thread.
 		 * 2. If the single worker thread is running with tasks, it queues tasks.
-		 * 3. If the queue is full, the task will be rejected and run on caller thread.
-		 *
+		 * 3. If the queue is full, the caller blocks until there is room for the task: database
+		 *    writes must be executed in the order they were submitted (the worker thread itself runs
+		 *    the rejected task in place). A rejected "send next payload" request is re-armed after
+		 *    the worker finishes its current task.
 		 */
 		singleThreadExecutor = new ThreadPoolExecutor(1, 1,
 			30L, TimeUnit.SECONDS,
-			new LinkedBlockingQueue<Runnable>(),
-			new ThreadPoolExecutor.CallerRunsPolicy());
+			new ArrayBlockingQueue<Runnable>(MAX_QUEUED_TASKS),
+			new RejectedExecutionHandler() {
+				@Override
+				public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+					rejectedTaskCount.incrementAndGet();
+					if (task == sendNextPayloadTask) {
+						sendNextPayloadScheduled.set(false);
+						sendNextPayloadRequested.set(true);
+					} else if (Thread.currentThread() == workerThread) {
+						task.run(); // already serialized with the queued tasks
+					} else {
+						enqueueRejectedTask(task, executor);
+					}
+				}
+			}) {
+			@Override
+			protected void beforeExecute(Thread thread, Runnable task) {
+				super.beforeExecute(thread, task);
+				workerThread = thread;
+			}
+
+			@Override
+			protected void afterExecute(Runnable task, Throwable throwable) {
+				super.afterExecute(task, throwable);
+				if (sendNextPayloadRequested.compareAndSet(true, false)) {
+					sendNextPayload();
+				}
+			}
+		};
 
 		// If no new task arrives in 30 seconds, the worker thread terminates; otherwise it will be reused
 		singleThreadExecutor.allowCoreThreadTimeOut(true);
@@ -105,15 +177,19 @@ public class ApptentiveTaskManager implements PayloadStore, EventStore, Apptenti
 	 */
 	public void addPayload(final Payload payload) {
 		ApptentiveLog.v(PAYLOADS, "Adding payload: %s", payload);
-		singleThreadExecutor.execute(new Runnable() {
+		final long parentSpanId = Tracing.currentSpanId();
+		executeTask(new Runnable() {
 			@Override
 			public void run() {
+				Tracing.Span span = Tracing.startSpan("db.addPayload", payload.getNonce(), parentSpanId);
 				try {
 					dbHelper.addPayload(payload);
-					sendNextPayloadSync();
+					sendNextPayload();
 				} catch (Exception e) {
 					ApptentiveLog.e(PAYLOADS, e, "Exception while adding a payload: %s", payload);
 					logException(e);
+				} finally {
+					span.end();
 				}
 			}
 		});
@@ -121,12 +197,12 @@ public class ApptentiveTaskManager implements PayloadStore, EventStore, Apptenti
 
 	public void deletePayload(final String payloadIdentifier) {
 		if (payloadIdentifier != null) {
-			singleThreadExecutor.execute(new Runnable() {
+			executeTask(new Runnable() {
 				@Override
 				public void run() {
 					try {
 						dbHelper.deletePayload(payloadIdentifier);
-						sendNextPayloadSync();
+						sendNextPayload();
 					} catch (Exception e) {
 						ApptentiveLog.e(PAYLOADS, e, "Exception while deleting a payload: %s", payloadIdentifier);
 						logException(e);
@@ -137,7 +213,7 @@ public class ApptentiveTaskManager implements PayloadStore, EventStore, Apptenti
 	}
 
 	public void deleteAllPayloads() {
-		singleThreadExecutor.execute(new Runnable() {
+		executeTask(new Runnable() {
 			@Override
 			public void run() {
 				try {
@@ -155,7 +231,7 @@ public class ApptentiveTaskManager implements PayloadStore, EventStore, Apptenti
 	}
 
 	public void deleteAssociatedFiles(final String messageNonce) {
-		singleThreadExecutor.execute(new Runnable() {
+		executeTask(new Runnable() {
 			@Override
 			public void run() {
 				try {
@@ -169,7 +245,7 @@ public class ApptentiveTaskManager implements PayloadStore, EventStore, Apptenti
 	}
 
 	public Future<List<StoredFile>> getAssociatedFiles(final String nonce) throws Exception {
-		return singleThreadExecutor.submit(new Callable<List<StoredFile>>() {
+		return submitTask(new Callable<List<StoredFile>>() {
 			@Override
 			public List<StoredFile> call() throws Exception {
 				return dbHelper.getAssociatedFiles(nonce);
@@ -178,7 +254,7 @@ public class ApptentiveTaskManager implements PayloadStore, EventStore, Apptenti
 	}
 
 	public Future<Boolean> addCompoundMessageFiles(final List<StoredFile> associatedFiles) throws Exception {
-		return singleThreadExecutor.submit(new Callable<Boolean>() {
+		return submitTask(new Callable<Boolean>() {
 			@Override
 			public Boolean call() throws Exception {
 				return dbHelper.addCompoundMessageFiles(associatedFiles);
@@ -186,10 +262,79 @@ public class ApptentiveTaskManager implements PayloadStore, EventStore, Apptenti
 		});
 	}
 
+	/**
+	 * Opens (and upgrades if needed) the payload database so the first payload operation does not
+	 * pay for it. Safe to call from any thread.
+	 */
+	public void warmUp() {
+		try {
+			dbHelper.getWritableDatabase();
+		} catch (Exception e) {
+			ApptentiveLog.e(PAYLOADS, e, "Exception while opening payload database");
+			logException(e);
+		}
+	}
+
 	public void reset(Context context) {
 		dbHelper.reset(context);
 	}
 
+	//region Executor
+
+	private void executeTask(Runnable task) {
+		queuedTaskCount.incrementAndGet();
+		singleThreadExecutor.execute(task);
+	}
+
+	private <T> Future<T> submitTask(Callable<T> task) {
+		queuedTaskCount.incrementAndGet();
+		return singleThreadExecutor.submit(task);
+	}
+
+	/**
+	 * Puts a task which did not fit into the full executor queue: blocks the caller until the worker
+	 * makes room for it (the task is never executed out of order).
+	 */
+	private static void enqueueRejectedTask(Runnable task, ThreadPoolExecutor executor) {
+		if (executor.isShutdown()) {
+			ApptentiveLog.w(PAYLOADS, "Database task dropped: executor is shut down");
+			return;
+		}
+
+		try {
+			executor.getQueue().put(task);
+			executor.prestartCoreThread(); // the worker might have timed out while we were waiting
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			ApptentiveLog.e(PAYLOADS, e, "Interrupted while waiting for the database task queue");
+			logException(e);
+		}
+	}
+
+	/**
+	 * Total number of database tasks submitted to the worker thread
+	 */
+	public long getQueuedTaskCount() {
+		return queuedTaskCount.get();
+	}
+
+	/**
+	 * Number of database tasks which did not fit into the worker queue (the caller waited for the
+	 * room or the "send next payload" request was re-armed)
+	 */
+	public long getRejectedTaskCount() {
+		return rejectedTaskCount.get();
+	}
+
+	/**
+	 * Number of database tasks waiting for the worker thread
+	 */
+	public int getPendingTaskCount() {
+		return singleThreadExecutor.getQueue().size();
+	}
+
+	//endregion
+
 	//region PayloadSender.Listener
 
 	@Override
@@ -234,18 +379,8 @@ public class ApptentiveTaskManager implements PayloadStore, EventStore, Apptenti
 		conversationQueue().dispatchAsync(new DispatchTask() {
 			@Override
 			protected void execute() {
-				singleThreadExecutor.execute(new Runnable() {
-					@Override
-					public void run() {
-						try {
-							ApptentiveLog.d(PAYLOADS, "Retrying sending payloads");
-							sendNextPayloadSync();
-						} catch (Exception e) {
-							ApptentiveLog.e(PAYLOADS, e, "Exception while trying to retry sending payloads");
-							logException(e);
-						}
-					}
-				});
+				ApptentiveLog.d(PAYLOADS, "Retrying sending payloads");
+				sendNextPayload();
 			}
 		}, delayMillis);
 	}
@@ -253,18 +388,14 @@ public class ApptentiveTaskManager implements PayloadStore, EventStore, Apptenti
 	//endregion
 
 	//region Payload Sending
+
+	/**
+	 * Requests sending the next payload on the worker thread. Redundant requests are coalesced.
+	 */
 	private void sendNextPayload() {
-		singleThreadExecutor.execute(new Runnable() {
-			@Override
-			public void run() {
-				try {
-					sendNextPayloadSync();
-				} catch (Exception e) {
-					ApptentiveLog.e(e, "Exception while trying to send next payload");
-					logException(e);
-				}
-			}
-		});
+		if (sendNextPayloadScheduled.compareAndSet(false, true)) {
+			executeTask(sendNextPayloadTask);
+		}
 	}
 
 	private void sendNextPayloadSync() {
@@ -293,15 +424,10 @@ public class ApptentiveTaskManager implements PayloadStore, EventStore, Apptenti
 
 		boolean scheduled = payloadSender.sendPayload(payload);
 
-		// if payload sending was scheduled - notify the rest of the SDK
+		// if payload sending was scheduled - notify the rest of the SDK (observers pick their own queues)
 		if (scheduled) {
-			dispatchOnConversationQueue(new DispatchTask() {
-				@Override
-				protected void execute() {
-					ApptentiveNotificationCenter.defaultCenter()
-							.postNotification(NOTIFICATION_PAYLOAD_WILL_START_SEND, NOTIFICATION_KEY_PAYLOAD, payload);
-				}
-			});
+			ApptentiveNotificationCenter.defaultCenter()
+					.postNotificationAsync(NOTIFICATION_PAYLOAD_WILL_START_SEND, NOTIFICATION_KEY_PAYLOAD, payload);
 		}
 	}
 
@@ -326,12 +452,12 @@ public class ApptentiveTaskManager implements PayloadStore, EventStore, Apptenti
 				// the payloads that may have already been enqueued so
 				// that they each have the Conversation ID.
 				if (conversation.hasState(ANONYMOUS)) {
-					singleThreadExecutor.execute(new Runnable() {
+					executeTask(new Runnable() {
 						@Override
 						public void run() {
 							try {
 								dbHelper.updateIncompletePayloads(conversationId, conversationToken, conversationLocalIdentifier, legacyPayloads);
-								sendNextPayloadSync(); // after we've updated payloads - we need to send them
+								sendNextPayload(); // after we've updated payloads - we need to send them
 							} catch (Exception e) {
 								ApptentiveLog.e(CONVERSATION, e, "Exception while trying to update incomplete payloads");
 								logException(e);
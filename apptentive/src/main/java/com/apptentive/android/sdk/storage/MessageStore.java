@@ -7,6 +7,8 @@
 package com.apptentive.android.sdk.storage;
 
 
+import androidx.annotation.Nullable;
+
 import com.apptentive.android.sdk.model.ApptentiveMessage;
 
 import java.util.List;
@@ -22,6 +24,16 @@ public interface MessageStore {
 
 	List<ApptentiveMessage> getAllMessages() throws Exception;
 
+	/**
+	 * Returns a page of messages stored right before the message with <code>beforeNonce</code>
+	 * (or the newest messages if <code>beforeNonce</code> is <code>null</code>).
+	 *
+	 * @param beforeNonce - {@link MessagePage#getNextBeforeNonce()} of the previous page (or <code>null</code>)
+	 * @param count       - max number of messages in the page
+	 * @return messages in the storage order (oldest first)
+	 */
+	MessagePage getMessages(@Nullable String beforeNonce, int count) throws Exception;
+
 	String getLastReceivedMessageId() throws Exception;
 
 	int getUnreadMessageCount() throws Exception;
@@ -31,4 +43,32 @@ public interface MessageStore {
 	void deleteMessage(String nonce);
 
 	ApptentiveMessage findMessage(String nonce);
+
+	/**
+	 * A page of messages along with the cursor of the next (older) page. Messages which can't be
+	 * parsed are skipped so the page might have fewer messages than requested.
+	 */
+	class MessagePage {
+		private final List<ApptentiveMessage> messages;
+		private final String nextBeforeNonce;
+
+		public MessagePage(List<ApptentiveMessage> messages, @Nullable String nextBeforeNonce) {
+			if (messages == null) {
+				throw new IllegalArgumentException("Messages list is null");
+			}
+			this.messages = messages;
+			this.nextBeforeNonce = nextBeforeNonce;
+		}
+
+		public List<ApptentiveMessage> getMessages() {
+			return messages;
+		}
+
+		/**
+		 * Returns <code>null</code> if there are no older messages
+		 */
+		public @Nullable String getNextBeforeNonce() {
+			return nextBeforeNonce;
+		}
+	}
 }
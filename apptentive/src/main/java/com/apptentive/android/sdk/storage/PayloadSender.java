@@ -7,9 +7,12 @@
 package com.apptentive.android.sdk.storage;
 
 import com.apptentive.android.sdk.ApptentiveLog;
+import com.apptentive.android.sdk.debug.Tracing;
 import com.apptentive.android.sdk.model.PayloadData;
+import com.apptentive.android.sdk.model.PayloadType;
 import com.apptentive.android.sdk.network.HttpRequest;
 import com.apptentive.android.sdk.network.HttpRequestRetryPolicy;
+import com.apptentive.android.sdk.network.HttpResponseHandler;
 import com.apptentive.android.sdk.notifications.ApptentiveNotificationCenter;
 import com.apptentive.android.sdk.util.StringUtils;
 
@@ -43,6 +46,11 @@ class PayloadSender {
 	 */
 	private boolean sendingFlag; // this variable is only accessed in a synchronized context
 
+	/**
+	 * Trace span of the payload being sent (only accessed in a synchronized context)
+	 */
+	private Tracing.Span sendingSpan;
+
 	PayloadSender(PayloadRequestSender requestSender, HttpRequestRetryPolicy retryPolicy) {
 		if (requestSender == null) {
 			throw new IllegalArgumentException("Payload request sender is null");
@@ -76,6 +84,7 @@ class PayloadSender {
 
 		// we mark the sender as "busy" so no other payloads would be sent until we're done
 		sendingFlag = true;
+		sendingSpan = Tracing.startAsyncSpan("payload.send", payload.getNonce());
 
 		try {
 			sendPayloadRequest(payload);
@@ -109,8 +118,13 @@ class PayloadSender {
 			@Override
 			public void onFinish(HttpRequest request) {
 				try {
-					String json = StringUtils.isNullOrEmpty(request.getResponseData()) ? "{}" : request.getResponseData();
-					final JSONObject responseData = new JSONObject(json);
+					final JSONObject responseData;
+					if (isResponseDataRequired(payload)) {
+						String json = StringUtils.isNullOrEmpty(request.getResponseData()) ? "{}" : request.getResponseData();
+						responseData = new JSONObject(json);
+					} else {
+						responseData = null;
+					}
 					handleFinishSendingPayload(payload, false, null, request.getResponseCode(), responseData);
 				} catch (Exception e) {
 					// TODO: Stop assuming the response is JSON. In fact, just send bytes back, and whatever part of the SDK needs it can try to convert it to the desired format.
@@ -135,12 +149,26 @@ class PayloadSender {
 			}
 		});
 
+		// nobody reads the response body for most of the payloads: skip it
+		if (!isResponseDataRequired(payload)) {
+			payloadRequest.setResponseHandler(HttpResponseHandler.DISCARD);
+		}
+
 		// set 'retry' policy
 		payloadRequest.setRetryPolicy(requestRetryPolicy);
+		payloadRequest.setTraceParentId(sendingSpan != null ? sendingSpan.getId() : Tracing.NO_PARENT);
 		payloadRequest.setCallbackQueue(conversationQueue());
 		payloadRequest.start();
 	}
 
+	/**
+	 * Returns <code>true</code> if the response json is used after sending the payload (sent
+	 * messages are updated from the server response)
+	 */
+	private static boolean isResponseDataRequired(PayloadData payload) {
+		return PayloadType.message.equals(payload.getType());
+	}
+
 	//endregion
 
 	//region Listener notification
@@ -155,6 +183,10 @@ class PayloadSender {
 	 */
 	private synchronized void handleFinishSendingPayload(PayloadData payload, boolean cancelled, String errorMessage, int responseCode, JSONObject responseData) {
 		sendingFlag = false; // mark sender as 'not busy'
+		if (sendingSpan != null) {
+			sendingSpan.end();
+			sendingSpan = null;
+		}
 
 		try {
 			if (listener != null) {
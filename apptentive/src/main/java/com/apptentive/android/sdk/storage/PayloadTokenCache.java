@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2018, Apptentive, Inc. All Rights Reserved.
+ * Please refer to the LICENSE file for the terms and conditions
+ * under which redistribution and use of this file is permitted.
+ */
+
+package com.apptentive.android.sdk.storage;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.collection.LruCache;
+
+import com.apptentive.android.sdk.Encryption;
+import com.apptentive.android.sdk.encryption.EncryptionException;
+import com.apptentive.android.sdk.encryption.EncryptionHelper;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Interns encrypted payload auth tokens: each distinct token is encrypted and decrypted once per
+ * process. Every payload of a conversation stores the same token, so without the cache the crypto
+ * work grows linearly with the payload queue depth.
+ */
+class PayloadTokenCache {
+	private static final int MAX_TOKEN_COUNT = 8; // we rarely have more than a couple of conversations
+
+	private final Encryption encryption;
+
+	/**
+	 * Plain token -> encrypted token bytes
+	 */
+	private final LruCache<String, byte[]> encryptedTokens = new LruCache<>(MAX_TOKEN_COUNT);
+
+	/**
+	 * Encrypted token bytes -> plain token
+	 */
+	private final LruCache<ByteBuffer, String> decryptedTokens = new LruCache<>(MAX_TOKEN_COUNT);
+
+	PayloadTokenCache(@NonNull Encryption encryption) {
+		if (encryption == null) {
+			throw new IllegalArgumentException("Encryption is null");
+		}
+		this.encryption = encryption;
+	}
+
+	/**
+	 * Returns encrypted bytes for the token. Same bytes are returned for the same token so the
+	 * stored value can be decrypted with a single cache lookup later.
+	 */
+	@Nullable byte[] encrypt(@Nullable String token) throws EncryptionException {
+		if (token == null) {
+			return null;
+		}
+
+		byte[] encrypted = encryptedTokens.get(token);
+		if (encrypted == null) {
+			encrypted = EncryptionHelper.encrypt(encryption, token);
+			encryptedTokens.put(token, encrypted);
+			decryptedTokens.put(ByteBuffer.wrap(encrypted.clone()), token);
+		}
+		return encrypted;
+	}
+
+	@Nullable String decrypt(@Nullable byte[] encrypted) throws EncryptionException {
+		if (encrypted == null) {
+			return EncryptionHelper.decryptString(encryption, null);
+		}
+
+		final ByteBuffer key = ByteBuffer.wrap(encrypted);
+		String token = decryptedTokens.get(key);
+		if (token == null) {
+			token = EncryptionHelper.decryptString(encryption, encrypted);
+			if (token != null) {
+				decryptedTokens.put(ByteBuffer.wrap(encrypted.clone()), token);
+			}
+		}
+		return token;
+	}
+
+	void clear() {
+		encryptedTokens.evictAll();
+		decryptedTokens.evictAll();
+	}
+}
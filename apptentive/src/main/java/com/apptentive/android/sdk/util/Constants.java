@@ -72,6 +72,8 @@ public class Constants {
 	public static final String CONVERSATION_METADATA_FILE_LEGACY_V1 = "conversation-v1.meta";
 	public static final String PAYLOAD_DATA_DIR = "payloads";
 	public static final String PAYLOAD_DATA_FILE_SUFFIX = ".data";
+	public static final String NETWORK_DIR = "apptentive/network";
+	public static final String REQUEST_JOURNAL_FILE = "request-journal.json";
 	//endregion
 
 	// region Keys used to access old data for migration
@@ -307,22 +307,13 @@ public class ImageUtil {
 	}
 
 	public static boolean appendScaledDownImageToStream(String sourcePath, OutputStream outputStream) {
-		// Retrieve image orientation
-		int imageOrientation = 0;
-		try {
-			ExifInterface exif = new ExifInterface(sourcePath);
-			imageOrientation = exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
-		} catch (IOException e) {
-			logException(e);
-		}
-
 		// Copy the file contents over.
 		CountingOutputStream cos = null;
 		try {
 			cos = new CountingOutputStream(new BufferedOutputStream(outputStream));
 			System.gc();
-			Bitmap smaller = ImageUtil.createScaledBitmapFromLocalImageSource(sourcePath, MAX_SENT_IMAGE_EDGE, MAX_SENT_IMAGE_EDGE, null, imageOrientation);
-			smaller.compress(Bitmap.CompressFormat.JPEG, 95, cos);
+			Bitmap smaller = createScaledDownImageForSending(sourcePath);
+			writeImageForSending(smaller, cos);
 			cos.flush();
 			ApptentiveLog.v(UTIL, "Bitmap bytes appended, size = " + (cos.getBytesWritten() / 1024) + "k");
 			smaller.recycle();
@@ -336,6 +327,36 @@ public class ImageUtil {
 		}
 	}
 
+	/**
+	 * Decodes an image for sending: scaled down to {@link #MAX_SENT_IMAGE_EDGE} and rotated according
+	 * to its EXIF orientation
+	 */
+	public static Bitmap createScaledDownImageForSending(String sourcePath) throws IOException {
+		// Retrieve image orientation
+		int imageOrientation = 0;
+		try {
+			ExifInterface exif = new ExifInterface(sourcePath);
+			imageOrientation = exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+		} catch (IOException e) {
+			logException(e);
+		}
+
+		Bitmap image = ImageUtil.createScaledBitmapFromLocalImageSource(sourcePath, MAX_SENT_IMAGE_EDGE, MAX_SENT_IMAGE_EDGE, null, imageOrientation);
+		if (image == null) {
+			throw new IOException("Unable to decode image: " + sourcePath);
+		}
+		return image;
+	}
+
+	/**
+	 * Encodes an image for sending straight into the stream (the stream is not closed)
+	 */
+	public static void writeImageForSending(Bitmap image, OutputStream outputStream) throws IOException {
+		if (!image.compress(Bitmap.CompressFormat.JPEG, 95, outputStream)) {
+			throw new IOException("Unable to encode image");
+		}
+	}
+
 	private static class DownloadImageTask extends AsyncTask<String, Void, Bitmap> {
 
 		private WeakReference<ApptentiveAvatarView> resultView;
@@ -52,14 +52,27 @@ class ConcurrentDispatchQueue extends DispatchQueue implements ThreadFactory {
 
 	@Override
 	public boolean isCurrent() {
-		return false; // TODO: figure it out how to check if the queue is current
+		Thread thread = Thread.currentThread();
+		return thread instanceof QueueThread && ((QueueThread) thread).queue == this;
 	}
 
 	//region Thread factory
 
 	@Override
 	public Thread newThread(Runnable r) {
-		return new Thread(r, getName() + " (thread-" + threadNumber.getAndIncrement() + ")");
+		return new QueueThread(this, r, getName() + " (thread-" + threadNumber.getAndIncrement() + ")");
+	}
+
+	/**
+	 * Pool thread tagged with its owner queue
+	 */
+	private static class QueueThread extends Thread {
+		private final ConcurrentDispatchQueue queue;
+
+		QueueThread(ConcurrentDispatchQueue queue, Runnable target, String name) {
+			super(target, name);
+			this.queue = queue;
+		}
 	}
 
 	//endregion
@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2018, Apptentive, Inc. All Rights Reserved.
+ * Please refer to the LICENSE file for the terms and conditions
+ * under which redistribution and use of this file is permitted.
+ */
+
+package com.apptentive.android.sdk.util.threading;
+
+/**
+ * Describes the priority of a dispatch task. Only respected by
+ * <code>{@link PrioritySerialDispatchQueue}</code> (other queues are strictly FIFO).
+ */
+public enum DispatchPriority {
+	/**
+	 * User-visible work which should run as soon as possible (engage, show Message Center, etc).
+	 * Runs ahead of background work but never ahead of earlier normal tasks (it might depend on them).
+	 */
+	Interactive,
+	/**
+	 * Regular work
+	 */
+	Normal,
+	/**
+	 * Work nobody waits for (polling results, payload notifications, data migration, etc)
+	 */
+	Background
+}
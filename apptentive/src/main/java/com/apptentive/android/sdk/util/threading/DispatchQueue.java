@@ -23,6 +23,15 @@ package com.apptentive.android.sdk.util.threading;
 
 import android.os.Looper;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.apptentive.android.sdk.ApptentiveLog;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.apptentive.android.sdk.ApptentiveLogTag.UTIL;
+
 /**
  * A class representing dispatch queue where <code>{@link DispatchTask}</code> tasks can be executed
  * serially
@@ -36,14 +45,44 @@ public abstract class DispatchQueue {
 		}
 	};
 
+	/**
+	 * Default queue factory: serial queues are backed by a <code>HandlerThread</code> and concurrent
+	 * queues by a thread pool
+	 */
+	private static final DispatchQueueFactory DEFAULT_QUEUE_FACTORY = new DispatchQueueFactory() {
+		@NonNull
+		@Override
+		public DispatchQueue createQueue(@NonNull String name, @NonNull DispatchQueueType type) {
+			if (type == DispatchQueueType.Serial) {
+				return new SerialDispatchQueue(name);
+			}
+			if (type == DispatchQueueType.Concurrent) {
+				return new ConcurrentDispatchQueue(name);
+			}
+
+			throw new IllegalArgumentException("Unexpected queue type: " + type);
+		}
+	};
+
+	private static volatile DispatchQueueFactory queueFactory = DEFAULT_QUEUE_FACTORY;
+
+	/**
+	 * Metering wraps every dispatched task so it's only enabled on demand (troubleshooting mode)
+	 */
+	private static volatile boolean metricsEnabled;
+
 	private final String name;
 
+	private final DispatchQueueMetrics metrics;
+
 	public DispatchQueue(String name) {
 		this.name = name;
+		this.metrics = new DispatchQueueMetrics();
 	}
 
 	/**
-	 * Dispatch task implementation
+	 * Dispatch task implementation. Should throw <code>{@link RejectedExecutionException}</code>
+	 * if the task can't be accepted (for example, the queue is stopped).
 	 */
 	protected abstract void dispatch(DispatchTask task, long delayMillis);
 
@@ -59,7 +98,36 @@ public abstract class DispatchQueue {
 	 */
 	public void dispatchAsync(DispatchTask task, long delayMillis) {
 		task.setScheduled(true);
-		dispatch(task, delayMillis);
+		dispatchScheduled(task, delayMillis);
+	}
+
+	private void dispatchScheduled(DispatchTask task, long delayMillis) {
+		final DispatchTask dispatchedTask;
+		if (metricsEnabled) {
+			dispatchedTask = new MeteredTask(task, delayMillis);
+			metrics.taskDispatched();
+		} else {
+			dispatchedTask = task;
+		}
+
+		try {
+			dispatch(dispatchedTask, delayMillis);
+		} catch (RejectedExecutionException e) {
+			notifyTaskRejected(dispatchedTask);
+		}
+	}
+
+	/**
+	 * Called when a task was dispatched but the queue could not accept it
+	 */
+	void notifyTaskRejected(DispatchTask task) {
+		// same as posting to a quit Handler: the task is discarded
+		ApptentiveLog.w(UTIL, "Unable to dispatch task: queue '%s' is stopped", name);
+		if (task instanceof MeteredTask) {
+			metrics.taskRejected();
+			task = ((MeteredTask) task).task;
+		}
+		task.setScheduled(false); // allow re-scheduling
 	}
 
 	/**
@@ -81,8 +149,8 @@ public abstract class DispatchQueue {
 	 * @return true if task was scheduled
 	 */
 	public boolean dispatchAsyncOnce(DispatchTask task, long delayMillis) {
-		if (!task.isScheduled()) {
-			dispatchAsync(task, delayMillis);
+		if (task.trySchedule()) {
+			dispatchScheduled(task, delayMillis);
 			return true;
 		}
 		return false;
@@ -105,6 +173,14 @@ public abstract class DispatchQueue {
 		return name;
 	}
 
+	/**
+	 * Returns queue's runtime statistics (only collected while metrics are enabled: see
+	 * <code>{@link #setMetricsEnabled(boolean)}</code>)
+	 */
+	public DispatchQueueMetrics getMetrics() {
+		return metrics;
+	}
+
 	/**
 	 * A global dispatch queue associated with main thread
 	 */
@@ -130,14 +206,28 @@ public abstract class DispatchQueue {
 	 * Creates a background queue with specified <code>name</code> and dispatch type.
 	 */
 	public static DispatchQueue createBackgroundQueue(String name, DispatchQueueType type) {
-		if (type == DispatchQueueType.Serial) {
-			return new SerialDispatchQueue(name);
-		}
-		if (type == DispatchQueueType.Concurrent) {
-			return new ConcurrentDispatchQueue(name);
-		}
+		return queueFactory.createQueue(name, type);
+	}
+
+	/**
+	 * Overrides the factory used for creating background queues (<code>null</code> restores the
+	 * default one). Only affects queues created after the call: should be set before the SDK is
+	 * registered.
+	 */
+	public static void setQueueFactory(@Nullable DispatchQueueFactory factory) {
+		queueFactory = factory != null ? factory : DEFAULT_QUEUE_FACTORY;
+	}
 
-		throw new IllegalArgumentException("Unexpected queue type: " + type);
+	public static boolean isMetricsEnabled() {
+		return metricsEnabled;
+	}
+
+	/**
+	 * Enables collecting runtime statistics for all queues. Tasks dispatched while disabled are not
+	 * accounted.
+	 */
+	public static void setMetricsEnabled(boolean enabled) {
+		metricsEnabled = enabled;
 	}
 
 	/**
@@ -158,7 +248,47 @@ public abstract class DispatchQueue {
 		}
 
 		private static DispatchQueue createBackgroundQueue() {
-			return new ConcurrentDispatchQueue("Apptentive Background Queue");
+			return DispatchQueue.createBackgroundQueue("Apptentive Background Queue", DispatchQueueType.Concurrent);
+		}
+	}
+
+	/**
+	 * Measures queue wait and execution time of a dispatched task
+	 */
+	private class MeteredTask extends DispatchTask {
+		private final DispatchTask task;
+		private final long dueTimeNanos;
+
+		MeteredTask(DispatchTask task, long delayMillis) {
+			this.task = task;
+			this.dueTimeNanos = System.nanoTime() + Math.max(0, delayMillis) * 1000000L;
+		}
+
+		@Override
+		protected void execute() {
+			long startTimeNanos = System.nanoTime();
+			metrics.taskStarted(startTimeNanos - dueTimeNanos);
+
+			boolean executed = false;
+			try {
+				executed = task.runTask();
+			} finally {
+				if (executed) {
+					metrics.taskFinished(task, System.nanoTime() - startTimeNanos);
+				} else {
+					metrics.taskCancelled();
+				}
+			}
+		}
+
+		@Override
+		public String getDescription() {
+			return task.getDescription();
+		}
+
+		@Override
+		public DispatchPriority getPriority() {
+			return task.getPriority();
 		}
 	}
 
@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) 2018, Apptentive, Inc. All Rights Reserved.
+ * Please refer to the LICENSE file for the terms and conditions
+ * under which redistribution and use of this file is permitted.
+ */
+
+package com.apptentive.android.sdk.util.threading;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Creates background dispatch queues. Install a custom implementation with
+ * <code>{@link DispatchQueue#setQueueFactory(DispatchQueueFactory)}</code> to run SDK queues on
+ * a different executor backend (for example, {@link ExecutorDispatchQueueFactory} for pure-JVM
+ * test runs where no <code>Looper</code> is available).
+ */
+public interface DispatchQueueFactory {
+	/**
+	 * Creates a new queue with specified <code>name</code> and dispatch type.
+	 */
+	@NonNull DispatchQueue createQueue(@NonNull String name, @NonNull DispatchQueueType type);
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2018, Apptentive, Inc. All Rights Reserved.
+ * Please refer to the LICENSE file for the terms and conditions
+ * under which redistribution and use of this file is permitted.
+ */
+
+package com.apptentive.android.sdk.util.threading;
+
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Runtime statistics of a <code>{@link DispatchQueue}</code>. All values are updated without
+ * locking (except for the longest task) so reading them gives an approximate snapshot.
+ */
+public class DispatchQueueMetrics {
+	/**
+	 * Upper bounds (exclusive, in milliseconds) of the execution time histogram buckets. The last
+	 * bucket holds everything above the last bound.
+	 */
+	private static final long[] EXECUTION_TIME_BUCKETS_MILLIS = { 1, 4, 16, 64, 256, 1024 };
+
+	private final AtomicInteger queueDepth = new AtomicInteger();
+	private final AtomicLong dispatchedCount = new AtomicLong();
+	private final AtomicLong executedCount = new AtomicLong();
+	private final AtomicLong rejectedCount = new AtomicLong();
+	private final AtomicLong cancelledCount = new AtomicLong();
+	private final AtomicLong totalWaitTimeNanos = new AtomicLong();
+	private final AtomicLong maxWaitTimeNanos = new AtomicLong();
+	private final AtomicLongArray executionTimeHistogram = new AtomicLongArray(EXECUTION_TIME_BUCKETS_MILLIS.length + 1);
+
+	private long longestTaskTimeNanos;
+	private String longestTaskDescription;
+
+	DispatchQueueMetrics() {
+	}
+
+	//region Updates
+
+	void taskDispatched() {
+		dispatchedCount.incrementAndGet();
+		queueDepth.incrementAndGet();
+	}
+
+	void taskRejected() {
+		rejectedCount.incrementAndGet();
+		queueDepth.decrementAndGet();
+	}
+
+	void taskStarted(long waitTimeNanos) {
+		queueDepth.decrementAndGet();
+
+		if (waitTimeNanos > 0) {
+			totalWaitTimeNanos.addAndGet(waitTimeNanos);
+
+			long maxWaitTime;
+			do {
+				maxWaitTime = maxWaitTimeNanos.get();
+			} while (waitTimeNanos > maxWaitTime && !maxWaitTimeNanos.compareAndSet(maxWaitTime, waitTimeNanos));
+		}
+	}
+
+	void taskCancelled() {
+		cancelledCount.incrementAndGet();
+	}
+
+	void taskFinished(DispatchTask task, long executionTimeNanos) {
+		executedCount.incrementAndGet();
+		executionTimeHistogram.incrementAndGet(bucketIndex(executionTimeNanos));
+
+		synchronized (this) {
+			if (executionTimeNanos > longestTaskTimeNanos) {
+				longestTaskTimeNanos = executionTimeNanos;
+				longestTaskDescription = task.getDescription();
+			}
+		}
+	}
+
+	private static int bucketIndex(long executionTimeNanos) {
+		long executionTimeMillis = TimeUnit.NANOSECONDS.toMillis(executionTimeNanos);
+		for (int i = 0; i < EXECUTION_TIME_BUCKETS_MILLIS.length; ++i) {
+			if (executionTimeMillis < EXECUTION_TIME_BUCKETS_MILLIS[i]) {
+				return i;
+			}
+		}
+		return EXECUTION_TIME_BUCKETS_MILLIS.length;
+	}
+
+	//endregion
+
+	//region Getters
+
+	/**
+	 * Number of tasks waiting to be executed (approximate: tasks discarded by stopping the queue
+	 * are not accounted)
+	 */
+	public int getQueueDepth() {
+		return Math.max(0, queueDepth.get());
+	}
+
+	public long getDispatchedCount() {
+		return dispatchedCount.get();
+	}
+
+	public long getExecutedCount() {
+		return executedCount.get();
+	}
+
+	/**
+	 * Number of tasks which could not be dispatched (the queue was stopped)
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	/**
+	 * Number of tasks which were cancelled before they had a chance to execute
+	 */
+	public long getCancelledCount() {
+		return cancelledCount.get();
+	}
+
+	/**
+	 * Average time (in milliseconds) a task spends on the queue past its scheduled time
+	 */
+	public long getAverageWaitTimeMillis() {
+		long startedCount = executedCount.get() + cancelledCount.get();
+		return startedCount > 0 ? TimeUnit.NANOSECONDS.toMillis(totalWaitTimeNanos.get() / startedCount) : 0;
+	}
+
+	public long getMaxWaitTimeMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(maxWaitTimeNanos.get());
+	}
+
+	/**
+	 * Upper bounds (exclusive, in milliseconds) for all but the last bucket of
+	 * <code>{@link #getExecutionTimeHistogram()}</code>
+	 */
+	public static long[] getExecutionTimeBucketsMillis() {
+		return EXECUTION_TIME_BUCKETS_MILLIS.clone();
+	}
+
+	/**
+	 * Task counts by execution time
+	 */
+	public long[] getExecutionTimeHistogram() {
+		long[] histogram = new long[executionTimeHistogram.length()];
+		for (int i = 0; i < histogram.length; ++i) {
+			histogram[i] = executionTimeHistogram.get(i);
+		}
+		return histogram;
+	}
+
+	public synchronized long getLongestTaskTimeMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(longestTaskTimeNanos);
+	}
+
+	/**
+	 * Description of the task with the longest execution time (if any)
+	 */
+	public synchronized @Nullable String getLongestTaskDescription() {
+		return longestTaskDescription;
+	}
+
+	//endregion
+
+	@Override
+	public String toString() {
+		StringBuilder histogram = new StringBuilder();
+		long[] counts = getExecutionTimeHistogram();
+		for (int i = 0; i < counts.length; ++i) {
+			if (i > 0) {
+				histogram.append(' ');
+			}
+			histogram.append(i < EXECUTION_TIME_BUCKETS_MILLIS.length ? "<" + EXECUTION_TIME_BUCKETS_MILLIS[i] : ">=" + EXECUTION_TIME_BUCKETS_MILLIS[i - 1]);
+			histogram.append("ms:").append(counts[i]);
+		}
+
+		return String.format("depth=%d dispatched=%d executed=%d rejected=%d cancelled=%d " +
+				"wait(avg=%dms max=%dms) exec=[%s] longest='%s' (%dms)",
+			getQueueDepth(), getDispatchedCount(), getExecutedCount(), getRejectedCount(), getCancelledCount(),
+			getAverageWaitTimeMillis(), getMaxWaitTimeMillis(), histogram,
+			getLongestTaskDescription(), getLongestTaskTimeMillis());
+	}
+}
@@ -8,22 +8,38 @@ package com.apptentive.android.sdk.util.threading;
 
 import com.apptentive.android.sdk.ApptentiveLog;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static com.apptentive.android.sdk.debug.ErrorMetrics.logException;
 
 /**
  * A basic class for any dispatch runnable task. Tracks its "schedule" state
  */
 public abstract class DispatchTask implements Runnable {
+	/*
+	 * State flags: "scheduled" and "running" can be set at the same time (the task was
+	 * re-dispatched while running) and "cancelled" can be combined with either of them.
+	 */
+
+	/**
+	 * Task is already on the queue and would be executed soon.
+	 */
+	private static final int STATE_SCHEDULED = 1;
+
+	/**
+	 * Task is being executed.
+	 */
+	private static final int STATE_RUNNING = 1 << 1;
 
 	/**
-	 * True if task is already on the queue and would be executed soon.
+	 * Task is cancelled and should not be executed.
 	 */
-	private boolean scheduled;
+	private static final int STATE_CANCELLED = 1 << 2;
 
 	/**
-	 * True if task is cancelled and should not be executed.
+	 * Combination of state flags (0 - task is idle)
 	 */
-	private boolean cancelled;
+	private final AtomicInteger state = new AtomicInteger();
 
 	/**
 	 * Task entry point method
@@ -32,37 +48,95 @@ public abstract class DispatchTask implements Runnable {
 
 	@Override
 	public void run() {
-		try {
-			setScheduled(false);
+		runTask();
+	}
 
-			if (!isCancelled()) {
+	/**
+	 * Runs the task unless it was cancelled.
+	 *
+	 * @return <code>true</code> if task was executed
+	 */
+	boolean runTask() {
+		// single transition: "scheduled" -> "running" (cancellation is captured at the same time)
+		int prevState = updateState(STATE_RUNNING, STATE_SCHEDULED);
+		boolean cancelled = (prevState & STATE_CANCELLED) != 0;
+		try {
+			if (!cancelled) {
 				execute();
 			}
 		} catch (Exception e) {
 			ApptentiveLog.e(e, "Exception while executing task");
 			logException(e);
 		} finally {
-			setCancelled(false);
+			updateState(0, STATE_RUNNING | STATE_CANCELLED);
 		}
+		return !cancelled;
 	}
 
-	synchronized void setScheduled(boolean scheduled) {
-		this.scheduled = scheduled;
+	/**
+	 * Atomically marks the task as scheduled.
+	 *
+	 * @return <code>false</code> if task was already scheduled
+	 */
+	boolean trySchedule() {
+		int prevState;
+		do {
+			prevState = state.get();
+			if ((prevState & STATE_SCHEDULED) != 0) {
+				return false;
+			}
+		} while (!state.compareAndSet(prevState, prevState | STATE_SCHEDULED));
+		return true;
 	}
 
-	public synchronized boolean isScheduled() {
-		return scheduled;
+	void setScheduled(boolean scheduled) {
+		if (scheduled) {
+			updateState(STATE_SCHEDULED, 0);
+		} else {
+			updateState(0, STATE_SCHEDULED);
+		}
+	}
+
+	public boolean isScheduled() {
+		return (state.get() & STATE_SCHEDULED) != 0;
+	}
+
+	public boolean isRunning() {
+		return (state.get() & STATE_RUNNING) != 0;
 	}
 
-	private synchronized void setCancelled(boolean cancelled) {
-		this.cancelled = cancelled;
+	public boolean isCancelled() {
+		return (state.get() & STATE_CANCELLED) != 0;
 	}
 
-	public synchronized boolean isCancelled() {
-		return cancelled;
+	public void cancel() {
+		updateState(STATE_CANCELLED, 0);
 	}
 
-	public synchronized void cancel() {
-		this.cancelled = true;
+	/**
+	 * Returns human readable task description (used for queue metrics and debugging)
+	 */
+	public String getDescription() {
+		return getClass().getName();
+	}
+
+	/**
+	 * Returns task's priority hint (see <code>{@link PrioritySerialDispatchQueue}</code>)
+	 */
+	public DispatchPriority getPriority() {
+		return DispatchPriority.Normal;
+	}
+
+	/**
+	 * Atomically sets and clears state flags.
+	 *
+	 * @return previous state
+	 */
+	private int updateState(int setFlags, int clearFlags) {
+		int prevState;
+		do {
+			prevState = state.get();
+		} while (!state.compareAndSet(prevState, (prevState | setFlags) & ~clearFlags));
+		return prevState;
 	}
-}
\ No newline at end of file
+}
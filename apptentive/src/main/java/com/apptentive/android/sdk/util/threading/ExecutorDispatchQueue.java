@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2018, Apptentive, Inc. All Rights Reserved.
+ * Please refer to the LICENSE file for the terms and conditions
+ * under which redistribution and use of this file is permitted.
+ */
+
+package com.apptentive.android.sdk.util.threading;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatch queue implementation backed by a Java executor. Does not depend on Android classes.
+ * Tasks are executed on <code>executor</code>; delayed tasks are scheduled on
+ * <code>scheduler</code> and handed over to <code>executor</code> once the delay elapses (both
+ * can be the same object). The queue owns both executors and shuts them down when stopped.
+ */
+public class ExecutorDispatchQueue extends DispatchQueue {
+	/**
+	 * Queue which is running a task on the current thread (if any)
+	 */
+	private static final ThreadLocal<ExecutorDispatchQueue> CURRENT_QUEUE = new ThreadLocal<>();
+
+	private final ExecutorService executor;
+	private final ScheduledExecutorService scheduler;
+
+	public ExecutorDispatchQueue(String name, @NonNull ExecutorService executor, @NonNull ScheduledExecutorService scheduler) {
+		super(name);
+
+		if (executor == null) {
+			throw new IllegalArgumentException("Executor is null");
+		}
+
+		if (scheduler == null) {
+			throw new IllegalArgumentException("Scheduler is null");
+		}
+
+		this.executor = executor;
+		this.scheduler = scheduler;
+	}
+
+	@Override
+	protected void dispatch(final DispatchTask task, long delayMillis) {
+		final Runnable runnable = new QueueRunnable(task);
+		if (delayMillis <= 0) {
+			executor.execute(runnable);
+		} else if (scheduler == executor) {
+			scheduler.schedule(runnable, delayMillis, TimeUnit.MILLISECONDS);
+		} else {
+			scheduler.schedule(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						executor.execute(runnable);
+					} catch (RejectedExecutionException e) {
+						notifyTaskRejected(task);
+					}
+				}
+			}, delayMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Override
+	public void stop() {
+		executor.shutdownNow();
+		if (scheduler != executor) {
+			scheduler.shutdownNow();
+		}
+	}
+
+	@Override
+	public boolean isCurrent() {
+		return CURRENT_QUEUE.get() == this;
+	}
+
+	/**
+	 * Tags the executing thread with the queue for the duration of the task
+	 */
+	private class QueueRunnable implements Runnable {
+		private final DispatchTask task;
+
+		QueueRunnable(DispatchTask task) {
+			this.task = task;
+		}
+
+		@Override
+		public void run() {
+			ExecutorDispatchQueue previousQueue = CURRENT_QUEUE.get();
+			CURRENT_QUEUE.set(ExecutorDispatchQueue.this);
+			try {
+				task.run();
+			} finally {
+				CURRENT_QUEUE.set(previousQueue);
+			}
+		}
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2018, Apptentive, Inc. All Rights Reserved.
+ * Please refer to the LICENSE file for the terms and conditions
+ * under which redistribution and use of this file is permitted.
+ */
+
+package com.apptentive.android.sdk.util.threading;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates pure-JVM dispatch queues (no <code>Looper</code> required):
+ * <pre>
+ *   - serial queues run on a single-threaded scheduled executor (which also handles delays);
+ *   - concurrent queues run on the executor returned by {@link #createConcurrentExecutor(String)}
+ *     with a separate single-threaded scheduler for delays.
+ * </pre>
+ * JVM test and benchmark runs can override {@link #createConcurrentExecutor(String)} to return
+ * a <code>ForkJoinPool</code> or a virtual-thread-per-task executor (neither is available on all
+ * supported Android versions).
+ */
+public class ExecutorDispatchQueueFactory implements DispatchQueueFactory {
+	/*
+	 * Gets the number of available cores
+	 * (not always the same as the maximum number of cores)
+	 */
+	private static final int NUMBER_OF_CORES = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * How long an idle pool thread is kept alive
+	 */
+	private static final long KEEP_ALIVE_TIME_MILLIS = 30 * 1000L;
+
+	@NonNull
+	@Override
+	public DispatchQueue createQueue(@NonNull String name, @NonNull DispatchQueueType type) {
+		if (type == DispatchQueueType.Serial) {
+			ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new QueueThreadFactory(name, false));
+			return new ExecutorDispatchQueue(name, executor, executor);
+		}
+		if (type == DispatchQueueType.Concurrent) {
+			ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, new QueueThreadFactory(name + " Scheduler", false));
+			return new ExecutorDispatchQueue(name, createConcurrentExecutor(name), scheduler);
+		}
+
+		throw new IllegalArgumentException("Unexpected queue type: " + type);
+	}
+
+	/**
+	 * Creates an executor for a concurrent queue with specified <code>name</code>.
+	 */
+	protected @NonNull ExecutorService createConcurrentExecutor(@NonNull String name) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(NUMBER_OF_CORES, NUMBER_OF_CORES,
+				KEEP_ALIVE_TIME_MILLIS, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(),
+				new QueueThreadFactory(name, true));
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	private static class QueueThreadFactory implements ThreadFactory {
+		private final String name;
+		private final boolean numbered;
+
+		/** The number of the next thread in the pool */
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		QueueThreadFactory(String name, boolean numbered) {
+			this.name = name;
+			this.numbered = numbered;
+		}
+
+		@Override
+		public Thread newThread(@NonNull Runnable r) {
+			Thread thread = new Thread(r, numbered ? name + " (thread-" + threadNumber.getAndIncrement() + ")" : name);
+			thread.setDaemon(true); // don't keep the JVM alive
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2018, Apptentive, Inc. All Rights Reserved.
+ * Please refer to the LICENSE file for the terms and conditions
+ * under which redistribution and use of this file is permitted.
+ */
+
+package com.apptentive.android.sdk.util.threading;
+
+import androidx.annotation.NonNull;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Serial dispatch queue with a foreground and a background FIFO lane. Tasks are executed one at a
+ * time on the target serial queue: each step runs the oldest foreground task (or the oldest
+ * background task if there are no foreground ones). A running task is never preempted.
+ * <p/>
+ * <code>{@link DispatchPriority#Interactive}</code> and <code>{@link DispatchPriority#Normal}</code>
+ * tasks share the foreground lane: an interactive task only overtakes background work and never an
+ * earlier normal task. Public API calls rely on this ordering: <code>addCustomPersonData()</code>
+ * followed by <code>engage()</code> must evaluate the targeting against the updated data.
+ * <p/>
+ * Tasks are queued with their own priority (<code>{@link DispatchTask#getPriority()}</code>) or
+ * with the priority of a lane view returned by <code>{@link #withPriority(DispatchPriority)}</code>.
+ */
+public class PrioritySerialDispatchQueue extends DispatchQueue {
+	/**
+	 * Serial queue which executes tasks
+	 */
+	private final DispatchQueue targetQueue;
+
+	/**
+	 * Pending interactive and normal tasks
+	 */
+	private final Queue<DispatchTask> foregroundLane;
+
+	/**
+	 * Pending background tasks
+	 */
+	private final Queue<DispatchTask> backgroundLane;
+
+	/**
+	 * Lane views by priority (ordinal)
+	 */
+	private final DispatchQueue[] laneQueues;
+
+	/**
+	 * Runs the next pending task (re-dispatches itself if more tasks are pending)
+	 */
+	private final DispatchTask runNextTask = new DispatchTask() {
+		@Override
+		protected void execute() {
+			DispatchTask task = pollNextTask();
+			if (task != null) {
+				task.run();
+			}
+
+			if (hasPendingTasks()) {
+				targetQueue.dispatchAsyncOnce(this);
+			}
+		}
+	};
+
+	public PrioritySerialDispatchQueue(@NonNull DispatchQueue targetQueue) {
+		super(targetQueue.getName());
+		this.targetQueue = targetQueue;
+
+		foregroundLane = new ConcurrentLinkedQueue<>();
+		backgroundLane = new ConcurrentLinkedQueue<>();
+
+		DispatchPriority[] priorities = DispatchPriority.values();
+		laneQueues = new DispatchQueue[priorities.length];
+		for (int i = 0; i < priorities.length; ++i) {
+			laneQueues[i] = new LaneQueue(priorities[i]);
+		}
+	}
+
+	@Override
+	protected void dispatch(DispatchTask task, long delayMillis) {
+		enqueue(task, task.getPriority(), delayMillis);
+	}
+
+	/**
+	 * Returns a view of this queue which dispatches all the tasks with specified
+	 * <code>priority</code> (regardless of their own priority).
+	 */
+	public DispatchQueue withPriority(@NonNull DispatchPriority priority) {
+		return laneQueues[priority.ordinal()];
+	}
+
+	private void enqueue(final DispatchTask task, final DispatchPriority priority, long delayMillis) {
+		if (delayMillis > 0) {
+			// the task joins its lane once the delay elapses
+			targetQueue.dispatchAsync(new DispatchTask() {
+				@Override
+				protected void execute() {
+					enqueue(task, priority, 0L);
+				}
+			}, delayMillis);
+			return;
+		}
+
+		getLane(priority).offer(task);
+		targetQueue.dispatchAsyncOnce(runNextTask);
+	}
+
+	private Queue<DispatchTask> getLane(DispatchPriority priority) {
+		return priority == DispatchPriority.Background ? backgroundLane : foregroundLane;
+	}
+
+	private DispatchTask pollNextTask() {
+		DispatchTask task = foregroundLane.poll();
+		return task != null ? task : backgroundLane.poll();
+	}
+
+	private boolean hasPendingTasks() {
+		return !foregroundLane.isEmpty() || !backgroundLane.isEmpty();
+	}
+
+	@Override
+	public void stop() {
+		targetQueue.stop();
+		foregroundLane.clear();
+		backgroundLane.clear();
+	}
+
+	@Override
+	public boolean isCurrent() {
+		return targetQueue.isCurrent();
+	}
+
+	/**
+	 * Dispatches tasks to a single lane of the parent queue
+	 */
+	private class LaneQueue extends DispatchQueue {
+		private final DispatchPriority priority;
+
+		LaneQueue(DispatchPriority priority) {
+			super(PrioritySerialDispatchQueue.this.getName() + " (" + priority + ")");
+			this.priority = priority;
+		}
+
+		@Override
+		protected void dispatch(DispatchTask task, long delayMillis) {
+			enqueue(task, priority, delayMillis);
+		}
+
+		/**
+		 * Does nothing: a lane shares the thread with the other lanes of the parent queue (stop the
+		 * parent queue instead)
+		 */
+		@Override
+		public void stop() {
+		}
+
+		@Override
+		public boolean isCurrent() {
+			return PrioritySerialDispatchQueue.this.isCurrent();
+		}
+	}
+}
@@ -25,6 +25,8 @@ import android.os.Handler;
 import android.os.HandlerThread;
 import android.os.Looper;
 
+import java.util.concurrent.RejectedExecutionException;
+
 import static com.apptentive.android.sdk.debug.Assert.assertNotNull;
 
 /**
@@ -58,10 +60,9 @@ class SerialDispatchQueue extends DispatchQueue {
 
 	@Override
 	protected void dispatch(DispatchTask task, long delayMillis) {
-		if (delayMillis > 0) {
-			handler.postDelayed(task, delayMillis);
-		} else {
-			handler.post(task);
+		boolean posted = delayMillis > 0 ? handler.postDelayed(task, delayMillis) : handler.post(task);
+		if (!posted) {
+			throw new RejectedExecutionException("Looper is quitting: " + getName());
 		}
 	}
 
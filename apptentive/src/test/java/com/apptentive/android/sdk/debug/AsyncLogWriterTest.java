@@ -27,6 +27,7 @@ import static com.apptentive.android.sdk.ApptentiveLog.Level.DEBUG;
 import static com.apptentive.android.sdk.ApptentiveLog.Level.ERROR;
 import static com.apptentive.android.sdk.ApptentiveLog.Level.INFO;
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
 
 public class AsyncLogWriterTest extends LogicTestCaseBase {
 	@Rule
@@ -95,6 +96,26 @@ public class AsyncLogWriterTest extends LogicTestCaseBase {
 		assertFiles(listLogFiles(destDir), "7\n8\n9\n", "10\n11\n12\n", "13\n14\n15\n");
 	}
 
+	@Test
+	public void testDroppingMessages() {
+		File destDir = tempDir.getRoot();
+
+		// the writer can't keep up: only the newest messages should be written
+		MockDispatchQueue writeQueue = new MockDispatchQueue(false);
+		MockAsyncLogWriter writer = new MockAsyncLogWriter(destDir, writeQueue, 3);
+		for (int i = 0; i < 1030; ++i) {
+			writer.onLogMessage(INFO, Integer.toString(i));
+		}
+		writeQueue.dispatchTasks();
+
+		File[] files = listLogFiles(destDir);
+		assertEquals(1, files.length);
+
+		String text = readLogFile(files[0]);
+		assertTrue(text, text.startsWith("Dropped 6 log message(s)\n6\n7\n"));
+		assertTrue(text, text.endsWith("\n1029\n"));
+	}
+
 	private File[] listLogFiles(File destDir) {
 		File[] files = destDir.listFiles();
 		Arrays.sort(files, new Comparator<File>() {
@@ -134,7 +155,11 @@ public class AsyncLogWriterTest extends LogicTestCaseBase {
 		private static int nextId;
 
 		MockAsyncLogWriter(File destDir, int logHistorySize) {
-			super(destDir, new MockDispatchQueue(true), logHistorySize);
+			this(destDir, new MockDispatchQueue(true), logHistorySize);
+		}
+
+		MockAsyncLogWriter(File destDir, MockDispatchQueue writeQueue, int logHistorySize) {
+			super(destDir, writeQueue, logHistorySize);
 		}
 
 		@NonNull
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2018, Apptentive, Inc. All Rights Reserved.
+ * Please refer to the LICENSE file for the terms and conditions
+ * under which redistribution and use of this file is permitted.
+ */
+
+package com.apptentive.android.sdk.debug;
+
+import androidx.annotation.NonNull;
+
+import com.apptentive.android.sdk.TestCaseBase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TracingTest extends TestCaseBase {
+
+	@Before
+	public void setUp() throws Exception {
+		super.setUp();
+		Tracing.setExporter(new Tracing.Exporter() {
+			@Override
+			public void export(@NonNull List<Tracing.Span> spans) {
+				for (Tracing.Span span : spans) {
+					addResult("%s %s parent=%s", span.getName(), span.getDetail(), span.getParentId() != Tracing.NO_PARENT ? "yes" : "no");
+				}
+			}
+		});
+		Tracing.setEnabled(true);
+	}
+
+	@After
+	public void tearDown() {
+		Tracing.setEnabled(false);
+		Tracing.export();
+		Tracing.setExporter(null);
+		super.tearDown();
+	}
+
+	@Test
+	public void testNestedSpans() {
+		Tracing.Span parent = Tracing.startSpan("parent", "1");
+		Tracing.Span child = Tracing.startSpan("child", "2");
+		assertEquals(parent.getId(), child.getParentId());
+		assertEquals(child.getId(), Tracing.currentSpanId());
+		child.end();
+		assertEquals(parent.getId(), Tracing.currentSpanId());
+		parent.end();
+		assertEquals(Tracing.NO_PARENT, Tracing.currentSpanId());
+
+		Tracing.export();
+		assertResult("child 2 parent=yes", "parent 1 parent=no");
+	}
+
+	@Test
+	public void testAsyncSpan() throws Exception {
+		Tracing.Span parent = Tracing.startSpan("parent", null);
+		final Tracing.Span async = Tracing.startAsyncSpan("async", null);
+		assertEquals(parent.getId(), async.getParentId());
+		assertEquals(parent.getId(), Tracing.currentSpanId()); // async span never becomes current
+		parent.end();
+
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				async.end(); // can be ended on any thread
+			}
+		});
+		thread.start();
+		thread.join();
+
+		Tracing.export();
+		assertResult("parent null parent=no", "async null parent=yes");
+	}
+
+	@Test
+	public void testDisabled() {
+		Tracing.setEnabled(false);
+
+		Tracing.Span span = Tracing.startSpan("span", null);
+		assertEquals(Tracing.NO_PARENT, span.getId());
+		span.end();
+
+		Tracing.export();
+		assertResult();
+	}
+}
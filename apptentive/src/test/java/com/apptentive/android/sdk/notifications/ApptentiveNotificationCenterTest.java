@@ -9,6 +9,7 @@ package com.apptentive.android.sdk.notifications;
 import com.apptentive.android.sdk.LogicTestCaseBase;
 import com.apptentive.android.sdk.util.ObjectUtils;
 import com.apptentive.android.sdk.util.StringUtils;
+import com.apptentive.android.sdk.util.threading.MockDispatchQueue;
 
 import org.junit.After;
 import org.junit.Before;
@@ -100,6 +101,79 @@ public class ApptentiveNotificationCenterTest extends LogicTestCaseBase {
 		assertResult();
 	}
 
+	@Test
+	public void testPostNotificationsWithUserInfoArgs() {
+		notificationCenter.addObserver("notification", new Observer("observer"), STRONG_REFERENCE);
+
+		notificationCenter.postNotification("notification", "key1", "value1", "key2", 2);
+		assertResult("observer: notification {'key1':'value1', 'key2':'2'}");
+	}
+
+	@Test
+	public void testAddObserverWhilePosting() {
+		final Observer o2 = new Observer("observer2");
+		notificationCenter.addObserver("notification", new ApptentiveNotificationObserver() {
+			@Override
+			public void onReceiveNotification(ApptentiveNotification notification) {
+				notificationCenter.addObserver("notification", o2, STRONG_REFERENCE);
+				addResult("observer1");
+			}
+		}, STRONG_REFERENCE);
+
+		// observers added while posting are only notified next time
+		notificationCenter.postNotification("notification");
+		assertResult("observer1");
+
+		notificationCenter.postNotification("notification");
+		assertResult("observer1", "observer2: notification {}");
+	}
+
+	@Test
+	public void testObserverQueue() {
+		MockDispatchQueue queue = new MockDispatchQueue(false);
+		notificationCenter.addObserver("notification", new Observer("observer1"), queue);
+		notificationCenter.addObserver("notification", new Observer("observer2"), STRONG_REFERENCE);
+
+		notificationCenter.postNotification("notification", "key", "value1");
+		notificationCenter.postNotification("notification", "key", "value2");
+		assertResult("observer2: notification {'key':'value1'}", "observer2: notification {'key':'value2'}");
+
+		// queued notifications are delivered in order
+		queue.dispatchTasks();
+		assertResult("observer1: notification {'key':'value1'}", "observer1: notification {'key':'value2'}");
+	}
+
+	@Test
+	public void testPostNotificationAsync() {
+		MockDispatchQueue notificationQueue = new MockDispatchQueue(false);
+		MockDispatchQueue observerQueue = new MockDispatchQueue(false);
+		notificationCenter = new ApptentiveNotificationCenter(notificationQueue);
+		notificationCenter.addObserver("notification", new Observer("observer1"), observerQueue);
+		notificationCenter.addObserver("notification", new Observer("observer2"), STRONG_REFERENCE);
+
+		notificationCenter.postNotificationAsync("notification");
+		assertResult();
+
+		notificationQueue.dispatchTasks();
+		assertResult("observer2: notification {}");
+
+		observerQueue.dispatchTasks();
+		assertResult("observer1: notification {}");
+	}
+
+	@Test
+	public void testRemoveObserverWithPendingNotifications() {
+		MockDispatchQueue queue = new MockDispatchQueue(false);
+		Observer observer = new Observer("observer");
+		notificationCenter.addObserver("notification", observer, queue);
+
+		notificationCenter.postNotification("notification");
+		notificationCenter.removeObserver(observer);
+
+		queue.dispatchTasks();
+		assertResult();
+	}
+
 	private class Observer implements ApptentiveNotificationObserver {
 
 		private final String name;
@@ -12,6 +12,8 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.Assert.*;
 
 public class DispatchQueueTest extends TestCaseBase {
@@ -24,6 +26,7 @@ public class DispatchQueueTest extends TestCaseBase {
 
 	@After
 	public void tearDown() {
+		DispatchQueue.setMetricsEnabled(false);
 		super.tearDown();
 	}
 
@@ -99,4 +102,109 @@ public class DispatchQueueTest extends TestCaseBase {
 
 		assertResult("task-1", "task-2");
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testMetrics() {
+		DispatchQueue.setMetricsEnabled(true);
+
+		DispatchTask cancelledTask = new DispatchTask() {
+			@Override
+			protected void execute() {
+				addResult("cancelled");
+			}
+
+			@Override
+			public String getDescription() {
+				return "cancelled task";
+			}
+		};
+
+		DispatchQueue.mainQueue().dispatchAsync(new DispatchTask() {
+			@Override
+			protected void execute() {
+				addResult("executed");
+			}
+		});
+		DispatchQueue.mainQueue().dispatchAsync(cancelledTask);
+		cancelledTask.cancel();
+
+		DispatchQueueMetrics metrics = DispatchQueue.mainQueue().getMetrics();
+		assertEquals(2, metrics.getQueueDepth());
+		assertEquals(2, metrics.getDispatchedCount());
+
+		dispatchTasks();
+		assertResult("executed");
+
+		assertEquals(0, metrics.getQueueDepth());
+		assertEquals(1, metrics.getExecutedCount());
+		assertEquals(1, metrics.getCancelledCount());
+		assertEquals(0, metrics.getRejectedCount());
+
+		long executedCount = 0;
+		for (long count : metrics.getExecutionTimeHistogram()) {
+			executedCount += count;
+		}
+		assertEquals(1, executedCount);
+	}
+
+	@Test
+	public void testMetricsDisabled() {
+		DispatchQueue.mainQueue().dispatchAsync(new DispatchTask() {
+			@Override
+			protected void execute() {
+				addResult("executed");
+			}
+		});
+
+		dispatchTasks();
+		assertResult("executed");
+
+		DispatchQueueMetrics metrics = DispatchQueue.mainQueue().getMetrics();
+		assertEquals(0, metrics.getDispatchedCount());
+		assertEquals(0, metrics.getExecutedCount());
+	}
+
+	@Test
+	public void testSchedulingTasksOnceConcurrently() throws Exception {
+		final AtomicInteger dispatchCount = new AtomicInteger();
+		final DispatchQueue queue = new DispatchQueue("Test Queue") {
+			@Override
+			protected void dispatch(DispatchTask task, long delayMillis) {
+				dispatchCount.incrementAndGet(); // never runs the task
+			}
+
+			@Override
+			public void stop() {
+			}
+
+			@Override
+			public boolean isCurrent() {
+				return false;
+			}
+		};
+		final DispatchTask task = new DispatchTask() {
+			@Override
+			protected void execute() {
+			}
+		};
+
+		Thread[] threads = new Thread[8];
+		for (int i = 0; i < threads.length; ++i) {
+			threads[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int j = 0; j < 1000; ++j) {
+						queue.dispatchAsyncOnce(task);
+					}
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(1, dispatchCount.get());
+		assertTrue(task.isScheduled());
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2018, Apptentive, Inc. All Rights Reserved.
+ * Please refer to the LICENSE file for the terms and conditions
+ * under which redistribution and use of this file is permitted.
+ */
+
+package com.apptentive.android.sdk.util.threading;
+
+import com.apptentive.android.sdk.TestCaseBase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExecutorDispatchQueueTest extends TestCaseBase {
+
+	private final DispatchQueueFactory queueFactory = new ExecutorDispatchQueueFactory();
+	private DispatchQueue dispatchQueue;
+
+	@Before
+	public void setUp() throws Exception {
+		super.setUp();
+		dispatchQueue = queueFactory.createQueue("Test Queue", DispatchQueueType.Serial);
+	}
+
+	@After
+	public void tearDown() {
+		dispatchQueue.stop();
+		super.tearDown();
+	}
+
+	@Test
+	public void testSerialDispatch() throws Exception {
+		final CountDownLatch latch = new CountDownLatch(1);
+		dispatchQueue.dispatchAsync(new DispatchTask() {
+			@Override
+			protected void execute() {
+				addResult("task-1");
+				latch.countDown();
+			}
+		}, 100);
+		dispatchQueue.dispatchAsync(new DispatchTask() {
+			@Override
+			protected void execute() {
+				sleepUninterruptibly(50);
+				addResult("task-2");
+			}
+		});
+		dispatchQueue.dispatchAsync(new DispatchTask() {
+			@Override
+			protected void execute() {
+				addResult("task-3");
+			}
+		});
+
+		assertTrue(latch.await(1, TimeUnit.SECONDS));
+		assertResult("task-2", "task-3", "task-1"); // delayed task runs last
+	}
+
+	@Test
+	public void testIsCurrent() throws Exception {
+		final DispatchQueue otherQueue = queueFactory.createQueue("Other Queue", DispatchQueueType.Concurrent);
+		try {
+			final CountDownLatch latch = new CountDownLatch(1);
+			dispatchQueue.dispatchAsync(new DispatchTask() {
+				@Override
+				protected void execute() {
+					addResult("current=%b other=%b", dispatchQueue.isCurrent(), otherQueue.isCurrent());
+					latch.countDown();
+				}
+			});
+
+			assertTrue(latch.await(1, TimeUnit.SECONDS));
+			assertResult("current=true other=false");
+			assertFalse(dispatchQueue.isCurrent());
+		} finally {
+			otherQueue.stop();
+		}
+	}
+
+	@Test
+	public void testStoppingDispatch() throws Exception {
+		final CountDownLatch latch = new CountDownLatch(1);
+		dispatchQueue.dispatchAsync(new DispatchTask() {
+			@Override
+			protected void execute() {
+				dispatchQueue.stop();
+				addResult("task-1");
+				latch.countDown();
+			}
+		});
+		dispatchQueue.dispatchAsync(new DispatchTask() {
+			@Override
+			protected void execute() {
+				addResult("task-2");
+			}
+		});
+
+		assertTrue(latch.await(1, TimeUnit.SECONDS));
+		sleepUninterruptibly(100); // give task-2 a chance to run (it should not)
+		assertResult("task-1");
+
+		// dispatching on a stopped queue is a no-op
+		dispatchQueue.dispatchAsync(new DispatchTask() {
+			@Override
+			protected void execute() {
+				addResult("task-3");
+			}
+		});
+		sleepUninterruptibly(100);
+		assertResult();
+	}
+
+	private static void sleepUninterruptibly(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException ignored) {
+		}
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2018, Apptentive, Inc. All Rights Reserved.
+ * Please refer to the LICENSE file for the terms and conditions
+ * under which redistribution and use of this file is permitted.
+ */
+
+package com.apptentive.android.sdk.util.threading;
+
+import com.apptentive.android.sdk.TestCaseBase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PrioritySerialDispatchQueueTest extends TestCaseBase {
+
+	private MockDispatchQueue targetQueue;
+	private PrioritySerialDispatchQueue dispatchQueue;
+
+	@Before
+	public void setUp() throws Exception {
+		super.setUp();
+		targetQueue = new MockDispatchQueue(false);
+		dispatchQueue = new PrioritySerialDispatchQueue(targetQueue);
+	}
+
+	@After
+	public void tearDown() {
+		super.tearDown();
+	}
+
+	@Test
+	public void testPriorityLanes() {
+		dispatchQueue.dispatchAsync(new Task("background-1", DispatchPriority.Background));
+		dispatchQueue.dispatchAsync(new Task("normal-1", DispatchPriority.Normal));
+		dispatchQueue.dispatchAsync(new Task("interactive-1", DispatchPriority.Interactive));
+		dispatchQueue.dispatchAsync(new Task("normal-2", DispatchPriority.Normal));
+		dispatchQueue.dispatchAsync(new Task("background-2", DispatchPriority.Background));
+		dispatchQueue.dispatchAsync(new Task("interactive-2", DispatchPriority.Interactive));
+		targetQueue.dispatchTasks();
+
+		// interactive and normal tasks share the same FIFO lane
+		assertResult("normal-1", "interactive-1", "normal-2", "interactive-2", "background-1", "background-2");
+	}
+
+	@Test
+	public void testInteractiveTaskKeepsApiCallOrder() {
+		dispatchQueue.dispatchAsync(new Task("send payload", DispatchPriority.Background));
+		// mirrors Apptentive.addCustomPersonData() followed by Apptentive.engage()
+		dispatchQueue.dispatchAsync(new Task("add custom person data", DispatchPriority.Normal));
+		dispatchQueue.dispatchAsync(new Task("engage", DispatchPriority.Interactive));
+		targetQueue.dispatchTasks();
+
+		// engage should see the updated person data but should not wait for the background work
+		assertResult("add custom person data", "engage", "send payload");
+	}
+
+	@Test
+	public void testLaneView() {
+		DispatchQueue backgroundLane = dispatchQueue.withPriority(DispatchPriority.Background);
+		backgroundLane.dispatchAsync(new Task("background", DispatchPriority.Interactive)); // lane priority wins
+		dispatchQueue.dispatchAsync(new Task("normal", DispatchPriority.Normal));
+		targetQueue.dispatchTasks();
+
+		assertResult("normal", "background");
+	}
+
+	@Test
+	public void testDispatchWhileRunning() {
+		dispatchQueue.dispatchAsync(new Task("background", DispatchPriority.Background));
+		dispatchQueue.dispatchAsync(new Task("normal-1", DispatchPriority.Normal) {
+			@Override
+			protected void execute() {
+				super.execute();
+				dispatchQueue.dispatchAsync(new Task("interactive", DispatchPriority.Interactive));
+			}
+		});
+		dispatchQueue.dispatchAsync(new Task("normal-2", DispatchPriority.Normal));
+		targetQueue.dispatchTasks();
+
+		// running task is never preempted but the next one is picked by priority
+		assertResult("normal-1", "normal-2", "interactive", "background");
+	}
+
+	@Test
+	public void testStopLane() {
+		dispatchQueue.dispatchAsync(new Task("normal", DispatchPriority.Normal));
+		dispatchQueue.withPriority(DispatchPriority.Background).stop(); // should not affect the queue
+		targetQueue.dispatchTasks();
+
+		assertResult("normal");
+	}
+
+	private class Task extends DispatchTask {
+		private final String name;
+		private final DispatchPriority priority;
+
+		Task(String name, DispatchPriority priority) {
+			this.name = name;
+			this.priority = priority;
+		}
+
+		@Override
+		protected void execute() {
+			addResult(name);
+		}
+
+		@Override
+		public DispatchPriority getPriority() {
+			return priority;
+		}
+	}
+}
@@ -43,6 +43,11 @@ public class MockHttpJsonRequest extends HttpJsonRequest {
 		return this;
 	}
 
+	public MockHttpJsonRequest setMockResponseCode(int code) {
+		connection.setMockResponseCode(code);
+		return this;
+	}
+
 	@Override
 	protected boolean isNetworkConnectionPresent() {
 		return true;